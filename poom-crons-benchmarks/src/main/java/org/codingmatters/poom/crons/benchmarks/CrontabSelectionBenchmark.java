@@ -0,0 +1,71 @@
+package org.codingmatters.poom.crons.benchmarks;
+
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.crons.domain.Crontab;
+import org.codingmatters.poom.crons.domain.ownership.TaskOwnership;
+import org.codingmatters.poom.crons.domain.selector.DateTimeTaskSelector;
+import org.codingmatters.poom.services.domain.entities.Entity;
+import org.codingmatters.poom.services.domain.entities.PagedEntityList;
+import org.codingmatters.poom.services.domain.exceptions.RepositoryException;
+import org.codingmatters.poom.services.domain.repositories.Repository;
+import org.codingmatters.poom.services.domain.repositories.inmemory.InMemoryRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx8g"})
+public class CrontabSelectionBenchmark {
+
+    static private final int ACCOUNTS = 100;
+
+    @Param({"10000", "100000", "1000000"})
+    public int taskCount;
+
+    @Param({"1", "8"})
+    public int shards;
+
+    private ForkJoinPool pool;
+    private Crontab crontab;
+    private int minute = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        this.pool = new ForkJoinPool(Math.max(this.shards, 1));
+        Map<String, Repository<Task, Void>> repositories = new HashMap<>();
+        this.crontab = new Crontab(account -> repositories.computeIfAbsent(account, a -> new InMemoryRepository<Task, Void>() {
+            @Override
+            public PagedEntityList<Task> search(Void query, long startIndex, long endIndex) throws RepositoryException {
+                return this.all(startIndex, endIndex);
+            }
+        }), () -> null, this.shards, TaskOwnership.ALL);
+
+        SyntheticTasks tasks = new SyntheticTasks(42);
+        for (int i = 0; i < this.taskCount; i++) {
+            this.crontab.forAccount("account-" + (i % ACCOUNTS)).create(Task.builder().spec(tasks.next()).build());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.pool.shutdownNow();
+    }
+
+    @Benchmark
+    public List<Entity<Task>> selectable() throws Exception {
+        this.minute = (this.minute + 1) % (24 * 60);
+        return this.crontab.selectable(
+                DateTimeTaskSelector.minutesPrecision(SyntheticTasks.START.plusMinutes(this.minute), TimeZone.getTimeZone("UTC")),
+                this.pool
+        );
+    }
+}
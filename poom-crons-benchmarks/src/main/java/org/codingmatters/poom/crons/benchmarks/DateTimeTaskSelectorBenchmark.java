@@ -0,0 +1,64 @@
+package org.codingmatters.poom.crons.benchmarks;
+
+import org.codingmatters.poom.crons.crontab.api.types.TaskSpec;
+import org.codingmatters.poom.crons.domain.selector.CompiledSchedule;
+import org.codingmatters.poom.crons.domain.selector.DateTimeTaskSelector;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DateTimeTaskSelectorBenchmark {
+
+    @Param({"UTC", "Europe/Paris", "America/New_York"})
+    public String timezone;
+
+    @Param({"AT", "EVERY"})
+    public String kind;
+
+    private TaskSpec[] specs;
+    private CompiledSchedule[] schedules;
+    private DateTimeTaskSelector minutesSelector;
+    private DateTimeTaskSelector secondsSelector;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticTasks tasks = new SyntheticTasks(42);
+        this.specs = new TaskSpec[1024];
+        this.schedules = new CompiledSchedule[this.specs.length];
+        for (int i = 0; i < this.specs.length; i++) {
+            this.specs[i] = this.kind.equals("AT") ? tasks.at(this.timezone) : tasks.every(this.timezone);
+            this.schedules[i] = CompiledSchedule.compile(this.specs[i]);
+        }
+        this.minutesSelector = DateTimeTaskSelector.minutesPrecision(SyntheticTasks.START.plusHours(10).plusMinutes(17), TimeZone.getTimeZone("UTC"));
+        this.secondsSelector = DateTimeTaskSelector.secondsPrecision(SyntheticTasks.START.plusHours(10).plusMinutes(17).plusSeconds(12), TimeZone.getTimeZone("UTC"));
+    }
+
+    @Benchmark
+    public boolean minutesPrecision() {
+        return this.minutesSelector.selectable(this.nextSpec());
+    }
+
+    @Benchmark
+    public boolean secondsPrecision() {
+        return this.secondsSelector.selectable(this.nextSpec());
+    }
+
+    @Benchmark
+    public boolean minutesPrecisionCompiled() {
+        this.next = (this.next + 1) & (this.specs.length - 1);
+        return this.minutesSelector.selectable(this.schedules[this.next], this.specs[this.next]);
+    }
+
+    private TaskSpec nextSpec() {
+        this.next = (this.next + 1) & (this.specs.length - 1);
+        return this.specs[this.next];
+    }
+}
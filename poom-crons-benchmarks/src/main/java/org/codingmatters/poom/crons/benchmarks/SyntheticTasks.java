@@ -0,0 +1,72 @@
+package org.codingmatters.poom.crons.benchmarks;
+
+import org.codingmatters.poom.crons.crontab.api.types.TaskSpec;
+import org.codingmatters.poom.crons.crontab.api.types.taskspec.scheduled.At;
+import org.codingmatters.value.objects.values.ObjectValue;
+import org.codingmatters.value.objects.values.PropertyValue;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.Random;
+
+public class SyntheticTasks {
+
+    static public final LocalDateTime START = LocalDateTime.of(2020, Month.OCTOBER, 24, 0, 0);
+    static public final String[] TIMEZONES = {null, "UTC", "Europe/Paris", "America/New_York", "Asia/Tokyo"};
+
+    private final Random random;
+
+    public SyntheticTasks(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public TaskSpec next() {
+        String timezone = TIMEZONES[this.random.nextInt(TIMEZONES.length)];
+        if(this.random.nextBoolean()) {
+            return this.at(timezone);
+        } else {
+            return this.every(timezone);
+        }
+    }
+
+    public TaskSpec at(String timezone) {
+        switch (this.random.nextInt(3)) {
+            case 0:
+                return this.spec(timezone).scheduled(scheduled -> scheduled
+                        .at(at -> at.minuteOfHours((long) this.random.nextInt(60)))
+                ).build();
+            case 1:
+                return this.spec(timezone).scheduled(scheduled -> scheduled
+                        .at(at -> at.hourOfDay((long) this.random.nextInt(24)).minuteOfHours((long) this.random.nextInt(60)))
+                ).build();
+            default:
+                return this.spec(timezone).scheduled(scheduled -> scheduled
+                        .at(at -> at.dayOfWeek(At.DayOfWeek.values()[this.random.nextInt(7)]).hourOfDay((long) this.random.nextInt(24)))
+                ).build();
+        }
+    }
+
+    public TaskSpec every(String timezone) {
+        switch (this.random.nextInt(3)) {
+            case 0:
+                return this.spec(timezone).scheduled(scheduled -> scheduled
+                        .every(every -> every.minutes(1L + this.random.nextInt(90)).startingAt(START.minusMinutes(this.random.nextInt(10000))))
+                ).build();
+            case 1:
+                return this.spec(timezone).scheduled(scheduled -> scheduled
+                        .every(every -> every.hours(1L + this.random.nextInt(12)).startingAt(START.minusMinutes(this.random.nextInt(10000))))
+                ).build();
+            default:
+                return this.spec(timezone).scheduled(scheduled -> scheduled
+                        .every(every -> every.days(1L + this.random.nextInt(7)).startingAt(START.minusMinutes(this.random.nextInt(10000))))
+                ).build();
+        }
+    }
+
+    private TaskSpec.Builder spec(String timezone) {
+        return TaskSpec.builder()
+                .url("http://localhost/cronned/" + this.random.nextInt(100))
+                .timezone(timezone)
+                .payload(ObjectValue.builder().property("task", PropertyValue.builder().stringValue("benchmark")).build());
+    }
+}
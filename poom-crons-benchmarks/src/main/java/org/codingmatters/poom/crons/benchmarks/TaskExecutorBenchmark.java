@@ -0,0 +1,63 @@
+package org.codingmatters.poom.crons.benchmarks;
+
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.crons.domain.TaskExecutor;
+import org.codingmatters.poom.crons.domain.trigger.AsyncTaskTrigger;
+import org.codingmatters.poom.crons.domain.trigger.TaskTrigger;
+import org.codingmatters.poom.crons.domain.trigger.TriggerResult;
+import org.codingmatters.poom.services.domain.entities.Entity;
+import org.codingmatters.poom.services.domain.entities.ImmutableEntity;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskExecutorBenchmark {
+
+    static private final TaskTrigger NO_OP = (task, triggedAt, eventId) -> new TriggerResult(true);
+
+    @Param({"100", "1000", "10000"})
+    public int taskCount;
+
+    private ForkJoinPool pool;
+    private TaskExecutor poolExecutor;
+    private TaskExecutor asyncExecutor;
+    private List<Entity<Task>> tasks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.pool = new ForkJoinPool(4);
+        this.poolExecutor = new TaskExecutor(this.pool, NO_OP);
+        this.asyncExecutor = new TaskExecutor(AsyncTaskTrigger.of(NO_OP, this.pool), 256);
+
+        SyntheticTasks specs = new SyntheticTasks(42);
+        this.tasks = new ArrayList<>(this.taskCount);
+        for (int i = 0; i < this.taskCount; i++) {
+            this.tasks.add(new ImmutableEntity<>("account/task-" + i, BigInteger.ONE, Task.builder().spec(specs.next()).errorCount(0L).build()));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.pool.shutdownNow();
+    }
+
+    @Benchmark
+    public List<Entity<Task>> pool() throws Exception {
+        return this.poolExecutor.execute(this.tasks);
+    }
+
+    @Benchmark
+    public List<Entity<Task>> asyncBounded() throws Exception {
+        return this.asyncExecutor.execute(this.tasks);
+    }
+}
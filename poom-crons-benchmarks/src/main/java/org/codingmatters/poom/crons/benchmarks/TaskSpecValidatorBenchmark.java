@@ -0,0 +1,34 @@
+package org.codingmatters.poom.crons.benchmarks;
+
+import org.codingmatters.poom.crons.crontab.api.types.TaskSpec;
+import org.codingmatters.poom.crons.domain.TaskSpecValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskSpecValidatorBenchmark {
+
+    private TaskSpec[] specs;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticTasks tasks = new SyntheticTasks(42);
+        this.specs = new TaskSpec[1024];
+        for (int i = 0; i < this.specs.length; i++) {
+            this.specs[i] = tasks.next();
+        }
+    }
+
+    @Benchmark
+    public TaskSpecValidator.TaskSpecValidation validate() {
+        this.next = (this.next + 1) & (this.specs.length - 1);
+        return new TaskSpecValidator(this.specs[this.next]).validate();
+    }
+}
@@ -0,0 +1,112 @@
+package org.codingmatters.poom.crons.benchmarks.load;
+
+import org.codingmatters.poom.crons.crontab.api.types.TaskSpec;
+import org.codingmatters.poom.crons.domain.selector.NextOccurrence;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+public class FiringReport {
+
+    static public FiringReport compute(Map<String, TaskSpec> tasks, List<StubCronnedService.Delivery> deliveries, NextOccurrence nextOccurrence, LocalDateTime from, LocalDateTime to) {
+        Map<String, List<StubCronnedService.Delivery>> byTask = new HashMap<>();
+        for (StubCronnedService.Delivery delivery : deliveries) {
+            byTask.computeIfAbsent(delivery.taskId, id -> new ArrayList<>()).add(delivery);
+        }
+
+        FiringReport report = new FiringReport();
+        for (Map.Entry<String, TaskSpec> task : tasks.entrySet()) {
+            List<LocalDateTime> expected = new ArrayList<>();
+            Optional<LocalDateTime> next = nextOccurrence.nextOccurrence(task.getValue(), from.minusNanos(1));
+            while (next.isPresent() && next.get().isBefore(to)) {
+                expected.add(next.get());
+                next = nextOccurrence.nextOccurrence(task.getValue(), next.get());
+            }
+            report.expected += expected.size();
+
+            int[] received = new int[expected.size()];
+            for (StubCronnedService.Delivery delivery : byTask.getOrDefault(task.getKey(), Collections.emptyList())) {
+                int occurrence = latestAtOrBefore(expected, delivery.triggedAt);
+                if(occurrence < 0 || ! delivery.triggedAt.isBefore(to)) {
+                    continue;
+                }
+                received[occurrence]++;
+                if(received[occurrence] == 1) {
+                    report.skew.record(Duration.between(expected.get(occurrence), delivery.triggedAt).toMillis());
+                }
+                report.outcomes.merge(delivery.outcome, 1L, Long::sum);
+            }
+            for (int count : received) {
+                if(count == 0) {
+                    report.lost++;
+                } else {
+                    report.delivered++;
+                    report.duplicates += count - 1;
+                }
+            }
+        }
+        return report;
+    }
+
+    static private int latestAtOrBefore(List<LocalDateTime> occurrences, LocalDateTime at) {
+        int low = 0;
+        int high = occurrences.size() - 1;
+        int result = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if(occurrences.get(middle).isAfter(at)) {
+                high = middle - 1;
+            } else {
+                result = middle;
+                low = middle + 1;
+            }
+        }
+        return result;
+    }
+
+    private long expected = 0L;
+    private long delivered = 0L;
+    private long lost = 0L;
+    private long duplicates = 0L;
+    private final LatencyRecorder skew = new LatencyRecorder();
+    private final Map<StubCronnedService.Outcome, Long> outcomes = new EnumMap<>(StubCronnedService.Outcome.class);
+
+    private FiringReport() {
+    }
+
+    public long expected() {
+        return this.expected;
+    }
+
+    public long delivered() {
+        return this.delivered;
+    }
+
+    public long lost() {
+        return this.lost;
+    }
+
+    public long duplicates() {
+        return this.duplicates;
+    }
+
+    public LatencyRecorder.Summary skew() {
+        return this.skew.summary();
+    }
+
+    public Map<StubCronnedService.Outcome, Long> outcomes() {
+        return Collections.unmodifiableMap(this.outcomes);
+    }
+
+    @Override
+    public String toString() {
+        return "FiringReport{" +
+                "expected=" + expected +
+                ", delivered=" + delivered +
+                ", lost=" + lost +
+                ", duplicates=" + duplicates +
+                ", outcomes=" + outcomes +
+                '}';
+    }
+}
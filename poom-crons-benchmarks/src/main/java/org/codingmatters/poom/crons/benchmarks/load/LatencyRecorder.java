@@ -0,0 +1,49 @@
+package org.codingmatters.poom.crons.benchmarks.load;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class LatencyRecorder {
+
+    private final ConcurrentLinkedQueue<Long> samples = new ConcurrentLinkedQueue<>();
+
+    public void record(long millis) {
+        this.samples.add(millis);
+    }
+
+    public Summary summary() {
+        long[] sorted = this.samples.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        return new Summary(sorted);
+    }
+
+    static public class Summary {
+        private final long[] sorted;
+
+        Summary(long[] sorted) {
+            this.sorted = sorted;
+        }
+
+        public int count() {
+            return this.sorted.length;
+        }
+
+        public long percentile(double percentile) {
+            if(this.sorted.length == 0) {
+                return 0L;
+            }
+            int index = (int) Math.ceil(percentile / 100d * this.sorted.length) - 1;
+            return this.sorted[Math.max(0, Math.min(index, this.sorted.length - 1))];
+        }
+
+        public long max() {
+            return this.sorted.length == 0 ? 0L : this.sorted[this.sorted.length - 1];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("n=%d p50=%dms p90=%dms p99=%dms p99.9=%dms max=%dms",
+                    this.count(), this.percentile(50), this.percentile(90), this.percentile(99), this.percentile(99.9), this.max());
+        }
+    }
+}
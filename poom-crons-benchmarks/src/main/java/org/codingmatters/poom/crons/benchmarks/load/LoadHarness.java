@@ -0,0 +1,197 @@
+package org.codingmatters.poom.crons.benchmarks.load;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.crons.crontab.api.types.TaskSpec;
+import org.codingmatters.poom.crons.crontab.api.types.taskspec.scheduled.At;
+import org.codingmatters.poom.crons.domain.tracing.TraceContextInterceptor;
+import org.codingmatters.poom.crons.domain.trigger.ApiCallTaskTrigger;
+import org.codingmatters.poom.crons.domain.trigger.BatchApiCallTaskTrigger;
+import org.codingmatters.poom.crons.domain.trigger.TaskTrigger;
+import org.codingmatters.poom.crons.service.CrontabService;
+import org.codingmatters.poom.services.domain.entities.Entity;
+import org.codingmatters.poom.services.domain.entities.PagedEntityList;
+import org.codingmatters.poom.services.domain.exceptions.RepositoryException;
+import org.codingmatters.poom.services.domain.repositories.Repository;
+import org.codingmatters.poom.services.domain.repositories.inmemory.InMemoryRepository;
+import org.codingmatters.poom.services.logging.CategorizedLogger;
+import org.codingmatters.poom.services.support.Env;
+import org.codingmatters.poom.services.support.date.UTC;
+import org.codingmatters.rest.api.client.okhttp.OkHttpClientWrapper;
+import org.codingmatters.value.objects.values.ObjectValue;
+import org.codingmatters.value.objects.values.PropertyValue;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+public class LoadHarness {
+    static private final CategorizedLogger log = CategorizedLogger.getLogger(LoadHarness.class);
+
+    public enum TriggerKind {
+        SINGLE, BATCH
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadHarness harness = new LoadHarness(
+                (int) Env.optional("LOAD_ACCOUNTS").orElse(new Env.Var("10")).asLong(),
+                Arrays.stream(Env.optional("LOAD_TASKS_PER_ACCOUNT").orElse(new Env.Var("10,100,1000")).asString().split("\\s*,\\s*"))
+                        .mapToInt(Integer::parseInt).toArray(),
+                CrontabService.Precision.valueOf(Env.optional("LOAD_PRECISION").orElse(new Env.Var("SECONDS")).asString().toUpperCase()),
+                TriggerKind.valueOf(Env.optional("LOAD_TRIGGER").orElse(new Env.Var("SINGLE")).asString().toUpperCase()),
+                new StubCronnedService(
+                        Env.optional("STUB_LATENCY_MILLIS").orElse(new Env.Var("20")).asLong(),
+                        Double.parseDouble(Env.optional("STUB_ERROR_RATE").orElse(new Env.Var("0.01")).asString()),
+                        Double.parseDouble(Env.optional("STUB_GONE_RATE").orElse(new Env.Var("0.001")).asString()),
+                        (int) Env.optional("STUB_WORKER_THREADS").orElse(new Env.Var("64")).asLong()
+                )
+        );
+        harness.run(Env.optional("LOAD_DURATION_SECONDS").orElse(new Env.Var("300")).asLong(), TimeUnit.SECONDS);
+        System.exit(0);
+    }
+
+    private final int accounts;
+    private final int[] tasksPerAccount;
+    private final CrontabService.Precision precision;
+    private final TriggerKind triggerKind;
+    private final StubCronnedService stub;
+
+    private final Map<String, Repository<Task, Void>> repositories = new ConcurrentHashMap<>();
+    private final Map<String, TaskSpec> tasks = new HashMap<>();
+    private final LatencyRecorder triggerLatencies = new LatencyRecorder();
+
+    public LoadHarness(int accounts, int[] tasksPerAccount, CrontabService.Precision precision, TriggerKind triggerKind, StubCronnedService stub) {
+        this.accounts = accounts;
+        this.tasksPerAccount = tasksPerAccount;
+        this.precision = precision;
+        this.triggerKind = triggerKind;
+        this.stub = stub;
+    }
+
+    public FiringReport run(long duration, TimeUnit unit) throws Exception {
+        this.stub.start();
+        try {
+            String[] accountNames = this.registerTasks(new Random(42));
+
+            CrontabService service = new CrontabService(this::repository, accountNames, TimedTaskTrigger.timed(this.trigger(), this.triggerLatencies), ForkJoinPool.commonPool(), this.precision);
+            LocalDateTime startedAt = UTC.now();
+            service.start();
+            log.info("load run started at {} with {} tasks over {} accounts, running for {} {}", startedAt, this.tasks.size(), accountNames.length, duration, unit);
+
+            unit.sleep(duration);
+
+            LocalDateTime stoppedAt = UTC.now();
+            service.stop();
+
+            LocalDateTime from = this.nextBoundary(startedAt);
+            LocalDateTime to = this.precision == CrontabService.Precision.SECONDS ? stoppedAt.withNano(0) : stoppedAt.withNano(0).withSecond(0);
+            FiringReport report = FiringReport.compute(this.remainingTasks(), this.stub.deliveries(), this.precision.nextOccurrence(), from, to);
+
+            log.info("load run report from {} to {}", from, to);
+            log.info("  tick pipeline    : {}", service.pipelineMetrics());
+            log.info("  trigger latency  : {}", this.triggerLatencies.summary());
+            log.info("  fire time skew   : {}", report.skew());
+            log.info("  firings          : {}", report);
+            return report;
+        } finally {
+            this.stub.stop();
+        }
+    }
+
+    private String[] registerTasks(Random random) throws RepositoryException {
+        String[] accountNames = new String[this.accounts];
+        for (int account = 0; account < this.accounts; account++) {
+            accountNames[account] = "account-" + account;
+            Repository<Task, Void> repository = this.repository(accountNames[account]);
+            int count = this.tasksPerAccount[account % this.tasksPerAccount.length];
+            for (int i = 0; i < count; i++) {
+                String key = accountNames[account] + "-task-" + i;
+                TaskSpec spec = this.schedule(random, key);
+                repository.create(Task.builder().spec(spec).build());
+                this.tasks.put(key, spec);
+            }
+        }
+        return accountNames;
+    }
+
+    private Map<String, TaskSpec> remainingTasks() throws RepositoryException {
+        Set<String> remaining = new HashSet<>();
+        for (Repository<Task, Void> repository : this.repositories.values()) {
+            for (Entity<Task> task : repository.all(0, Integer.MAX_VALUE)) {
+                remaining.add(StubCronnedService.taskKey(task.value().spec().payload()));
+            }
+        }
+        Map<String, TaskSpec> result = new HashMap<>(this.tasks);
+        result.keySet().retainAll(remaining);
+        if(result.size() < this.tasks.size()) {
+            log.info("{} tasks removed for reaching the error threshold are not accounted", this.tasks.size() - result.size());
+        }
+        return result;
+    }
+
+    private TaskSpec schedule(Random random, String key) {
+        TaskSpec.Builder spec = TaskSpec.builder()
+                .url(this.stub.url())
+                .payload(ObjectValue.builder()
+                        .property("load", PropertyValue.builder().stringValue("harness"))
+                        .property(StubCronnedService.TASK_KEY_PROPERTY, PropertyValue.builder().stringValue(key))
+                        .build());
+        LocalDateTime origin = UTC.now().withNano(0).withSecond(0).minusHours(1);
+
+        int kind = random.nextInt(4);
+        if(this.precision == CrontabService.Precision.SECONDS) {
+            switch (kind) {
+                case 0:
+                    return spec.scheduled(scheduled -> scheduled.every(every -> every.seconds(1L).startingAt(origin))).build();
+                case 1:
+                    return spec.scheduled(scheduled -> scheduled.every(every -> every.seconds(new long[] {5L, 10L, 15L, 30L}[random.nextInt(4)]).startingAt(origin))).build();
+                case 2:
+                    return spec.scheduled(scheduled -> scheduled.every(every -> every.minutes(1L).startingAt(origin.plusSeconds(random.nextInt(60))))).build();
+                default:
+                    return spec.scheduled(scheduled -> scheduled.at(at -> at.minuteOfHours((long) random.nextInt(60)))).build();
+            }
+        } else {
+            switch (kind) {
+                case 0:
+                    return spec.scheduled(scheduled -> scheduled.every(every -> every.minutes(1L).startingAt(origin))).build();
+                case 1:
+                    return spec.scheduled(scheduled -> scheduled.every(every -> every.minutes(new long[] {5L, 10L, 15L, 30L}[random.nextInt(4)]).startingAt(origin))).build();
+                case 2:
+                    return spec.scheduled(scheduled -> scheduled.at(at -> at.minuteOfHours((long) random.nextInt(60)))).build();
+                default:
+                    return spec.timezone("Europe/Paris").scheduled(scheduled -> scheduled
+                            .at(at -> at.dayOfWeek(At.DayOfWeek.values()[random.nextInt(7)]).minuteOfHours((long) random.nextInt(60)))
+                    ).build();
+            }
+        }
+    }
+
+    private TaskTrigger trigger() {
+        OkHttpClientWrapper client = OkHttpClientWrapper.build(builder -> builder
+                .connectTimeout(2, TimeUnit.SECONDS)
+                .readTimeout(30, TimeUnit.SECONDS)
+                .addInterceptor(new TraceContextInterceptor()));
+        if(this.triggerKind == TriggerKind.BATCH) {
+            return new BatchApiCallTaskTrigger(client, new JsonFactory());
+        }
+        return new ApiCallTaskTrigger(client, new JsonFactory());
+    }
+
+    private LocalDateTime nextBoundary(LocalDateTime at) {
+        if(this.precision == CrontabService.Precision.SECONDS) {
+            return at.withNano(0).plusSeconds(1);
+        }
+        return at.withNano(0).withSecond(0).plusMinutes(1);
+    }
+
+    private Repository<Task, Void> repository(String account) {
+        return this.repositories.computeIfAbsent(account, a -> new InMemoryRepository<Task, Void>() {
+            @Override
+            public PagedEntityList<Task> search(Void query, long startIndex, long endIndex) throws RepositoryException {
+                return this.all(startIndex, endIndex);
+            }
+        });
+    }
+}
@@ -0,0 +1,167 @@
+package org.codingmatters.poom.crons.benchmarks.load;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import io.undertow.Undertow;
+import org.codingmatters.poom.crons.cronned.api.PoomCronnedHandlers;
+import org.codingmatters.poom.crons.cronned.api.TaskEventTriggeredPostRequest;
+import org.codingmatters.poom.crons.cronned.api.TaskEventTriggeredPostResponse;
+import org.codingmatters.poom.crons.cronned.api.TaskEventsTriggeredBatchPostRequest;
+import org.codingmatters.poom.crons.cronned.api.TaskEventsTriggeredBatchPostResponse;
+import org.codingmatters.poom.crons.cronned.api.harness.PoomCronnedProcessor;
+import org.codingmatters.poom.crons.cronned.api.taskeventstriggeredbatchpostresponse.Status200;
+import org.codingmatters.poom.crons.cronned.api.taskeventtriggeredpostresponse.Status204;
+import org.codingmatters.poom.crons.cronned.api.taskeventtriggeredpostresponse.Status410;
+import org.codingmatters.poom.crons.cronned.api.taskeventtriggeredpostresponse.Status500;
+import org.codingmatters.poom.crons.cronned.api.types.Error;
+import org.codingmatters.poom.crons.cronned.api.types.TriggeredEvent;
+import org.codingmatters.poom.crons.cronned.api.types.TriggeredEventStatus;
+import org.codingmatters.poom.services.logging.CategorizedLogger;
+import org.codingmatters.poom.services.support.date.UTC;
+import org.codingmatters.rest.undertow.CdmHttpUndertowHandler;
+import org.codingmatters.value.objects.values.ObjectValue;
+import org.codingmatters.value.objects.values.PropertyValue;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class StubCronnedService {
+    static private final CategorizedLogger log = CategorizedLogger.getLogger(StubCronnedService.class);
+
+    static public final String TASK_KEY_PROPERTY = "task";
+
+    static public String taskKey(ObjectValue payload) {
+        PropertyValue key = payload != null ? payload.property(TASK_KEY_PROPERTY) : null;
+        return key != null ? key.single().stringValue() : null;
+    }
+
+    public enum Outcome {
+        DONE, FAILED, GONE
+    }
+
+    private final long latencyMillis;
+    private final double errorRate;
+    private final double goneRate;
+    private final int workerThreads;
+
+    private final ConcurrentLinkedQueue<Delivery> deliveries = new ConcurrentLinkedQueue<>();
+
+    private Undertow server;
+    private int port;
+
+    public StubCronnedService(long latencyMillis, double errorRate, double goneRate, int workerThreads) {
+        if(errorRate < 0d || goneRate < 0d || errorRate + goneRate > 1d) {
+            throw new IllegalArgumentException("error and gone rates must be positive and sum up to at most 1, got " + errorRate + " and " + goneRate);
+        }
+        this.latencyMillis = latencyMillis;
+        this.errorRate = errorRate;
+        this.goneRate = goneRate;
+        this.workerThreads = workerThreads;
+    }
+
+    public StubCronnedService start() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            this.port = socket.getLocalPort();
+        }
+        this.server = Undertow.builder()
+                .addHttpListener(this.port, "localhost")
+                .setWorkerThreads(this.workerThreads)
+                .setHandler(new CdmHttpUndertowHandler(new PoomCronnedProcessor("/cronned", new JsonFactory(), new PoomCronnedHandlers.Builder()
+                        .taskEventTriggeredPostHandler(this::taskEventTriggered)
+                        .taskEventsTriggeredBatchPostHandler(this::taskEventsTriggeredBatch)
+                        .build())))
+                .build();
+        this.server.start();
+        log.info("stub cronned service listening on {} (latency {}ms, error rate {}, gone rate {})", this.url(), this.latencyMillis, this.errorRate, this.goneRate);
+        return this;
+    }
+
+    public void stop() {
+        if(this.server != null) {
+            this.server.stop();
+        }
+    }
+
+    public String url() {
+        return "http://localhost:" + this.port + "/cronned";
+    }
+
+    public List<Delivery> deliveries() {
+        return new ArrayList<>(this.deliveries);
+    }
+
+    private TaskEventTriggeredPostResponse taskEventTriggered(TaskEventTriggeredPostRequest request) {
+        LocalDateTime receivedAt = UTC.now();
+        this.delay();
+        Outcome outcome = this.nextOutcome();
+        this.deliveries.add(new Delivery(taskKey(request.payload()), request.poomEventId(), request.poomTriggedAt(), receivedAt, outcome));
+
+        switch (outcome) {
+            case FAILED:
+                return TaskEventTriggeredPostResponse.builder().status500(Status500.builder().payload(Error.builder().build()).build()).build();
+            case GONE:
+                return TaskEventTriggeredPostResponse.builder().status410(Status410.builder().payload(Error.builder().build()).build()).build();
+            default:
+                return TaskEventTriggeredPostResponse.builder().status204(Status204.builder().build()).build();
+        }
+    }
+
+    private TaskEventsTriggeredBatchPostResponse taskEventsTriggeredBatch(TaskEventsTriggeredBatchPostRequest request) {
+        LocalDateTime receivedAt = UTC.now();
+        this.delay();
+        List<TriggeredEventStatus> statuses = new ArrayList<>();
+        List<TriggeredEvent> events = request.opt().payload().isPresent() ? request.payload() : new ArrayList<>();
+        for (TriggeredEvent event : events) {
+            Outcome outcome = this.nextOutcome();
+            this.deliveries.add(new Delivery(taskKey(event.payload()), event.poomEventId(), event.poomTriggedAt(), receivedAt, outcome));
+            statuses.add(TriggeredEventStatus.builder()
+                    .poomTaskId(event.poomTaskId())
+                    .status(TriggeredEventStatus.Status.valueOf(outcome.name()))
+                    .build());
+        }
+        return TaskEventsTriggeredBatchPostResponse.builder()
+                .status200(Status200.builder().payload(statuses.toArray(new TriggeredEventStatus[0])).build())
+                .build();
+    }
+
+    private void delay() {
+        if(this.latencyMillis > 0) {
+            try {
+                Thread.sleep(this.latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private Outcome nextOutcome() {
+        double draw = ThreadLocalRandom.current().nextDouble();
+        if(draw < this.errorRate) {
+            return Outcome.FAILED;
+        } else if(draw < this.errorRate + this.goneRate) {
+            return Outcome.GONE;
+        } else {
+            return Outcome.DONE;
+        }
+    }
+
+    static public class Delivery {
+        public final String taskId;
+        public final String eventId;
+        public final LocalDateTime triggedAt;
+        public final LocalDateTime receivedAt;
+        public final Outcome outcome;
+
+        Delivery(String taskId, String eventId, LocalDateTime triggedAt, LocalDateTime receivedAt, Outcome outcome) {
+            this.taskId = taskId;
+            this.eventId = eventId;
+            this.triggedAt = triggedAt;
+            this.receivedAt = receivedAt;
+            this.outcome = outcome;
+        }
+    }
+}
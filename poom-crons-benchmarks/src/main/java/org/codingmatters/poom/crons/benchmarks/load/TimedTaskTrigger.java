@@ -0,0 +1,76 @@
+package org.codingmatters.poom.crons.benchmarks.load;
+
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.crons.domain.trigger.AsyncTaskTrigger;
+import org.codingmatters.poom.crons.domain.trigger.BatchTaskTrigger;
+import org.codingmatters.poom.crons.domain.trigger.TaskTrigger;
+import org.codingmatters.poom.crons.domain.trigger.TriggerResult;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+public class TimedTaskTrigger implements TaskTrigger {
+
+    static public TimedTaskTrigger timed(TaskTrigger trigger, LatencyRecorder latencies) {
+        if(trigger instanceof BatchTaskTrigger) {
+            return new Batch(trigger, latencies);
+        }
+        if(trigger instanceof AsyncTaskTrigger) {
+            return new Async(trigger, latencies);
+        }
+        return new TimedTaskTrigger(trigger, latencies);
+    }
+
+    protected final TaskTrigger delegate;
+    protected final LatencyRecorder latencies;
+
+    private TimedTaskTrigger(TaskTrigger delegate, LatencyRecorder latencies) {
+        this.delegate = delegate;
+        this.latencies = latencies;
+    }
+
+    @Override
+    public TriggerResult trig(Task task, LocalDateTime triggedAt, String eventId) {
+        long start = System.nanoTime();
+        try {
+            return this.delegate.trig(task, triggedAt, eventId);
+        } finally {
+            this.record(start);
+        }
+    }
+
+    protected void record(long start) {
+        this.latencies.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    static private class Async extends TimedTaskTrigger implements AsyncTaskTrigger {
+        private Async(TaskTrigger delegate, LatencyRecorder latencies) {
+            super(delegate, latencies);
+        }
+
+        @Override
+        public CompletionStage<TriggerResult> trigAsync(Task task, LocalDateTime triggedAt, String eventId) {
+            long start = System.nanoTime();
+            return ((AsyncTaskTrigger) this.delegate).trigAsync(task, triggedAt, eventId)
+                    .whenComplete((result, error) -> this.record(start));
+        }
+    }
+
+    static private class Batch extends TimedTaskTrigger implements BatchTaskTrigger {
+        private Batch(TaskTrigger delegate, LatencyRecorder latencies) {
+            super(delegate, latencies);
+        }
+
+        @Override
+        public List<TriggerResult> trigBatch(List<Task> tasks, LocalDateTime triggedAt, String eventId) {
+            long start = System.nanoTime();
+            try {
+                return ((BatchTaskTrigger) this.delegate).trigBatch(tasks, triggedAt, eventId);
+            } finally {
+                this.record(start);
+            }
+        }
+    }
+}
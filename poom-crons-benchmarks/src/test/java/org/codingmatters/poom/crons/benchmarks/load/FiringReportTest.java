@@ -0,0 +1,71 @@
+package org.codingmatters.poom.crons.benchmarks.load;
+
+import org.codingmatters.poom.crons.crontab.api.types.TaskSpec;
+import org.codingmatters.poom.crons.domain.selector.NextOccurrence;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TimeZone;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class FiringReportTest {
+
+    static private final LocalDateTime FROM = LocalDateTime.of(2020, Month.OCTOBER, 24, 10, 0);
+    static private final NextOccurrence NEXT = NextOccurrence.minutesPrecision(TimeZone.getTimeZone("UTC"));
+
+    private final Map<String, TaskSpec> tasks = Collections.singletonMap("task", TaskSpec.builder()
+            .scheduled(scheduled -> scheduled.every(every -> every.minutes(1L).startingAt(FROM.minusHours(1))))
+            .build());
+
+    @Test
+    public void givenOneDeliveryPerOccurrence__thenNothingLostNorDuplicated() throws Exception {
+        FiringReport report = FiringReport.compute(this.tasks, Arrays.asList(
+                this.delivery(FROM.plusSeconds(1)),
+                this.delivery(FROM.plusMinutes(1).plusSeconds(2)),
+                this.delivery(FROM.plusMinutes(2).plusSeconds(3))
+        ), NEXT, FROM, FROM.plusMinutes(3));
+
+        assertThat(report.expected(), is(3L));
+        assertThat(report.delivered(), is(3L));
+        assertThat(report.lost(), is(0L));
+        assertThat(report.duplicates(), is(0L));
+        assertThat(report.skew().max(), is(3000L));
+    }
+
+    @Test
+    public void givenMissingAndRepeatedDeliveries__thenLostAndDuplicatesAreCounted() throws Exception {
+        FiringReport report = FiringReport.compute(this.tasks, Arrays.asList(
+                this.delivery(FROM.plusSeconds(1)),
+                this.delivery(FROM.plusSeconds(5)),
+                this.delivery(FROM.plusMinutes(2))
+        ), NEXT, FROM, FROM.plusMinutes(3));
+
+        assertThat(report.expected(), is(3L));
+        assertThat(report.delivered(), is(2L));
+        assertThat(report.lost(), is(1L));
+        assertThat(report.duplicates(), is(1L));
+    }
+
+    @Test
+    public void givenDeliveriesOutsideWindow__thenIgnored() throws Exception {
+        FiringReport report = FiringReport.compute(this.tasks, Arrays.asList(
+                this.delivery(FROM.minusSeconds(1)),
+                this.delivery(FROM.plusSeconds(1)),
+                this.delivery(FROM.plusMinutes(3))
+        ), NEXT, FROM, FROM.plusMinutes(1));
+
+        assertThat(report.expected(), is(1L));
+        assertThat(report.delivered(), is(1L));
+        assertThat(report.duplicates(), is(0L));
+    }
+
+    private StubCronnedService.Delivery delivery(LocalDateTime triggedAt) {
+        return new StubCronnedService.Delivery("task", "event", triggedAt, triggedAt, StubCronnedService.Outcome.DONE);
+    }
+}
@@ -1,82 +1,244 @@
 package org.codingmatters.poom.crons.domain;
 
 import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.crons.domain.accounts.AccountRegistry;
+import org.codingmatters.poom.crons.domain.catchup.CatchUpPlanner;
+import org.codingmatters.poom.crons.domain.metrics.Counter;
+import org.codingmatters.poom.crons.domain.metrics.MetricsRegistry;
+import org.codingmatters.poom.crons.domain.ownership.TaskOwnership;
+import org.codingmatters.poom.crons.domain.persistence.BatchUpdatableRepository;
+import org.codingmatters.poom.crons.domain.scheduler.TaskScheduler;
 import org.codingmatters.poom.crons.domain.selector.TaskSelector;
+import org.codingmatters.poom.crons.domain.state.TaskState;
+import org.codingmatters.poom.crons.domain.state.TaskStateStore;
 import org.codingmatters.poom.services.domain.exceptions.RepositoryException;
 import org.codingmatters.poom.services.domain.repositories.ObservableRepository;
 import org.codingmatters.poom.services.domain.repositories.Repository;
 import org.codingmatters.poom.services.domain.repositories.RepositoryObserver;
-import org.codingmatters.poom.services.domain.repositories.inmemory.InMemoryRepository;
 import org.codingmatters.poom.services.logging.CategorizedLogger;
 import org.codingmatters.poom.services.domain.entities.Entity;
+import org.codingmatters.poom.services.domain.entities.ImmutableEntity;
 import org.codingmatters.poom.services.domain.entities.MutableEntity;
 import org.codingmatters.poom.services.domain.entities.PagedEntityList;
 
-import java.util.LinkedList;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ForkJoinPool;
-import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class Crontab {
     static private final CategorizedLogger log = CategorizedLogger.getLogger(Crontab.class);
 
     private final Function<String, Repository<Task, Void>> repositoryForAccount;
 
-    private final Repository<Task, Void> cache = new InMemoryRepository<Task, Void>() {
-        @Override
-        public PagedEntityList<Task> search(Void query, long startIndex, long endIndex) throws RepositoryException {
-            return this.all(startIndex, endIndex);
-        }
-    };
+    private final CrontabShard[] shards;
+    private final TaskOwnership ownership;
+    private final TaskStateStore stateStore;
+    private final Clock clock;
+    private final Set<String> accounts = ConcurrentHashMap.newKeySet();
+    private AccountRegistry accountRegistry = AccountRegistry.LOCAL;
+    private Counter createdEvents;
+    private Counter updatedEvents;
+    private Counter deletedEvents;
 
     public Crontab(Function<String, Repository<Task, Void>> repositoryForAccount) {
+        this(repositoryForAccount, (TaskScheduler) null);
+    }
+
+    public Crontab(Function<String, Repository<Task, Void>> repositoryForAccount, TaskScheduler scheduler) {
+        this.repositoryForAccount = repositoryForAccount;
+        this.clock = Clock.systemUTC();
+        this.shards = new CrontabShard[] {new CrontabShard(scheduler, this::now)};
+        this.ownership = TaskOwnership.ALL;
+        this.stateStore = null;
+        this.usingMetrics(new MetricsRegistry());
+    }
+
+    public Crontab(Function<String, Repository<Task, Void>> repositoryForAccount, Supplier<TaskScheduler> schedulers, int shardCount) {
+        this(repositoryForAccount, schedulers, shardCount, TaskOwnership.ALL);
+    }
+
+    public Crontab(Function<String, Repository<Task, Void>> repositoryForAccount, Supplier<TaskScheduler> schedulers, int shardCount, TaskOwnership ownership) {
+        this(repositoryForAccount, schedulers, shardCount, ownership, null);
+    }
+
+    public Crontab(Function<String, Repository<Task, Void>> repositoryForAccount, Supplier<TaskScheduler> schedulers, int shardCount, TaskOwnership ownership, TaskStateStore stateStore) {
+        this(repositoryForAccount, schedulers, shardCount, ownership, stateStore, Clock.systemUTC());
+    }
+
+    public Crontab(Function<String, Repository<Task, Void>> repositoryForAccount, Supplier<TaskScheduler> schedulers, int shardCount, TaskOwnership ownership, TaskStateStore stateStore, Clock clock) {
+        if(shardCount < 1) {
+            throw new IllegalArgumentException("crontab needs at least one shard, was : " + shardCount);
+        }
         this.repositoryForAccount = repositoryForAccount;
+        this.clock = clock;
+        this.shards = new CrontabShard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            this.shards[i] = new CrontabShard(schedulers.get(), this::now);
+        }
+        this.ownership = ownership;
+        this.stateStore = stateStore;
+        this.ownership.onChange(this::checkedRebalance);
+        this.usingMetrics(new MetricsRegistry());
+    }
+
+    public Crontab usingMetrics(MetricsRegistry metrics) {
+        this.createdEvents = metrics.counter("crontab.observer", "event", "created");
+        this.updatedEvents = metrics.counter("crontab.observer", "event", "updated");
+        this.deletedEvents = metrics.counter("crontab.observer", "event", "deleted");
+        metrics.gauges("crontab.tasks", "account", this::sizeByAccount);
+        return this;
+    }
+
+    public Crontab usingAccounts(AccountRegistry accountRegistry) {
+        this.accountRegistry = accountRegistry;
+        return this;
     }
 
     public Repository<Task, Void> forAccount(String account) {
+        this.known(account);
         Repository<Task, Void> repository = this.repositoryForAccount.apply(account);
         return new ObservableRepository<>(repository).addObserver(new AccountObserver(this, account));
     }
 
-    public synchronized List<Entity<Task>> tasks() throws RepositoryException {
-        List<Entity<Task>> result = new LinkedList<>();
-        this.forEachEntities(this.cache, taskEntity -> result.add(taskEntity));
+    private void known(String account) {
+        if(this.accounts.add(account)) {
+            try {
+                this.accountRegistry.register(account);
+            } catch (RepositoryException | RuntimeException e) {
+                this.accounts.remove(account);
+                log.error("failed registering account, other nodes may not discover it until next registration : " + account, e);
+            }
+        }
+    }
+
+    private Set<String> discovered() {
+        try {
+            this.accounts.addAll(this.accountRegistry.accounts());
+        } catch (RepositoryException | RuntimeException e) {
+            log.error("failed discovering accounts from registry, only locally known accounts are used", e);
+        }
+        return this.accounts;
+    }
+
+    public TaskStateStore stateStore() {
+        return this.stateStore;
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(this.clock);
+    }
+
+    public int shardCount() {
+        return this.shards.length;
+    }
+
+    public long size() {
+        long result = 0L;
+        for (CrontabShard shard : this.shards) {
+            result += shard.size();
+        }
         return result;
     }
 
-    private long forEachEntities(Repository<Task, Void> repository, Consumer<Entity<Task>> consumer) throws RepositoryException {
+    public Map<String, Long> sizeByAccount() {
+        return Arrays.stream(this.shards)
+                .flatMap(shard -> shard.cacheIds().stream())
+                .collect(Collectors.groupingBy(cacheId -> cacheId.substring(0, cacheId.lastIndexOf('/')), Collectors.counting()));
+    }
+
+    public List<Entity<Task>> tasks() throws RepositoryException {
+        if(this.shards.length == 1) {
+            return Collections.unmodifiableList(Arrays.asList(this.shards[0].snapshot().entities));
+        }
+        return Collections.unmodifiableList(this.stream().collect(Collectors.toList()));
+    }
+
+    public Stream<Entity<Task>> stream() {
+        return Arrays.stream(this.shards).flatMap(shard -> Arrays.stream(shard.snapshot().entities));
+    }
+
+    private long forEachEntities(Repository<Task, Void> repository, Predicate<Entity<Task>> loader) throws RepositoryException {
         long result = 0;
         long start = 0;
         PagedEntityList<Task> entities;
         do {
             long end = start + 1000 - 1;
             entities = repository.all(start, end);
-            entities.forEach(consumer);
-            result += entities.size();
+            for (Entity<Task> entity : entities) {
+                if(loader.test(entity)) {
+                    result++;
+                }
+            }
             start = end + 1;
         } while(entities.size() == 1000);
 
         return result;
     }
 
-    public synchronized List<Entity<Task>> selectable(TaskSelector selector, ForkJoinPool pool) throws RepositoryException, ExecutionException, InterruptedException {
-        List<Entity<Task>> tasks = this.tasks();
-        List<Entity<Task>> result = pool.submit(() -> tasks.stream()
-                .filter(taskEntity -> this.taskIsSelectable(selector, taskEntity))
+    public List<Entity<Task>> selectable(TaskSelector selector, ForkJoinPool pool) throws RepositoryException, ExecutionException, InterruptedException {
+        if(this.shards.length == 1) {
+            return pool.submit(() -> this.shards[0].selectable(selector)).get();
+        }
+        return pool.submit(() -> Arrays.stream(this.shards).parallel()
+                .flatMap(shard -> shard.selectable(selector).stream())
                 .collect(Collectors.toList())
         ).get();
+    }
+
+    public List<Entity<Task>> due(LocalDateTime at) {
+        this.checkSchedulers();
+        List<Entity<Task>> result = new ArrayList<>();
+        for (CrontabShard shard : this.shards) {
+            result.addAll(shard.due(at));
+        }
         return result;
     }
 
-    private boolean taskIsSelectable(TaskSelector selector, Entity<Task> taskEntity) {
-        try {
-            return selector.selectable(taskEntity.value().spec());
-        } catch (Exception e) {
-            log.error("GRAVE : unexpected exception while testing task selection:  " + taskEntity, e);
-            return false;
+    public List<Entity<Task>> due(LocalDateTime at, ForkJoinPool pool) throws ExecutionException, InterruptedException {
+        this.checkSchedulers();
+        if(this.shards.length == 1) {
+            return this.shards[0].due(at);
+        }
+        return pool.submit(() -> Arrays.stream(this.shards).parallel()
+                .flatMap(shard -> shard.due(at).stream())
+                .collect(Collectors.toList())
+        ).get();
+    }
+
+    public List<Entity<Task>> missed(CatchUpPlanner planner, LocalDateTime upTo) {
+        List<Entity<Task>> result = new ArrayList<>();
+        this.stream().forEach(task -> {
+            try {
+                int missed = planner.missed(task.value(), upTo).size();
+                for (int i = 0; i < missed; i++) {
+                    result.add(task);
+                }
+            } catch (Exception e) {
+                log.error("GRAVE : unexpected exception while looking for missed occurrences:  " + task, e);
+            }
+        });
+        return result;
+    }
+
+    private void checkSchedulers() {
+        if(! this.shards[0].hasScheduler()) {
+            throw new IllegalStateException("crontab has no scheduler, due tasks are only available through selectable");
         }
     }
 
@@ -90,6 +252,101 @@ public class Crontab {
         this.forAccount(account).update(new MutableEntity<>(id, task.value()), withValue);
     }
 
+    public void updateAll(List<Entity<Task>> tasks) throws RepositoryException {
+        this.cacheAll(tasks);
+        this.writeAll(tasks, true);
+    }
+
+    public void persistAll(List<Entity<Task>> tasks) throws RepositoryException {
+        List<Entity<Task>> cached = new ArrayList<>(tasks.size());
+        for (Entity<Task> task : tasks) {
+            if(this.shard(task.id()).contains(task.id())) {
+                cached.add(task);
+            }
+        }
+        this.writeAll(cached, false);
+    }
+
+    public void cacheAll(List<Entity<Task>> tasks) {
+        for (Entity<Task> task : tasks) {
+            this.shard(task.id()).triggered(task.id(), TaskState.of(task.value()));
+        }
+    }
+
+    private void writeAll(List<Entity<Task>> tasks, boolean syncCache) throws RepositoryException {
+        Map<String, List<Entity<Task>>> byAccount = new LinkedHashMap<>();
+        for (Entity<Task> task : tasks) {
+            int sepIndex = task.id().indexOf("/");
+            if(sepIndex == -1) {
+                log.error("cannot update task as id doesn't match with account/id mapping : " + task.id());
+                continue;
+            }
+            byAccount.computeIfAbsent(task.id().substring(0, sepIndex), account -> new ArrayList<>())
+                    .add(new ImmutableEntity<>(task.id().substring(sepIndex + 1), task.version(), task.value()));
+        }
+
+        List<String> failedAccounts = new ArrayList<>();
+        for (Map.Entry<String, List<Entity<Task>>> account : byAccount.entrySet()) {
+            try {
+                this.writeAccount(account.getKey(), account.getValue(), syncCache);
+            } catch (RepositoryException | RuntimeException e) {
+                log.error("failed updating " + account.getValue().size() + " tasks for account " + account.getKey(), e);
+                failedAccounts.add(account.getKey());
+            }
+        }
+        if(! failedAccounts.isEmpty()) {
+            throw new RepositoryException("failed updating tasks for accounts : " + failedAccounts);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeAccount(String account, List<Entity<Task>> entities, boolean syncCache) throws RepositoryException {
+        this.known(account);
+        if(this.stateStore != null) {
+            this.writeStates(account, entities);
+            return;
+        }
+        Repository<Task, Void> repository = this.repositoryForAccount.apply(account);
+        if(repository instanceof BatchUpdatableRepository) {
+            Map<String, UnaryOperator<Task>> changes = new LinkedHashMap<>();
+            for (Entity<Task> entity : entities) {
+                changes.put(entity.id(), TaskState.of(entity.value())::applyTo);
+            }
+            List<Entity<Task>> updated = ((BatchUpdatableRepository<Task>) repository).updateAll(changes);
+            if(syncCache) {
+                for (Entity<Task> entity : updated) {
+                    this.synced(account, entity);
+                }
+            }
+        } else {
+            for (Entity<Task> entity : entities) {
+                String cacheId = this.cacheId(account, entity);
+                Task cached = this.shard(cacheId).value(cacheId);
+                if(cached == null) {
+                    log.debug("task not cached anymore, trigger state not written : {}", cacheId);
+                    continue;
+                }
+                repository.update(new MutableEntity<>(entity.id(), cached), cached);
+            }
+        }
+    }
+
+    private void writeStates(String account, List<Entity<Task>> entities) throws RepositoryException {
+        Map<String, TaskState> states = new LinkedHashMap<>();
+        for (Entity<Task> entity : entities) {
+            states.put(entity.id(), TaskState.of(entity.value()));
+        }
+        this.stateStore.putAll(account, states);
+    }
+
+    private void synced(String account, Entity<Task> stored) {
+        String cacheId = this.cacheId(account, stored);
+        CrontabShard shard = this.shard(cacheId);
+        if(shard.contains(cacheId)) {
+            shard.reconciled(cacheId, stored.value(), null);
+        }
+    }
+
     public void delete(Entity<Task> task) throws RepositoryException {
         int sepIndex = task.id().indexOf("/");
         if(sepIndex == -1) throw new RepositoryException("cannot update task as id doesn't match with account/id mapping : " + task.id());
@@ -103,14 +360,112 @@ public class Crontab {
     public Crontab loadAccounts(String ... accounts) throws RepositoryException {
         if(accounts != null) {
             for (String account : accounts) {
-                long count = this.forEachEntities(this.forAccount(account), task -> this.created(account, task));
-                log.info("for account {} loaded {} tasks.", account, count);
+                this.known(account);
+                Map<String, TaskState> states = this.states(account);
+                long count = this.forEachEntities(this.forAccount(account), task -> this.loaded(account, task, states));
+                log.info("for account {} loaded {} owned tasks.", account, count);
             }
         }
 
         return this;
     }
 
+    public void rebalance() throws RepositoryException {
+        for (CrontabShard shard : this.shards) {
+            for (Entity<Task> task : shard.snapshot().entities) {
+                int sepIndex = task.id().indexOf("/");
+                if(! this.ownership.owns(task.id().substring(0, sepIndex), task.id().substring(sepIndex + 1))) {
+                    shard.evict(task.id());
+                }
+            }
+        }
+        for (String account : this.discovered()) {
+            Map<String, TaskState> states = this.states(account);
+            long count = this.forEachEntities(this.repositoryForAccount.apply(account), task -> this.loaded(account, task, states));
+            log.info("for account {} rebalanced to {} owned tasks.", account, count);
+        }
+    }
+
+    public void reconcile() throws RepositoryException {
+        List<String> failedAccounts = new ArrayList<>();
+        for (String account : this.discovered()) {
+            try {
+                this.reconcile(account);
+            } catch (RepositoryException | RuntimeException e) {
+                log.error("failed reconciling crontab with repository for account " + account, e);
+                failedAccounts.add(account);
+            }
+        }
+        if(! failedAccounts.isEmpty()) {
+            throw new RepositoryException("failed reconciling crontab for accounts : " + failedAccounts);
+        }
+    }
+
+    private void reconcile(String account) throws RepositoryException {
+        String prefix = account + "/";
+        Set<String> cachedBefore = new HashSet<>();
+        for (CrontabShard shard : this.shards) {
+            for (String cacheId : shard.cacheIds()) {
+                if(cacheId.startsWith(prefix)) {
+                    cachedBefore.add(cacheId);
+                }
+            }
+        }
+
+        Map<String, TaskState> states = this.states(account);
+        long count = this.forEachEntities(this.repositoryForAccount.apply(account), task -> {
+            cachedBefore.remove(this.cacheId(account, task));
+            return this.reconciled(account, task, states);
+        });
+        for (String cacheId : cachedBefore) {
+            this.shard(cacheId).evict(cacheId);
+        }
+        log.debug("for account {} reconciled {} owned tasks, evicted {} deleted tasks.", account, count, cachedBefore.size());
+    }
+
+    private boolean reconciled(String account, Entity<Task> entity, Map<String, TaskState> states) {
+        String cacheId = this.cacheId(account, entity);
+        if(! this.ownership.owns(account, entity.id())) {
+            this.shard(cacheId).evict(cacheId);
+            return false;
+        }
+        this.shard(cacheId).reconciled(cacheId, entity.value(), states.get(entity.id()));
+        return true;
+    }
+
+    private void checkedRebalance() {
+        try {
+            this.rebalance();
+        } catch (RepositoryException e) {
+            log.error("GRAVE -- failed rebalancing crontab after ownership change, crontab inconsistency risk", e);
+        }
+    }
+
+    private boolean loaded(String account, Entity<Task> entity, Map<String, TaskState> states) {
+        if(! this.ownership.owns(account, entity.id())) {
+            return false;
+        }
+        String cacheId = this.cacheId(account, entity);
+        this.shard(cacheId).reconciled(cacheId, entity.value(), states.get(entity.id()));
+        return true;
+    }
+
+    private Map<String, TaskState> states(String account) throws RepositoryException {
+        return this.stateStore != null ? this.stateStore.all(account) : Collections.emptyMap();
+    }
+
+    private TaskState state(String account, Entity<Task> entity) {
+        if(this.stateStore == null) {
+            return null;
+        }
+        try {
+            return this.stateStore.get(account, entity.id());
+        } catch (RepositoryException e) {
+            log.error("failed reading task state, keeping cached trigger state : " + account + "/" + entity.id(), e);
+            return null;
+        }
+    }
+
     static class AccountObserver implements RepositoryObserver<Task> {
 
         private final Crontab crontab;
@@ -137,30 +492,54 @@ public class Crontab {
         }
     }
 
-    private synchronized void created(String account, Entity<Task> entity) {
+    private void created(String account, Entity<Task> entity) {
+        this.createdEvents.increment();
+        if(! this.ownership.owns(account, entity.id())) {
+            return;
+        }
+        String cacheId = this.cacheId(account, entity);
         try {
-            this.cache.createWithId(this.cacheId(account, entity), entity.value());
-        } catch (RepositoryException e) {
-            this.error(e);
+            this.shard(cacheId).created(cacheId, entity.value());
+        } catch (IllegalStateException e) {
+            this.error(new RepositoryException(e.getMessage()));
         }
     }
 
-    private synchronized void updated(String account, Entity<Task> entity) {
-        try {
-            this.cache.update(new MutableEntity<>(this.cacheId(account, entity), entity.value()), entity.value());
-        } catch (RepositoryException e) {
-            this.error(e);
+    private void updated(String account, Entity<Task> entity) {
+        this.updatedEvents.increment();
+        String cacheId = this.cacheId(account, entity);
+        if(! this.ownership.owns(account, entity.id())) {
+            this.shard(cacheId).evict(cacheId);
+            return;
         }
+        this.shard(cacheId).reconciled(cacheId, entity.value(), this.state(account, entity));
     }
 
-    private synchronized void deleted(String account, Entity<Task> entity) {
+    private void deleted(String account, Entity<Task> entity) {
+        this.deletedEvents.increment();
+        if(this.stateStore != null) {
+            try {
+                this.stateStore.remove(account, entity.id());
+            } catch (RepositoryException e) {
+                log.error("failed removing task state for deleted task : " + account + "/" + entity.id(), e);
+            }
+        }
+        String cacheId = this.cacheId(account, entity);
+        if(! this.ownership.owns(account, entity.id())) {
+            this.shard(cacheId).evict(cacheId);
+            return;
+        }
         try {
-            this.cache.delete(new MutableEntity<>(this.cacheId(account, entity), entity.value()));
-        } catch (RepositoryException e) {
-            this.error(e);
+            this.shard(cacheId).deleted(cacheId);
+        } catch (IllegalStateException e) {
+            this.error(new RepositoryException(e.getMessage()));
         }
     }
 
+    private CrontabShard shard(String cacheId) {
+        return this.shards[Math.floorMod(cacheId.hashCode(), this.shards.length)];
+    }
+
     private String cacheId(String account, Entity<Task> entity) {
         return account + "/" + entity.id();
     }
@@ -0,0 +1,233 @@
+package org.codingmatters.poom.crons.domain;
+
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.crons.domain.scheduler.TaskScheduler;
+import org.codingmatters.poom.crons.domain.selector.CompiledSchedule;
+import org.codingmatters.poom.crons.domain.selector.TaskSelector;
+import org.codingmatters.poom.crons.domain.state.TaskState;
+import org.codingmatters.poom.services.domain.entities.Entity;
+import org.codingmatters.poom.services.domain.entities.ImmutableEntity;
+import org.codingmatters.poom.services.logging.CategorizedLogger;
+
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+class CrontabShard {
+    static private final CategorizedLogger log = CategorizedLogger.getLogger(CrontabShard.class);
+
+    private final ConcurrentHashMap<String, CachedTask> cache = new ConcurrentHashMap<>();
+    private final AtomicLong cacheVersion = new AtomicLong();
+    private volatile Snapshot snapshot = Snapshot.empty();
+
+    private final TaskScheduler scheduler;
+    private final ConcurrentHashMap<String, SchedulerChange> schedulerChanges = new ConcurrentHashMap<>();
+    private final Supplier<LocalDateTime> now;
+
+    CrontabShard(TaskScheduler scheduler, Supplier<LocalDateTime> now) {
+        this.scheduler = scheduler;
+        this.now = now;
+    }
+
+    boolean hasScheduler() {
+        return this.scheduler != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    Snapshot snapshot() {
+        Snapshot current = this.snapshot;
+        long version = this.cacheVersion.get();
+        if(current.version == version) {
+            return current;
+        }
+
+        List<CachedTask> tasks = new ArrayList<>(this.cache.values());
+        Entity<Task>[] entities = new Entity[tasks.size()];
+        CompiledSchedule[] schedules = new CompiledSchedule[tasks.size()];
+        for (int i = 0; i < entities.length; i++) {
+            entities[i] = tasks.get(i).entity;
+            schedules[i] = tasks.get(i).schedule;
+        }
+        current = new Snapshot(version, entities, schedules);
+        this.snapshot = current;
+        return current;
+    }
+
+    List<Entity<Task>> selectable(TaskSelector selector) {
+        Snapshot tasks = this.snapshot();
+        List<Entity<Task>> result = new ArrayList<>();
+        for (int i = 0; i < tasks.entities.length; i++) {
+            if(this.taskIsSelectable(selector, tasks.entities[i], tasks.schedules[i])) {
+                result.add(tasks.entities[i]);
+            }
+        }
+        return result;
+    }
+
+    List<Entity<Task>> due(LocalDateTime at) {
+        this.applySchedulerChanges();
+        return this.scheduler.due(at);
+    }
+
+    private synchronized void applySchedulerChanges() {
+        for (String id : this.schedulerChanges.keySet()) {
+            SchedulerChange change = this.schedulerChanges.remove(id);
+            if(change == null) {
+                continue;
+            }
+            if(change.entity != null) {
+                this.scheduler.schedule(change.entity, change.at);
+            } else {
+                this.scheduler.unschedule(id);
+            }
+        }
+    }
+
+    private boolean taskIsSelectable(TaskSelector selector, Entity<Task> taskEntity, CompiledSchedule schedule) {
+        try {
+            return selector.selectable(schedule, taskEntity.value().spec());
+        } catch (Exception e) {
+            log.error("GRAVE : unexpected exception while testing task selection:  " + taskEntity, e);
+            return false;
+        }
+    }
+
+    void created(String cacheId, Task value) {
+        this.cache.compute(cacheId, (id, previous) -> {
+            if(previous != null) {
+                throw new IllegalStateException("cannot create task, already cached : " + id);
+            }
+            return this.cached(new ImmutableEntity<>(id, BigInteger.ONE, value));
+        });
+        this.cacheVersion.incrementAndGet();
+    }
+
+    void deleted(String cacheId) {
+        this.cache.compute(cacheId, (id, previous) -> {
+            if(previous == null) {
+                throw new IllegalStateException("cannot delete task, not cached : " + id);
+            }
+            this.unscheduled(id);
+            return null;
+        });
+        this.cacheVersion.incrementAndGet();
+    }
+
+    void triggered(String cacheId, TaskState state) {
+        this.cache.computeIfPresent(cacheId, (id, previous) -> {
+            LocalDateTime cachedLastTrig = previous.entity.value().lastTrig();
+            if(cachedLastTrig != null && (state.lastTrig() == null || state.lastTrig().isBefore(cachedLastTrig))) {
+                return previous;
+            }
+            Task value = state.applyTo(previous.entity.value());
+            if(previous.entity.value().equals(value)) {
+                return previous;
+            }
+            return this.cached(new ImmutableEntity<>(id, previous.entity.version().add(BigInteger.ONE), value));
+        });
+        this.cacheVersion.incrementAndGet();
+    }
+
+    void reconciled(String cacheId, Task stored, TaskState state) {
+        this.cache.compute(cacheId, (id, previous) -> {
+            Task value = state != null ? state.applyTo(stored)
+                    : previous != null ? TaskState.of(previous.entity.value()).applyTo(stored)
+                    : stored;
+            if(previous != null && previous.entity.value().equals(value)) {
+                return previous;
+            }
+            BigInteger version = previous != null ? previous.entity.version().add(BigInteger.ONE) : BigInteger.ONE;
+            return this.cached(new ImmutableEntity<>(id, version, value));
+        });
+        this.cacheVersion.incrementAndGet();
+    }
+
+    void evict(String cacheId) {
+        this.cache.computeIfPresent(cacheId, (id, previous) -> {
+            this.unscheduled(id);
+            return null;
+        });
+        this.cacheVersion.incrementAndGet();
+    }
+
+    int size() {
+        return this.cache.size();
+    }
+
+    Set<String> cacheIds() {
+        return this.cache.keySet();
+    }
+
+    Task value(String cacheId) {
+        CachedTask cached = this.cache.get(cacheId);
+        return cached != null ? cached.entity.value() : null;
+    }
+
+    boolean contains(String cacheId) {
+        return this.cache.containsKey(cacheId);
+    }
+
+    private CachedTask cached(Entity<Task> entity) {
+        if(this.scheduler != null) {
+            this.schedulerChanges.put(entity.id(), new SchedulerChange(entity, this.now.get()));
+        }
+        return new CachedTask(entity, this.compile(entity));
+    }
+
+    private void unscheduled(String id) {
+        if(this.scheduler != null) {
+            this.schedulerChanges.put(id, new SchedulerChange(null, null));
+        }
+    }
+
+    private CompiledSchedule compile(Entity<Task> entity) {
+        try {
+            return CompiledSchedule.compile(entity.value().spec());
+        } catch (Exception e) {
+            log.error("GRAVE : unexpected exception while compiling task schedule, falling back to spec selection:  " + entity, e);
+            return null;
+        }
+    }
+
+    static private class CachedTask {
+        private final Entity<Task> entity;
+        private final CompiledSchedule schedule;
+
+        CachedTask(Entity<Task> entity, CompiledSchedule schedule) {
+            this.entity = entity;
+            this.schedule = schedule;
+        }
+    }
+
+    static private class SchedulerChange {
+        private final Entity<Task> entity;
+        private final LocalDateTime at;
+
+        SchedulerChange(Entity<Task> entity, LocalDateTime at) {
+            this.entity = entity;
+            this.at = at;
+        }
+    }
+
+    static class Snapshot {
+        @SuppressWarnings("unchecked")
+        static private Snapshot empty() {
+            return new Snapshot(0L, new Entity[0], new CompiledSchedule[0]);
+        }
+
+        private final long version;
+        final Entity<Task>[] entities;
+        final CompiledSchedule[] schedules;
+
+        Snapshot(long version, Entity<Task>[] entities, CompiledSchedule[] schedules) {
+            this.version = version;
+            this.entities = entities;
+            this.schedules = schedules;
+        }
+    }
+}
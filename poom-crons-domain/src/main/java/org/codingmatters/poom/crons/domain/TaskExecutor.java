@@ -1,55 +1,205 @@
 package org.codingmatters.poom.crons.domain;
 
+import io.opentelemetry.context.Context;
 import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.crons.domain.metrics.Counter;
+import org.codingmatters.poom.crons.domain.metrics.Histogram;
+import org.codingmatters.poom.crons.domain.metrics.MetricsRegistry;
+import org.codingmatters.poom.crons.domain.trigger.AsyncTaskTrigger;
+import org.codingmatters.poom.crons.domain.trigger.BatchTaskTrigger;
+import org.codingmatters.poom.crons.domain.trigger.TaskHosts;
 import org.codingmatters.poom.crons.domain.trigger.TaskTrigger;
 import org.codingmatters.poom.crons.domain.trigger.TriggerResult;
-import org.codingmatters.poom.services.support.date.UTC;
+import org.codingmatters.poom.services.logging.CategorizedLogger;
 import org.codingmatters.poom.services.domain.entities.Entity;
 import org.codingmatters.poom.services.domain.entities.ImmutableEntity;
 
 import java.math.BigInteger;
+import java.time.Clock;
 import java.time.LocalDateTime;
-import java.util.Collections;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.UUID;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ForkJoinPool;
+import java.util.*;
+import java.util.concurrent.*;
 
 public class TaskExecutor {
+    static private final CategorizedLogger log = CategorizedLogger.getLogger(TaskExecutor.class);
 
-    private final ForkJoinPool forkJoinPool;
-    private final TaskTrigger trigger;
+    static public final int UNLIMITED_IN_FLIGHT = Integer.MAX_VALUE;
+
+    private final AsyncTaskTrigger trigger;
+    private final BatchTaskTrigger batchTrigger;
+    private final Executor batchExecutor;
+    private final int maxBatchSize;
+    private final Semaphore inFlight;
+    private Clock clock = Clock.systemUTC();
+
+    private MetricsRegistry metrics;
+    private final ConcurrentHashMap<String, Histogram> latencies = new ConcurrentHashMap<>();
+    private Counter successes;
+    private Counter failures;
+    private Counter gones;
 
     public TaskExecutor(ForkJoinPool forkJoinPool, TaskTrigger trigger) {
-        this.forkJoinPool = forkJoinPool;
+        this(AsyncTaskTrigger.of(trigger, forkJoinPool), UNLIMITED_IN_FLIGHT);
+    }
+
+    public TaskExecutor(AsyncTaskTrigger trigger, int maxInFlight) {
         this.trigger = trigger;
+        this.batchTrigger = null;
+        this.batchExecutor = null;
+        this.maxBatchSize = 1;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.usingMetrics(new MetricsRegistry());
     }
 
-    public List<Entity<Task>> execute(List<Entity<Task>> tasks) throws ExecutionException, InterruptedException {
-        List<Entity<Task>> result = Collections.synchronizedList(new LinkedList<>());
+    public TaskExecutor(BatchTaskTrigger trigger, Executor executor, int maxBatchSize, int maxInFlightBatches) {
+        if(maxBatchSize < 1) {
+            throw new IllegalArgumentException("max batch size must be at least 1, was " + maxBatchSize);
+        }
+        this.trigger = null;
+        this.batchTrigger = trigger;
+        this.batchExecutor = executor;
+        this.maxBatchSize = maxBatchSize;
+        this.inFlight = new Semaphore(maxInFlightBatches);
+        this.usingMetrics(new MetricsRegistry());
+    }
 
-        LocalDateTime triggerdAt = UTC.now();
+    public TaskExecutor usingClock(Clock clock) {
+        this.clock = clock;
+        return this;
+    }
+
+    public TaskExecutor usingMetrics(MetricsRegistry metrics) {
+        this.metrics = metrics;
+        this.latencies.clear();
+        this.successes = metrics.counter("trigger.outcome", "outcome", "success");
+        this.failures = metrics.counter("trigger.outcome", "outcome", "failure");
+        this.gones = metrics.counter("trigger.outcome", "outcome", "gone");
+        return this;
+    }
+
+    public List<Entity<Task>> execute(List<Entity<Task>> tasks) throws ExecutionException, InterruptedException {
+        LocalDateTime triggerdAt = LocalDateTime.now(this.clock);
         String eventId = UUID.randomUUID().toString();
 
-        this.forkJoinPool.submit(() -> tasks.parallelStream().forEach(task -> result.add(this.trig(task, triggerdAt, eventId)))).get();
+        if(this.batchTrigger != null) {
+            return this.executeBatches(tasks, triggerdAt, eventId);
+        }
+
+        List<CompletableFuture<Entity<Task>>> triggered = new ArrayList<>(tasks.size());
+        for (Entity<Task> task : tasks) {
+            this.inFlight.acquire();
+            triggered.add(this.trig(task, triggerdAt, eventId).whenComplete((result, error) -> this.inFlight.release()));
+        }
 
+        CompletableFuture.allOf(triggered.toArray(new CompletableFuture[0])).get();
+
+        List<Entity<Task>> result = new ArrayList<>(triggered.size());
+        for (CompletableFuture<Entity<Task>> task : triggered) {
+            result.add(task.get());
+        }
         return result;
     }
 
-    private Entity<Task> trig(Entity<Task> task, LocalDateTime triggedAt, String eventId) {
-        TriggerResult triggerResult = this.trigger.trig(task.value(), triggedAt, eventId);
+    @SuppressWarnings("unchecked")
+    private List<Entity<Task>> executeBatches(List<Entity<Task>> tasks, LocalDateTime triggedAt, String eventId) throws ExecutionException, InterruptedException {
+        Map<String, List<Integer>> byUrl = new LinkedHashMap<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i).value();
+            String url = task.spec() != null ? task.spec().url() : null;
+            byUrl.computeIfAbsent(url, u -> new ArrayList<>()).add(i);
+        }
+
+        Entity<Task>[] result = new Entity[tasks.size()];
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        for (List<Integer> positions : byUrl.values()) {
+            for (int from = 0; from < positions.size(); from += this.maxBatchSize) {
+                List<Integer> batch = positions.subList(from, Math.min(from + this.maxBatchSize, positions.size()));
+                this.inFlight.acquire();
+                batches.add(this.trigBatch(tasks, batch, triggedAt, eventId, result).whenComplete((r, error) -> this.inFlight.release()));
+            }
+        }
+
+        CompletableFuture.allOf(batches.toArray(new CompletableFuture[0])).get();
+        return Arrays.asList(result);
+    }
+
+    private CompletableFuture<Void> trigBatch(List<Entity<Task>> tasks, List<Integer> batch, LocalDateTime triggedAt, String eventId, Entity<Task>[] result) {
+        List<Task> values = new ArrayList<>(batch.size());
+        for (Integer position : batch) {
+            values.add(tasks.get(position).value());
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<List<TriggerResult>> triggerResults;
+        try {
+            triggerResults = CompletableFuture.supplyAsync(() -> this.batchTrigger.trigBatch(values, triggedAt, eventId), Context.current().wrap(this.batchExecutor));
+        } catch (Exception e) {
+            triggerResults = new CompletableFuture<>();
+            triggerResults.completeExceptionally(e);
+        }
+        return triggerResults
+                .exceptionally(e -> {
+                    log.error("unexpected error triggering batch of " + values.size() + " tasks", e);
+                    return null;
+                })
+                .thenAccept(results -> {
+                    this.latency(values.get(0)).record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                    for (int i = 0; i < batch.size(); i++) {
+                        Entity<Task> task = tasks.get(batch.get(i));
+                        TriggerResult triggerResult = results != null && i < results.size() && results.get(i) != null ? results.get(i) : new TriggerResult(false, false);
+                        this.outcome(triggerResult);
+                        result[batch.get(i)] = this.triggered(task, triggerResult);
+                    }
+                });
+    }
+
+    private CompletableFuture<Entity<Task>> trig(Entity<Task> task, LocalDateTime triggedAt, String eventId) {
+        long start = System.nanoTime();
+        CompletableFuture<TriggerResult> triggerResult;
+        try {
+            triggerResult = this.trigger.trigAsync(task.value(), triggedAt, eventId).toCompletableFuture();
+        } catch (Exception e) {
+            triggerResult = new CompletableFuture<>();
+            triggerResult.completeExceptionally(e);
+        }
+        return triggerResult
+                .exceptionally(e -> {
+                    log.error("unexpected error triggering task " + task.id(), e);
+                    return new TriggerResult(false, false);
+                })
+                .thenApply(result -> {
+                    this.latency(task.value()).record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                    this.outcome(result);
+                    return this.triggered(task, result);
+                });
+    }
+
+    private Histogram latency(Task task) {
+        return this.latencies.computeIfAbsent(TaskHosts.host(task), host -> this.metrics.histogram("trigger.latency.micros", "host", host));
+    }
+
+    private void outcome(TriggerResult result) {
+        if(result.gone()) {
+            this.gones.increment();
+        } else if(result.success()) {
+            this.successes.increment();
+        } else {
+            this.failures.increment();
+        }
+    }
+
+    private Entity<Task> triggered(Entity<Task> task, TriggerResult triggerResult) {
         if(triggerResult.success()) {
             return new ImmutableEntity<>(task.id(), task.version().add(BigInteger.ONE),
                     task.value()
-                            .withLastTrig(UTC.now())
+                            .withLastTrig(LocalDateTime.now(this.clock))
                             .withSuccess(true)
                             .withErrorCount(0L)
             );
         } else {
             return new ImmutableEntity<>(task.id(), task.version().add(BigInteger.ONE),
                     task.value()
-                            .withLastTrig(UTC.now())
+                            .withLastTrig(LocalDateTime.now(this.clock))
                             .withSuccess(false)
                             .withErrorCount(task.value().opt().errorCount().orElse(0L) + 1)
             );
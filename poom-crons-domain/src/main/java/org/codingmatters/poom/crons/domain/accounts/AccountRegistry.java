@@ -0,0 +1,22 @@
+package org.codingmatters.poom.crons.domain.accounts;
+
+import org.codingmatters.poom.services.domain.exceptions.RepositoryException;
+
+import java.util.Collections;
+import java.util.Set;
+
+public interface AccountRegistry {
+    AccountRegistry LOCAL = new AccountRegistry() {
+        @Override
+        public void register(String account) {
+        }
+
+        @Override
+        public Set<String> accounts() {
+            return Collections.emptySet();
+        }
+    };
+
+    void register(String account) throws RepositoryException;
+    Set<String> accounts() throws RepositoryException;
+}
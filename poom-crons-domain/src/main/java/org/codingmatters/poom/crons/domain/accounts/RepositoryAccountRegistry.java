@@ -0,0 +1,42 @@
+package org.codingmatters.poom.crons.domain.accounts;
+
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.services.domain.entities.Entity;
+import org.codingmatters.poom.services.domain.entities.PagedEntityList;
+import org.codingmatters.poom.services.domain.exceptions.RepositoryException;
+import org.codingmatters.poom.services.domain.repositories.Repository;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class RepositoryAccountRegistry implements AccountRegistry {
+
+    private final Repository<Task, Void> repository;
+
+    public RepositoryAccountRegistry(Repository<Task, Void> repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public void register(String account) throws RepositoryException {
+        if(this.repository.retrieve(account) == null) {
+            this.repository.createWithId(account, Task.builder().build());
+        }
+    }
+
+    @Override
+    public Set<String> accounts() throws RepositoryException {
+        Set<String> result = new HashSet<>();
+        long start = 0;
+        PagedEntityList<Task> entities;
+        do {
+            long end = start + 1000 - 1;
+            entities = this.repository.all(start, end);
+            for (Entity<Task> entity : entities) {
+                result.add(entity.id());
+            }
+            start = end + 1;
+        } while(entities.size() == 1000);
+        return result;
+    }
+}
@@ -0,0 +1,51 @@
+package org.codingmatters.poom.crons.domain.catchup;
+
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.crons.crontab.api.types.TaskSpec;
+import org.codingmatters.poom.crons.domain.selector.NextOccurrence;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+public class CatchUpPlanner {
+
+    static public final int DEFAULT_MAX_PER_TASK = 100;
+
+    private final NextOccurrence nextOccurrence;
+    private final int maxPerTask;
+
+    public CatchUpPlanner(NextOccurrence nextOccurrence) {
+        this(nextOccurrence, DEFAULT_MAX_PER_TASK);
+    }
+
+    public CatchUpPlanner(NextOccurrence nextOccurrence, int maxPerTask) {
+        this.nextOccurrence = nextOccurrence;
+        this.maxPerTask = maxPerTask;
+    }
+
+    public List<LocalDateTime> missed(Task task, LocalDateTime upTo) {
+        if(task.spec() == null || task.lastTrig() == null) {
+            return Collections.emptyList();
+        }
+        TaskSpec.CatchUp policy = task.spec().opt().catchUp().orElse(TaskSpec.CatchUp.SKIP);
+        if(policy == TaskSpec.CatchUp.SKIP) {
+            return Collections.emptyList();
+        }
+
+        int max = policy == TaskSpec.CatchUp.FIRE_ONCE ? 1 : this.maxPerTask;
+        List<LocalDateTime> result = new ArrayList<>();
+        LocalDateTime after = this.nextOccurrence.atPrecision(task.lastTrig());
+        while(result.size() < max) {
+            Optional<LocalDateTime> next = this.nextOccurrence.nextOccurrence(task.spec(), after);
+            if(! next.isPresent() || next.get().isAfter(upTo)) {
+                break;
+            }
+            result.add(next.get());
+            after = next.get();
+        }
+        return result;
+    }
+}
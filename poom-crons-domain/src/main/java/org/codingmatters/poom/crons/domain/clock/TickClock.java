@@ -0,0 +1,162 @@
+package org.codingmatters.poom.crons.domain.clock;
+
+import org.codingmatters.poom.crons.domain.metrics.Histogram;
+import org.codingmatters.poom.crons.domain.metrics.MetricsRegistry;
+import org.codingmatters.poom.services.logging.CategorizedLogger;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+public class TickClock {
+    static private final CategorizedLogger log = CategorizedLogger.getLogger(TickClock.class);
+
+    private final Clock clock;
+    private final long periodMillis;
+    private final int maxReplay;
+    private final Consumer<LocalDateTime> onBoundary;
+
+    private final AtomicLong ticks = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong maxLatenessMillis = new AtomicLong();
+    private Histogram lateness;
+
+    private long lastBoundary;
+    private volatile Consumer<LocalDateTime> onSkipped = boundary -> {};
+    private volatile boolean running = false;
+    private Thread thread;
+
+    public TickClock(Clock clock, Duration period, int maxReplay, Consumer<LocalDateTime> onBoundary) {
+        this.clock = clock;
+        this.periodMillis = period.toMillis();
+        this.maxReplay = maxReplay;
+        this.onBoundary = onBoundary;
+        this.lastBoundary = this.floor(clock.millis());
+        this.usingMetrics(new MetricsRegistry());
+    }
+
+    public TickClock whenSkipping(Consumer<LocalDateTime> onSkipped) {
+        this.onSkipped = onSkipped;
+        return this;
+    }
+
+    public synchronized TickClock usingMetrics(MetricsRegistry metrics) {
+        this.lateness = metrics.histogram("tick.lag.millis");
+        metrics.gauge("tick.replayed", this.replayed::get);
+        metrics.gauge("tick.skipped", this.skipped::get);
+        return this;
+    }
+
+    public synchronized LocalDateTime lastBoundary() {
+        return this.dateTime(this.lastBoundary);
+    }
+
+    public synchronized TickClock start() {
+        this.lastBoundary = this.floor(this.clock.millis());
+        this.running = true;
+        this.thread = new Thread(this::run, "tick-clock");
+        this.thread.setDaemon(true);
+        this.thread.start();
+        return this;
+    }
+
+    public void stop() throws InterruptedException {
+        Thread thread;
+        synchronized (this) {
+            this.running = false;
+            thread = this.thread;
+            this.thread = null;
+        }
+        if(thread != null) {
+            thread.interrupt();
+            thread.join();
+        }
+    }
+
+    private void run() {
+        while(this.running) {
+            this.fireDue();
+            long wait = this.lastBoundary + this.periodMillis - this.clock.millis();
+            if(wait > 0) {
+                try {
+                    Thread.sleep(Math.min(wait, this.periodMillis));
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    public synchronized int fireDue() {
+        long now = this.clock.millis();
+        long current = this.floor(now);
+        if(current <= this.lastBoundary) {
+            return 0;
+        }
+
+        long first = this.lastBoundary + this.periodMillis;
+        long missed = (current - first) / this.periodMillis;
+        if(missed > this.maxReplay) {
+            long dropped = missed - this.maxReplay;
+            this.skipped.addAndGet(dropped);
+            log.error("GRAVE - tick clock stalled over {} boundaries, only replaying the last {}", missed, this.maxReplay);
+            first += dropped * this.periodMillis;
+            try {
+                this.onSkipped.accept(this.dateTime(first - this.periodMillis));
+            } catch (RuntimeException e) {
+                log.error("unexpected error while handling skipped boundaries", e);
+            }
+        }
+
+        int fired = 0;
+        for (long boundary = first; boundary <= current; boundary += this.periodMillis) {
+            if(boundary < current) {
+                this.replayed.incrementAndGet();
+                log.warn("replaying skipped tick boundary {}", this.dateTime(boundary));
+            }
+            this.fire(boundary);
+            fired++;
+        }
+        this.lastBoundary = current;
+        this.maxLatenessMillis.accumulateAndGet(now - current, Math::max);
+        this.lateness.record(now - current);
+        return fired;
+    }
+
+    private void fire(long boundary) {
+        this.ticks.incrementAndGet();
+        try {
+            this.onBoundary.accept(this.dateTime(boundary));
+        } catch (RuntimeException e) {
+            log.error("unexpected error while ticking at " + this.dateTime(boundary), e);
+        }
+    }
+
+    private long floor(long millis) {
+        return Math.floorDiv(millis, this.periodMillis) * this.periodMillis;
+    }
+
+    private LocalDateTime dateTime(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L), (int) Math.floorMod(millis, 1000L) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    public long ticks() {
+        return this.ticks.get();
+    }
+
+    public long replayed() {
+        return this.replayed.get();
+    }
+
+    public long skipped() {
+        return this.skipped.get();
+    }
+
+    public long maxLatenessMillis() {
+        return this.maxLatenessMillis.get();
+    }
+}
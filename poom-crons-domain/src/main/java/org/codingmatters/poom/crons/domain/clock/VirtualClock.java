@@ -0,0 +1,44 @@
+package org.codingmatters.poom.crons.domain.clock;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class VirtualClock extends Clock {
+
+    private final AtomicReference<Instant> instant;
+
+    public VirtualClock(Instant start) {
+        this.instant = new AtomicReference<>(start);
+    }
+
+    public Instant advance(Duration duration) {
+        if(duration.isNegative()) {
+            throw new IllegalArgumentException("virtual time cannot go backward, was asked to advance by " + duration);
+        }
+        return this.instant.updateAndGet(current -> current.plus(duration));
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return Clock.fixed(this.instant(), zone);
+    }
+
+    @Override
+    public Instant instant() {
+        return this.instant.get();
+    }
+
+    @Override
+    public String toString() {
+        return "VirtualClock{" + this.instant.get() + '}';
+    }
+}
@@ -0,0 +1,20 @@
+package org.codingmatters.poom.crons.domain.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class Counter {
+
+    private final LongAdder value = new LongAdder();
+
+    public void increment() {
+        this.value.increment();
+    }
+
+    public void add(long amount) {
+        this.value.add(amount);
+    }
+
+    public long value() {
+        return this.value.sum();
+    }
+}
@@ -0,0 +1,14 @@
+package org.codingmatters.poom.crons.domain.metrics;
+
+import org.codingmatters.poom.services.logging.CategorizedLogger;
+
+public class LoggingMetricsExporter implements MetricsExporter {
+    static private final CategorizedLogger log = CategorizedLogger.getLogger(LoggingMetricsExporter.class);
+
+    @Override
+    public void export(MetricsSnapshot snapshot) {
+        snapshot.counters().forEach((id, value) -> log.debug("metric {} = {}", id, value));
+        snapshot.gauges().forEach((id, value) -> log.debug("metric {} = {}", id, value));
+        snapshot.histograms().forEach((id, value) -> log.debug("metric {} : {}", id, value));
+    }
+}
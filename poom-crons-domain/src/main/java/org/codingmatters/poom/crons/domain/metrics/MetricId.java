@@ -0,0 +1,55 @@
+package org.codingmatters.poom.crons.domain.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+public final class MetricId {
+
+    static public MetricId of(String name, String ... tags) {
+        if(tags.length % 2 != 0) {
+            throw new IllegalArgumentException("tags must be key / value pairs, got " + tags.length + " values for " + name);
+        }
+        TreeMap<String, String> tagMap = new TreeMap<>();
+        for (int i = 0; i < tags.length; i += 2) {
+            tagMap.put(tags[i], tags[i + 1]);
+        }
+        return new MetricId(name, tagMap);
+    }
+
+    private final String name;
+    private final Map<String, String> tags;
+
+    private MetricId(String name, TreeMap<String, String> tags) {
+        this.name = name;
+        this.tags = Collections.unmodifiableMap(tags);
+    }
+
+    public String name() {
+        return this.name;
+    }
+
+    public Map<String, String> tags() {
+        return this.tags;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MetricId metricId = (MetricId) o;
+        return Objects.equals(name, metricId.name) &&
+                Objects.equals(tags, metricId.tags);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, tags);
+    }
+
+    @Override
+    public String toString() {
+        return this.tags.isEmpty() ? this.name : this.name + this.tags;
+    }
+}
@@ -0,0 +1,6 @@
+package org.codingmatters.poom.crons.domain.metrics;
+
+@FunctionalInterface
+public interface MetricsExporter {
+    void export(MetricsSnapshot snapshot);
+}
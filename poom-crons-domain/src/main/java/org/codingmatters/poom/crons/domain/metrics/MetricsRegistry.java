@@ -0,0 +1,50 @@
+package org.codingmatters.poom.crons.domain.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+public class MetricsRegistry {
+
+    private final ConcurrentHashMap<MetricId, Counter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<MetricId, Histogram> histograms = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<MetricId, Supplier<? extends Number>> gauges = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, TaggedGauges> taggedGauges = new ConcurrentHashMap<>();
+
+    public Counter counter(String name, String ... tags) {
+        return this.counters.computeIfAbsent(MetricId.of(name, tags), id -> new Counter());
+    }
+
+    public Histogram histogram(String name, String ... tags) {
+        return this.histograms.computeIfAbsent(MetricId.of(name, tags), id -> new Histogram());
+    }
+
+    public MetricsRegistry gauge(String name, Supplier<? extends Number> value, String ... tags) {
+        this.gauges.put(MetricId.of(name, tags), value);
+        return this;
+    }
+
+    public MetricsRegistry gauges(String name, String tagName, Supplier<Map<String, ? extends Number>> values) {
+        this.taggedGauges.put(name, new TaggedGauges(tagName, values));
+        return this;
+    }
+
+    public MetricsSnapshot snapshot() {
+        MetricsSnapshot.Builder snapshot = new MetricsSnapshot.Builder();
+        this.counters.forEach((id, counter) -> snapshot.counter(id, counter.value()));
+        this.histograms.forEach((id, histogram) -> snapshot.histogram(id, histogram.snapshot()));
+        this.gauges.forEach((id, gauge) -> snapshot.gauge(id, gauge.get()));
+        this.taggedGauges.forEach((name, gauges) -> gauges.values.get().forEach((tag, value) -> snapshot.gauge(MetricId.of(name, gauges.tagName, tag), value)));
+        return snapshot.build();
+    }
+
+    static private class TaggedGauges {
+        private final String tagName;
+        private final Supplier<Map<String, ? extends Number>> values;
+
+        TaggedGauges(String tagName, Supplier<Map<String, ? extends Number>> values) {
+            this.tagName = tagName;
+            this.values = values;
+        }
+    }
+}
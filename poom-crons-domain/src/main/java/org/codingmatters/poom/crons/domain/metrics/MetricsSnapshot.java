@@ -0,0 +1,59 @@
+package org.codingmatters.poom.crons.domain.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class MetricsSnapshot {
+
+    private final Map<MetricId, Long> counters;
+    private final Map<MetricId, Number> gauges;
+    private final Map<MetricId, Histogram.Snapshot> histograms;
+
+    private MetricsSnapshot(Map<MetricId, Long> counters, Map<MetricId, Number> gauges, Map<MetricId, Histogram.Snapshot> histograms) {
+        this.counters = Collections.unmodifiableMap(counters);
+        this.gauges = Collections.unmodifiableMap(gauges);
+        this.histograms = Collections.unmodifiableMap(histograms);
+    }
+
+    public Map<MetricId, Long> counters() {
+        return this.counters;
+    }
+
+    public Map<MetricId, Number> gauges() {
+        return this.gauges;
+    }
+
+    public Map<MetricId, Histogram.Snapshot> histograms() {
+        return this.histograms;
+    }
+
+    static class Builder {
+        private final Map<MetricId, Long> counters = new TreeMap<>(MetricsSnapshot::compare);
+        private final Map<MetricId, Number> gauges = new TreeMap<>(MetricsSnapshot::compare);
+        private final Map<MetricId, Histogram.Snapshot> histograms = new TreeMap<>(MetricsSnapshot::compare);
+
+        Builder counter(MetricId id, long value) {
+            this.counters.put(id, value);
+            return this;
+        }
+
+        Builder gauge(MetricId id, Number value) {
+            this.gauges.put(id, value);
+            return this;
+        }
+
+        Builder histogram(MetricId id, Histogram.Snapshot value) {
+            this.histograms.put(id, value);
+            return this;
+        }
+
+        MetricsSnapshot build() {
+            return new MetricsSnapshot(this.counters, this.gauges, this.histograms);
+        }
+    }
+
+    static private int compare(MetricId id1, MetricId id2) {
+        return id1.toString().compareTo(id2.toString());
+    }
+}
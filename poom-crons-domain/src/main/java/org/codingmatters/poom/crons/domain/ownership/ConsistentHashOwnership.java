@@ -0,0 +1,100 @@
+package org.codingmatters.poom.crons.domain.ownership;
+
+import org.codingmatters.poom.services.logging.CategorizedLogger;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class ConsistentHashOwnership implements TaskOwnership {
+    static private final CategorizedLogger log = CategorizedLogger.getLogger(ConsistentHashOwnership.class);
+
+    static public final int DEFAULT_VIRTUAL_NODES = 128;
+
+    public enum Partition {
+        ACCOUNT {
+            @Override
+            String key(String account, String id) {
+                return account;
+            }
+        },
+        TASK {
+            @Override
+            String key(String account, String id) {
+                return account + "/" + id;
+            }
+        };
+
+        abstract String key(String account, String id);
+    }
+
+    private final String node;
+    private final Partition partition;
+    private final int virtualNodes;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile NavigableMap<Long, String> ring;
+
+    public ConsistentHashOwnership(String node, Collection<String> members, Partition partition) {
+        this(node, members, partition, DEFAULT_VIRTUAL_NODES);
+    }
+
+    public ConsistentHashOwnership(String node, Collection<String> members, Partition partition, int virtualNodes) {
+        this.node = node;
+        this.partition = partition;
+        this.virtualNodes = virtualNodes;
+        this.ring = this.ring(members);
+    }
+
+    @Override
+    public boolean owns(String account, String id) {
+        return this.node.equals(this.owner(this.partition.key(account, id)));
+    }
+
+    public String owner(String key) {
+        NavigableMap<Long, String> ring = this.ring;
+        if(ring.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    public void members(Collection<String> members) {
+        this.ring = this.ring(members);
+        log.info("crontab cluster membership changed, node {} now in {}", this.node, members);
+        for (Runnable listener : this.listeners) {
+            listener.run();
+        }
+    }
+
+    @Override
+    public void onChange(Runnable listener) {
+        this.listeners.add(listener);
+    }
+
+    private NavigableMap<Long, String> ring(Collection<String> members) {
+        TreeMap<Long, String> result = new TreeMap<>();
+        for (String member : members) {
+            for (int i = 0; i < this.virtualNodes; i++) {
+                result.put(hash(member + "#" + i), member);
+            }
+        }
+        if(! members.contains(this.node)) {
+            log.warn("node {} is not a member of the crontab cluster {}, it will not own any task", this.node, members);
+        }
+        return Collections.unmodifiableNavigableMap(result);
+    }
+
+    static private long hash(String key) {
+        long result = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            result ^= b & 0xff;
+            result *= 0x100000001b3L;
+        }
+        result ^= result >>> 33;
+        result *= 0xff51afd7ed558ccdL;
+        result ^= result >>> 33;
+        return result;
+    }
+}
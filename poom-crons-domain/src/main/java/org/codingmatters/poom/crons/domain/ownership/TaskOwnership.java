@@ -0,0 +1,11 @@
+package org.codingmatters.poom.crons.domain.ownership;
+
+@FunctionalInterface
+public interface TaskOwnership {
+    TaskOwnership ALL = (account, id) -> true;
+
+    boolean owns(String account, String id);
+
+    default void onChange(Runnable listener) {
+    }
+}
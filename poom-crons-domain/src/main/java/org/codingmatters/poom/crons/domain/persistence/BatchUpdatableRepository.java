@@ -0,0 +1,12 @@
+package org.codingmatters.poom.crons.domain.persistence;
+
+import org.codingmatters.poom.services.domain.entities.Entity;
+import org.codingmatters.poom.services.domain.exceptions.RepositoryException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+public interface BatchUpdatableRepository<V> {
+    List<Entity<V>> updateAll(Map<String, UnaryOperator<V>> changes) throws RepositoryException;
+}
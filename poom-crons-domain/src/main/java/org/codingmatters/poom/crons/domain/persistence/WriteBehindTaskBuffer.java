@@ -0,0 +1,77 @@
+package org.codingmatters.poom.crons.domain.persistence;
+
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.crons.domain.Crontab;
+import org.codingmatters.poom.services.domain.entities.Entity;
+import org.codingmatters.poom.services.domain.exceptions.RepositoryException;
+import org.codingmatters.poom.services.logging.CategorizedLogger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class WriteBehindTaskBuffer {
+    static private final CategorizedLogger log = CategorizedLogger.getLogger(WriteBehindTaskBuffer.class);
+
+    private final Crontab crontab;
+    private final int maxPending;
+    private final Executor flushExecutor;
+
+    private final ConcurrentHashMap<String, Entity<Task>> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+
+    public WriteBehindTaskBuffer(Crontab crontab, int maxPending, Executor flushExecutor) {
+        this.crontab = crontab;
+        this.maxPending = maxPending;
+        this.flushExecutor = flushExecutor;
+    }
+
+    public void offer(List<Entity<Task>> executed) {
+        this.crontab.cacheAll(executed);
+        for (Entity<Task> task : executed) {
+            this.pending.put(task.id(), task);
+        }
+        if(this.pending.size() >= this.maxPending && this.flushRequested.compareAndSet(false, true)) {
+            this.flushExecutor.execute(this::checkedFlush);
+        }
+    }
+
+    public synchronized int flush() throws RepositoryException {
+        this.flushRequested.set(false);
+        List<Entity<Task>> flushed = new ArrayList<>(this.pending.size());
+        for (String id : new ArrayList<>(this.pending.keySet())) {
+            Entity<Task> task = this.pending.remove(id);
+            if(task != null) {
+                flushed.add(task);
+            }
+        }
+        if(flushed.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            this.crontab.persistAll(flushed);
+        } catch (RepositoryException e) {
+            for (Entity<Task> task : flushed) {
+                this.pending.putIfAbsent(task.id(), task);
+            }
+            throw e;
+        }
+        log.debug("flushed {} coalesced task states", flushed.size());
+        return flushed.size();
+    }
+
+    public void checkedFlush() {
+        try {
+            this.flush();
+        } catch (RepositoryException e) {
+            log.error("error flushing task states, will retry on next flush", e);
+        }
+    }
+
+    public int pending() {
+        return this.pending.size();
+    }
+}
@@ -0,0 +1,82 @@
+package org.codingmatters.poom.crons.domain.pipeline;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class PipelineMetrics {
+
+    private final AtomicLong ticks = new AtomicLong();
+    private final AtomicLong selectedTasks = new AtomicLong();
+    private final AtomicLong droppedTasks = new AtomicLong();
+    private final AtomicLong lastSelectionNanos = new AtomicLong();
+    private final AtomicLong lastExecutionLagNanos = new AtomicLong();
+    private final AtomicLong maxExecutionLagNanos = new AtomicLong();
+    private final AtomicLong lastPersistenceLagNanos = new AtomicLong();
+    private final AtomicLong maxPersistenceLagNanos = new AtomicLong();
+
+    void selected(int count, long selectionNanos) {
+        this.ticks.incrementAndGet();
+        this.selectedTasks.addAndGet(count);
+        this.lastSelectionNanos.set(selectionNanos);
+    }
+
+    void dropped(int count) {
+        this.droppedTasks.addAndGet(count);
+    }
+
+    void executionLag(long nanos) {
+        this.lastExecutionLagNanos.set(nanos);
+        this.maxExecutionLagNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    void persistenceLag(long nanos) {
+        this.lastPersistenceLagNanos.set(nanos);
+        this.maxPersistenceLagNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long ticks() {
+        return this.ticks.get();
+    }
+
+    public long selectedTasks() {
+        return this.selectedTasks.get();
+    }
+
+    public long droppedTasks() {
+        return this.droppedTasks.get();
+    }
+
+    public long lastSelectionMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.lastSelectionNanos.get());
+    }
+
+    public long lastExecutionLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.lastExecutionLagNanos.get());
+    }
+
+    public long maxExecutionLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.maxExecutionLagNanos.get());
+    }
+
+    public long lastPersistenceLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.lastPersistenceLagNanos.get());
+    }
+
+    public long maxPersistenceLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.maxPersistenceLagNanos.get());
+    }
+
+    @Override
+    public String toString() {
+        return "PipelineMetrics{" +
+                "ticks=" + this.ticks() +
+                ", selectedTasks=" + this.selectedTasks() +
+                ", droppedTasks=" + this.droppedTasks() +
+                ", lastSelectionMillis=" + this.lastSelectionMillis() +
+                ", lastExecutionLagMillis=" + this.lastExecutionLagMillis() +
+                ", maxExecutionLagMillis=" + this.maxExecutionLagMillis() +
+                ", lastPersistenceLagMillis=" + this.lastPersistenceLagMillis() +
+                ", maxPersistenceLagMillis=" + this.maxPersistenceLagMillis() +
+                '}';
+    }
+}
@@ -0,0 +1,315 @@
+package org.codingmatters.poom.crons.domain.pipeline;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.crons.domain.TaskExecutor;
+import org.codingmatters.poom.crons.domain.metrics.Histogram;
+import org.codingmatters.poom.crons.domain.metrics.MetricsRegistry;
+import org.codingmatters.poom.crons.domain.tracing.TickTracing;
+import org.codingmatters.poom.services.domain.entities.Entity;
+import org.codingmatters.poom.services.domain.exceptions.RepositoryException;
+import org.codingmatters.poom.services.logging.CategorizedLogger;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+public class TickPipeline {
+    static private final CategorizedLogger log = CategorizedLogger.getLogger(TickPipeline.class);
+
+    @FunctionalInterface
+    public interface Selection {
+        List<Entity<Task>> due(LocalDateTime at) throws RepositoryException, ExecutionException, InterruptedException;
+    }
+
+    @FunctionalInterface
+    public interface Persistence {
+        void persist(List<Entity<Task>> executed) throws RepositoryException;
+    }
+
+    static private final Batch END = new Batch(null, Collections.emptyList(), Context.root(), 0L);
+
+    private final Selection selection;
+    private final TaskExecutor executor;
+    private final Persistence persistence;
+    private final int executionWorkers;
+
+    private final BlockingQueue<Batch> executionQueue;
+    private final BlockingQueue<Batch> persistenceQueue;
+    private final PipelineMetrics metrics = new PipelineMetrics();
+    private Histogram selectedTasks;
+    private Histogram selectionDurations;
+    private Histogram executionDurations;
+    private Histogram persistenceDurations;
+    private Histogram executionLags;
+    private TickTracing tracing = TickTracing.disabled();
+    private Consumer<List<Entity<Task>>> onExecuted = executed -> {};
+
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean accepting = false;
+
+    public TickPipeline(Selection selection, TaskExecutor executor, Persistence persistence, int queueCapacity, int executionWorkers) {
+        this.selection = selection;
+        this.executor = executor;
+        this.persistence = persistence;
+        this.executionWorkers = executionWorkers;
+        this.executionQueue = new ArrayBlockingQueue<>(queueCapacity);
+        this.persistenceQueue = new ArrayBlockingQueue<>(queueCapacity);
+        this.usingMetrics(new MetricsRegistry());
+    }
+
+    public TickPipeline usingMetrics(MetricsRegistry metrics) {
+        this.selectedTasks = metrics.histogram("tick.tasks.selected");
+        this.selectionDurations = metrics.histogram("tick.selection.micros");
+        this.executionDurations = metrics.histogram("tick.execution.micros");
+        this.persistenceDurations = metrics.histogram("tick.persistence.micros");
+        this.executionLags = metrics.histogram("tick.execution.lag.micros");
+        metrics.gauge("tick.pipeline.dropped", this.metrics::droppedTasks);
+        metrics.gauge("tick.pipeline.execution.queue", this.executionQueue::size);
+        metrics.gauge("tick.pipeline.persistence.queue", this.persistenceQueue::size);
+        return this;
+    }
+
+    public TickPipeline usingTracing(TickTracing tracing) {
+        this.tracing = tracing;
+        return this;
+    }
+
+    public TickPipeline whenExecuted(Consumer<List<Entity<Task>>> onExecuted) {
+        this.onExecuted = onExecuted;
+        return this;
+    }
+
+    public synchronized TickPipeline start() {
+        for (int i = 0; i < this.executionWorkers; i++) {
+            this.workers.add(this.worker("tick-pipeline-execution-" + i, this::executionStage));
+        }
+        this.workers.add(this.worker("tick-pipeline-persistence", this::persistenceStage));
+        this.accepting = true;
+        return this;
+    }
+
+    private Thread worker(String name, Runnable stage) {
+        Thread thread = new Thread(stage, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    public void tick(LocalDateTime at) throws RepositoryException, ExecutionException, InterruptedException {
+        if(! this.accepting) {
+            log.warn("tick pipeline is not running, ignoring tick at {}", at);
+            return;
+        }
+        Context tick = this.tracing.tick(at);
+        List<Entity<Task>> due;
+        try {
+            due = this.select(tick, at);
+        } catch (RepositoryException | ExecutionException | InterruptedException | RuntimeException e) {
+            TickTracing.end(tick);
+            throw e;
+        }
+        if(due.isEmpty() || ! this.submit(at, due, tick)) {
+            TickTracing.end(tick);
+        }
+    }
+
+    public boolean submit(LocalDateTime at, List<Entity<Task>> tasks) {
+        return this.submit(at, tasks, Context.root());
+    }
+
+    private boolean submit(LocalDateTime at, List<Entity<Task>> tasks, Context tick) {
+        if(tasks.isEmpty()) {
+            return true;
+        }
+        if(! this.accepting) {
+            log.warn("tick pipeline is not running, ignoring {} tasks due at {}", tasks.size(), at);
+            return false;
+        }
+        if(! this.executionQueue.offer(new Batch(at, tasks, tick, System.nanoTime()))) {
+            this.metrics.dropped(tasks.size());
+            Span.fromContext(tick).setStatus(StatusCode.ERROR, "dropped");
+            log.error("GRAVE - execution stage is saturated ({} pending batches), dropping {} tasks due at {}", this.executionQueue.size(), tasks.size(), at);
+            return false;
+        }
+        return true;
+    }
+
+    public List<Entity<Task>> tickInline(LocalDateTime at) throws RepositoryException, ExecutionException, InterruptedException {
+        Context tick = this.tracing.tick(at);
+        try {
+            return this.runInline(tick, this.select(tick, at));
+        } finally {
+            TickTracing.end(tick);
+        }
+    }
+
+    private List<Entity<Task>> select(Context tick, LocalDateTime at) throws RepositoryException, ExecutionException, InterruptedException {
+        Span span = TickTracing.start(tick, "tick.selection", SpanKind.INTERNAL);
+        long start = System.nanoTime();
+        try (Scope scope = span.makeCurrent()) {
+            List<Entity<Task>> due = this.selection.due(at);
+            long elapsed = System.nanoTime() - start;
+            this.metrics.selected(due.size(), elapsed);
+            this.selectedTasks.record(due.size());
+            this.selectionDurations.record(TimeUnit.NANOSECONDS.toMicros(elapsed));
+            span.setAttribute("poom.crons.tasks.selected", due.size());
+            return due;
+        } finally {
+            span.end();
+        }
+    }
+
+    private List<Entity<Task>> execute(Context tick, List<Entity<Task>> tasks) throws ExecutionException, InterruptedException {
+        Span span = TickTracing.start(tick, "tick.execution", SpanKind.INTERNAL);
+        long start = System.nanoTime();
+        try (Scope scope = span.makeCurrent()) {
+            List<Entity<Task>> executed = this.executor.execute(tasks);
+            this.onExecuted.accept(executed);
+            return executed;
+        } finally {
+            this.executionDurations.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+            span.end();
+        }
+    }
+
+    private void persist(Context tick, List<Entity<Task>> executed) throws RepositoryException {
+        Span span = TickTracing.start(tick, "tick.persistence", SpanKind.INTERNAL);
+        long start = System.nanoTime();
+        try (Scope scope = span.makeCurrent()) {
+            this.persistence.persist(executed);
+        } finally {
+            this.persistenceDurations.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+            span.end();
+        }
+    }
+
+    public List<Entity<Task>> runInline(LocalDateTime at, List<Entity<Task>> tasks) throws RepositoryException, ExecutionException, InterruptedException {
+        return this.runInline(Context.root(), tasks);
+    }
+
+    private List<Entity<Task>> runInline(Context tick, List<Entity<Task>> tasks) throws RepositoryException, ExecutionException, InterruptedException {
+        if(tasks.isEmpty()) {
+            return tasks;
+        }
+        List<Entity<Task>> executed = this.execute(tick, tasks);
+        this.persist(tick, executed);
+        return executed;
+    }
+
+    private void executionStage() {
+        try {
+            for (Batch batch = this.executionQueue.take(); batch != END; batch = this.executionQueue.take()) {
+                long lag = System.nanoTime() - batch.enqueuedAt;
+                this.metrics.executionLag(lag);
+                this.executionLags.record(TimeUnit.NANOSECONDS.toMicros(lag));
+                List<Entity<Task>> executed;
+                try {
+                    executed = this.execute(batch.tick, batch.tasks);
+                } catch (ExecutionException | RuntimeException e) {
+                    log.error("error executing tasks due at " + batch.at, e);
+                    TickTracing.end(batch.tick);
+                    continue;
+                }
+                this.persistenceQueue.put(new Batch(batch.at, executed, batch.tick, System.nanoTime()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void persistenceStage() {
+        try {
+            for (Batch batch = this.persistenceQueue.take(); batch != END; batch = this.persistenceQueue.take()) {
+                this.metrics.persistenceLag(System.nanoTime() - batch.enqueuedAt);
+                try {
+                    this.persist(batch.tick, batch.tasks);
+                } catch (RepositoryException | RuntimeException e) {
+                    log.error("error persisting trigger outcomes for " + batch.tasks.size() + " tasks due at " + batch.at, e);
+                } finally {
+                    TickTracing.end(batch.tick);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public synchronized boolean stop(long timeout, TimeUnit unit) throws InterruptedException {
+        if(! this.accepting) {
+            return true;
+        }
+        this.accepting = false;
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        List<Thread> executionWorkers = this.workers.subList(0, this.executionWorkers);
+        boolean drained = this.end(this.executionQueue, executionWorkers.size(), deadline)
+                && this.join(executionWorkers, deadline)
+                && this.end(this.persistenceQueue, 1, deadline)
+                && this.join(this.workers.subList(this.executionWorkers, this.workers.size()), deadline);
+        if(! drained) {
+            log.error("GRAVE - tick pipeline not drained on time, interrupting stages");
+            this.workers.forEach(Thread::interrupt);
+        }
+        this.workers.clear();
+        return drained;
+    }
+
+    private boolean end(BlockingQueue<Batch> queue, int workers, long deadline) throws InterruptedException {
+        for (int i = 0; i < workers; i++) {
+            if(! queue.offer(END, deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean join(List<Thread> threads, long deadline) throws InterruptedException {
+        for (Thread thread : threads) {
+            long remaining = deadline - System.nanoTime();
+            if(remaining > 0) {
+                TimeUnit.NANOSECONDS.timedJoin(thread, remaining);
+            }
+            if(thread.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public PipelineMetrics metrics() {
+        return this.metrics;
+    }
+
+    public int executionQueueSize() {
+        return this.executionQueue.size();
+    }
+
+    public int persistenceQueueSize() {
+        return this.persistenceQueue.size();
+    }
+
+    static private class Batch {
+        private final LocalDateTime at;
+        private final List<Entity<Task>> tasks;
+        private final Context tick;
+        private final long enqueuedAt;
+
+        Batch(LocalDateTime at, List<Entity<Task>> tasks, Context tick, long enqueuedAt) {
+            this.at = at;
+            this.tasks = tasks;
+            this.tick = tick;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
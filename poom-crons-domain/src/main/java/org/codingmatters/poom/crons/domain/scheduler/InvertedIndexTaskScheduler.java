@@ -0,0 +1,215 @@
+package org.codingmatters.poom.crons.domain.scheduler;
+
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.crons.domain.selector.CompiledSchedule;
+import org.codingmatters.poom.crons.domain.selector.LocalTick;
+import org.codingmatters.poom.services.domain.entities.Entity;
+import org.codingmatters.poom.services.logging.CategorizedLogger;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+public class InvertedIndexTaskScheduler implements TaskScheduler {
+    static private final CategorizedLogger log = CategorizedLogger.getLogger(InvertedIndexTaskScheduler.class);
+
+    private final boolean secondsPrecision;
+    private final ZoneId defaultZone;
+
+    private final Map<String, Slot> slots = new HashMap<>();
+    private final Map<ZoneId, ZoneIndex> indexes = new HashMap<>();
+    private final Map<String, Slot> unindexed = new LinkedHashMap<>();
+
+    public InvertedIndexTaskScheduler(ChronoUnit precision, TimeZone defaultTimeZone) {
+        if(!Arrays.asList(ChronoUnit.MINUTES, ChronoUnit.SECONDS).contains(precision)) {
+            throw new InstantiationError("precision : " + precision + " is not supported");
+        }
+        this.secondsPrecision = precision == ChronoUnit.SECONDS;
+        this.defaultZone = defaultTimeZone.toZoneId();
+    }
+
+    @Override
+    public synchronized void schedule(Entity<Task> task, LocalDateTime now) {
+        Slot slot = this.slots.get(task.id());
+        if(slot != null && Objects.equals(slot.task.value().spec(), task.value().spec())) {
+            slot.task = task;
+            return;
+        }
+        this.unschedule(task.id());
+
+        CompiledSchedule schedule;
+        try {
+            schedule = CompiledSchedule.compile(task.value().spec());
+        } catch (Exception e) {
+            log.error("GRAVE : unexpected exception while compiling task schedule:  " + task, e);
+            return;
+        }
+
+        slot = new Slot(task, schedule, schedule.zone() != null ? schedule.zone() : this.defaultZone);
+        this.slots.put(task.id(), slot);
+        if(schedule.kind() == CompiledSchedule.Kind.AT) {
+            this.indexes.computeIfAbsent(slot.zone, zone -> new ZoneIndex()).add(slot);
+        } else if(schedule.kind() != CompiledSchedule.Kind.NEVER) {
+            this.unindexed.put(task.id(), slot);
+        }
+    }
+
+    @Override
+    public synchronized void unschedule(String id) {
+        Slot slot = this.slots.remove(id);
+        if(slot == null) {
+            return;
+        }
+        if(slot.schedule.kind() == CompiledSchedule.Kind.AT) {
+            ZoneIndex index = this.indexes.get(slot.zone);
+            index.remove(slot);
+            if(index.isEmpty()) {
+                this.indexes.remove(slot.zone);
+            }
+        } else {
+            this.unindexed.remove(id);
+        }
+    }
+
+    @Override
+    public synchronized List<Entity<Task>> due(LocalDateTime at) {
+        List<Entity<Task>> result = new ArrayList<>();
+        Map<ZoneId, LocalTick> ticks = new HashMap<>();
+
+        for (Map.Entry<ZoneId, ZoneIndex> index : this.indexes.entrySet()) {
+            LocalTick tick = ticks.computeIfAbsent(index.getKey(), zone -> LocalTick.of(at, zone));
+            index.getValue().collect(tick, result);
+        }
+        for (Slot slot : this.unindexed.values()) {
+            LocalTick tick = ticks.computeIfAbsent(slot.zone, zone -> LocalTick.of(at, zone));
+            if(slot.schedule.matches(tick, this.secondsPrecision)) {
+                result.add(slot.task);
+            }
+        }
+        return result;
+    }
+
+    public synchronized int size() {
+        return this.slots.size();
+    }
+
+    static private class ZoneIndex {
+        private final FieldIndex minutes = new FieldIndex(60);
+        private final FieldIndex hours = new FieldIndex(24);
+        private final FieldIndex daysOfWeek = new FieldIndex(7);
+        private final FieldIndex daysOfMonth = new FieldIndex(32);
+        private final FieldIndex dayOfYear = new FieldIndex(367);
+
+        private Slot[] positions = new Slot[64];
+        private final Deque<Integer> freePositions = new ArrayDeque<>();
+        private int nextPosition = 0;
+        private int count = 0;
+
+        void add(Slot slot) {
+            int position = this.freePositions.isEmpty() ? this.nextPosition++ : this.freePositions.pop();
+            if(position >= this.positions.length) {
+                this.positions = Arrays.copyOf(this.positions, this.positions.length * 2);
+            }
+            this.positions[position] = slot;
+            slot.position = position;
+            this.count++;
+
+            CompiledSchedule schedule = slot.schedule;
+            this.minutes.set(position, schedule.minutes(), CompiledSchedule.ALL_MINUTES, true);
+            this.hours.set(position, schedule.hours(), CompiledSchedule.ALL_HOURS, true);
+            this.daysOfWeek.set(position, schedule.daysOfWeek(), CompiledSchedule.ALL_DAYS_OF_WEEK, true);
+            this.daysOfMonth.set(position, schedule.daysOfMonth(), CompiledSchedule.ALL_DAYS_OF_MONTH, true);
+            this.dayOfYear.set(position, schedule.dayOfYear(), true);
+        }
+
+        void remove(Slot slot) {
+            int position = slot.position;
+            CompiledSchedule schedule = slot.schedule;
+            this.minutes.set(position, schedule.minutes(), CompiledSchedule.ALL_MINUTES, false);
+            this.hours.set(position, schedule.hours(), CompiledSchedule.ALL_HOURS, false);
+            this.daysOfWeek.set(position, schedule.daysOfWeek(), CompiledSchedule.ALL_DAYS_OF_WEEK, false);
+            this.daysOfMonth.set(position, schedule.daysOfMonth(), CompiledSchedule.ALL_DAYS_OF_MONTH, false);
+            this.dayOfYear.set(position, schedule.dayOfYear(), false);
+
+            this.positions[position] = null;
+            this.freePositions.push(position);
+            this.count--;
+        }
+
+        boolean isEmpty() {
+            return this.count == 0;
+        }
+
+        void collect(LocalTick tick, List<Entity<Task>> result) {
+            BitSet matches = this.minutes.matching(tick.minute);
+            if(matches.isEmpty()) return;
+            this.hours.retain(matches, tick.hour);
+            if(matches.isEmpty()) return;
+            this.daysOfWeek.retain(matches, tick.dayOfWeek - 1);
+            if(matches.isEmpty()) return;
+            this.daysOfMonth.retain(matches, tick.dayOfMonth);
+            if(matches.isEmpty()) return;
+            this.dayOfYear.retain(matches, tick.dayOfYear);
+
+            for (int position = matches.nextSetBit(0); position >= 0; position = matches.nextSetBit(position + 1)) {
+                result.add(this.positions[position].task);
+            }
+        }
+    }
+
+    static private class FieldIndex {
+        private final BitSet[] values;
+        private final BitSet any = new BitSet();
+
+        FieldIndex(int size) {
+            this.values = new BitSet[size];
+            for (int i = 0; i < size; i++) {
+                this.values[i] = new BitSet();
+            }
+        }
+
+        void set(int position, long mask, long all, boolean value) {
+            if(mask == all) {
+                this.any.set(position, value);
+                return;
+            }
+            for (int i = 0; i < this.values.length; i++) {
+                if((mask >>> i & 1L) != 0L) {
+                    this.values[i].set(position, value);
+                }
+            }
+        }
+
+        void set(int position, int fieldValue, boolean value) {
+            if(fieldValue == CompiledSchedule.ANY_DAY_OF_YEAR) {
+                this.any.set(position, value);
+            } else {
+                this.values[fieldValue].set(position, value);
+            }
+        }
+
+        BitSet matching(int fieldValue) {
+            BitSet result = (BitSet) this.any.clone();
+            result.or(this.values[fieldValue]);
+            return result;
+        }
+
+        void retain(BitSet matches, int fieldValue) {
+            matches.and(this.matching(fieldValue));
+        }
+    }
+
+    static private class Slot {
+        private Entity<Task> task;
+        private final CompiledSchedule schedule;
+        private final ZoneId zone;
+        private int position;
+
+        Slot(Entity<Task> task, CompiledSchedule schedule, ZoneId zone) {
+            this.task = task;
+            this.schedule = schedule;
+            this.zone = zone;
+        }
+    }
+}
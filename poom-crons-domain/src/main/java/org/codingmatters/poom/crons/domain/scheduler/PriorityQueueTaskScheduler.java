@@ -0,0 +1,106 @@
+package org.codingmatters.poom.crons.domain.scheduler;
+
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.crons.domain.selector.NextOccurrence;
+import org.codingmatters.poom.services.domain.entities.Entity;
+import org.codingmatters.poom.services.logging.CategorizedLogger;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+public class PriorityQueueTaskScheduler implements TaskScheduler {
+    static private final CategorizedLogger log = CategorizedLogger.getLogger(PriorityQueueTaskScheduler.class);
+
+    private final NextOccurrence nextOccurrence;
+
+    private final PriorityQueue<Scheduled> queue = new PriorityQueue<>();
+    private final Map<String, Slot> slots = new HashMap<>();
+    private long sequence = 0L;
+
+    public PriorityQueueTaskScheduler(ChronoUnit precision, TimeZone defaultTimeZone) {
+        this.nextOccurrence = new NextOccurrence(precision, defaultTimeZone);
+    }
+
+    @Override
+    public synchronized void schedule(Entity<Task> task, LocalDateTime now) {
+        Slot slot = this.slots.get(task.id());
+        if(slot != null && Objects.equals(slot.task.value().spec(), task.value().spec())) {
+            slot.task = task;
+            return;
+        }
+
+        slot = new Slot(task);
+        this.slots.put(task.id(), slot);
+        this.enqueue(slot, now);
+    }
+
+    @Override
+    public synchronized void unschedule(String id) {
+        this.slots.remove(id);
+    }
+
+    @Override
+    public synchronized List<Entity<Task>> due(LocalDateTime at) {
+        LocalDateTime tick = this.nextOccurrence.atPrecision(at);
+        List<Entity<Task>> result = new ArrayList<>();
+        while(! this.queue.isEmpty() && ! this.queue.peek().fireAt.isAfter(tick)) {
+            Scheduled next = this.queue.poll();
+            Slot slot = this.slots.get(next.id);
+            if(slot == null || slot.scheduled != next) {
+                continue;
+            }
+            if(next.fireAt.equals(tick)) {
+                result.add(slot.task);
+            } else {
+                log.debug("missed tick {} for task {}, rescheduling", next.fireAt, next.id);
+            }
+            this.enqueue(slot, tick);
+        }
+        return result;
+    }
+
+    public synchronized int size() {
+        return this.slots.size();
+    }
+
+    private void enqueue(Slot slot, LocalDateTime after) {
+        slot.scheduled = null;
+        try {
+            Optional<LocalDateTime> fireAt = this.nextOccurrence.nextOccurrence(slot.task.value().spec(), after);
+            if(fireAt.isPresent()) {
+                slot.scheduled = new Scheduled(fireAt.get(), this.sequence++, slot.task.id());
+                this.queue.add(slot.scheduled);
+            }
+        } catch (Exception e) {
+            log.error("GRAVE : unexpected exception while computing task next fire time:  " + slot.task, e);
+        }
+    }
+
+    static private class Slot {
+        private Entity<Task> task;
+        private Scheduled scheduled;
+
+        Slot(Entity<Task> task) {
+            this.task = task;
+        }
+    }
+
+    static private class Scheduled implements Comparable<Scheduled> {
+        private final LocalDateTime fireAt;
+        private final long sequence;
+        private final String id;
+
+        Scheduled(LocalDateTime fireAt, long sequence, String id) {
+            this.fireAt = fireAt;
+            this.sequence = sequence;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Scheduled o) {
+            int result = this.fireAt.compareTo(o.fireAt);
+            return result != 0 ? result : Long.compare(this.sequence, o.sequence);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package org.codingmatters.poom.crons.domain.scheduler;
+
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.services.domain.entities.Entity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TaskScheduler {
+    void schedule(Entity<Task> task, LocalDateTime now);
+    void unschedule(String id);
+    List<Entity<Task>> due(LocalDateTime at);
+}
@@ -0,0 +1,218 @@
+package org.codingmatters.poom.crons.domain.scheduler;
+
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.crons.domain.selector.NextOccurrence;
+import org.codingmatters.poom.services.domain.entities.Entity;
+import org.codingmatters.poom.services.logging.CategorizedLogger;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+public class TimingWheelTaskScheduler implements TaskScheduler {
+    static private final CategorizedLogger log = CategorizedLogger.getLogger(TimingWheelTaskScheduler.class);
+
+    static private final int DAYS_WHEEL_SIZE = 366;
+
+    private final NextOccurrence nextOccurrence;
+    private final long unitSeconds;
+    private final Level[] levels;
+    private final PriorityQueue<Scheduled> overflow = new PriorityQueue<>();
+
+    private final Map<String, Slot> slots = new HashMap<>();
+    private long currentTick = Long.MIN_VALUE;
+
+    public TimingWheelTaskScheduler(ChronoUnit precision, TimeZone defaultTimeZone) {
+        this.nextOccurrence = new NextOccurrence(precision, defaultTimeZone);
+        if(precision == ChronoUnit.SECONDS) {
+            this.unitSeconds = 1L;
+            this.levels = new Level[] {
+                    new Level(1L, 60),
+                    new Level(60L, 60),
+                    new Level(3600L, 24),
+                    new Level(86400L, DAYS_WHEEL_SIZE)
+            };
+        } else {
+            this.unitSeconds = 60L;
+            this.levels = new Level[] {
+                    new Level(1L, 60),
+                    new Level(60L, 24),
+                    new Level(1440L, DAYS_WHEEL_SIZE)
+            };
+        }
+    }
+
+    @Override
+    public synchronized void schedule(Entity<Task> task, LocalDateTime now) {
+        this.initialize(now);
+
+        Slot slot = this.slots.get(task.id());
+        if(slot != null && Objects.equals(slot.task.value().spec(), task.value().spec())) {
+            slot.task = task;
+            return;
+        }
+
+        slot = new Slot(task);
+        this.slots.put(task.id(), slot);
+        this.enqueue(slot, this.later(now, this.time(this.currentTick)));
+    }
+
+    @Override
+    public synchronized void unschedule(String id) {
+        this.slots.remove(id);
+    }
+
+    @Override
+    public synchronized List<Entity<Task>> due(LocalDateTime at) {
+        this.initialize(at);
+
+        long tick = this.tick(at);
+        List<Entity<Task>> result = new ArrayList<>();
+        List<Slot> expired = new ArrayList<>();
+        while(this.currentTick < tick) {
+            this.currentTick++;
+            this.cascade();
+
+            Level first = this.levels[0];
+            List<Scheduled> bucket = first.buckets[first.index(this.currentTick)];
+            for (Scheduled scheduled : bucket) {
+                Slot slot = this.slots.get(scheduled.id);
+                if(slot == null || slot.scheduled != scheduled) {
+                    continue;
+                }
+                if(this.currentTick == tick) {
+                    result.add(slot.task);
+                } else {
+                    log.debug("missed tick {} for task {}, rescheduling", this.time(this.currentTick), scheduled.id);
+                }
+                expired.add(slot);
+            }
+            bucket.clear();
+        }
+
+        LocalDateTime current = this.time(this.currentTick);
+        for (Slot slot : expired) {
+            this.enqueue(slot, current);
+        }
+        return result;
+    }
+
+    public synchronized int size() {
+        return this.slots.size();
+    }
+
+    private void initialize(LocalDateTime now) {
+        if(this.currentTick == Long.MIN_VALUE) {
+            this.currentTick = this.tick(now);
+        }
+    }
+
+    private void cascade() {
+        for (int i = this.levels.length - 1; i > 0; i--) {
+            Level level = this.levels[i];
+            if(this.currentTick % level.tickSize == 0) {
+                if(i == this.levels.length - 1) {
+                    this.drainOverflow();
+                }
+                List<Scheduled> bucket = level.buckets[level.index(this.currentTick)];
+                List<Scheduled> cascaded = new ArrayList<>(bucket);
+                bucket.clear();
+                for (Scheduled scheduled : cascaded) {
+                    this.place(scheduled);
+                }
+            }
+        }
+    }
+
+    private void drainOverflow() {
+        Level last = this.levels[this.levels.length - 1];
+        while(! this.overflow.isEmpty() && this.overflow.peek().fireTick / last.tickSize - this.currentTick / last.tickSize < last.size) {
+            this.place(this.overflow.poll());
+        }
+    }
+
+    private void enqueue(Slot slot, LocalDateTime after) {
+        slot.scheduled = null;
+        try {
+            Optional<LocalDateTime> fireAt = this.nextOccurrence.nextOccurrence(slot.task.value().spec(), after);
+            if(fireAt.isPresent()) {
+                slot.scheduled = new Scheduled(this.tick(fireAt.get()), slot.task.id());
+                this.place(slot.scheduled);
+            }
+        } catch (Exception e) {
+            log.error("GRAVE : unexpected exception while computing task next fire time:  " + slot.task, e);
+        }
+    }
+
+    private void place(Scheduled scheduled) {
+        if(scheduled.fireTick - this.currentTick < this.levels[0].size) {
+            this.levels[0].buckets[this.levels[0].index(scheduled.fireTick)].add(scheduled);
+            return;
+        }
+        for (int i = 1; i < this.levels.length; i++) {
+            Level level = this.levels[i];
+            if(scheduled.fireTick / level.tickSize - this.currentTick / level.tickSize < level.size) {
+                level.buckets[level.index(scheduled.fireTick)].add(scheduled);
+                return;
+            }
+        }
+        this.overflow.add(scheduled);
+    }
+
+    private long tick(LocalDateTime at) {
+        return Math.floorDiv(at.toEpochSecond(ZoneOffset.UTC), this.unitSeconds);
+    }
+
+    private LocalDateTime time(long tick) {
+        return LocalDateTime.ofEpochSecond(tick * this.unitSeconds, 0, ZoneOffset.UTC);
+    }
+
+    private LocalDateTime later(LocalDateTime dt1, LocalDateTime dt2) {
+        return dt1.isAfter(dt2) ? dt1 : dt2;
+    }
+
+    static private class Level {
+        private final long tickSize;
+        private final int size;
+        private final List<Scheduled>[] buckets;
+
+        @SuppressWarnings("unchecked")
+        Level(long tickSize, int size) {
+            this.tickSize = tickSize;
+            this.size = size;
+            this.buckets = new List[size];
+            for (int i = 0; i < size; i++) {
+                this.buckets[i] = new ArrayList<>();
+            }
+        }
+
+        int index(long tick) {
+            return (int) Math.floorMod(tick / this.tickSize, (long) this.size);
+        }
+    }
+
+    static private class Slot {
+        private Entity<Task> task;
+        private Scheduled scheduled;
+
+        Slot(Entity<Task> task) {
+            this.task = task;
+        }
+    }
+
+    static private class Scheduled implements Comparable<Scheduled> {
+        private final long fireTick;
+        private final String id;
+
+        Scheduled(long fireTick, String id) {
+            this.fireTick = fireTick;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Scheduled o) {
+            return Long.compare(this.fireTick, o.fireTick);
+        }
+    }
+}
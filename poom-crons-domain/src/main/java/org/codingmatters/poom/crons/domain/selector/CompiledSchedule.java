@@ -0,0 +1,206 @@
+package org.codingmatters.poom.crons.domain.selector;
+
+import org.codingmatters.poom.crons.crontab.api.types.TaskSpec;
+import org.codingmatters.poom.crons.crontab.api.types.taskspec.scheduled.At;
+import org.codingmatters.poom.crons.crontab.api.types.taskspec.scheduled.Every;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+public final class CompiledSchedule {
+
+    static public final long ALL_MINUTES = (1L << 60) - 1;
+    static public final int ALL_HOURS = (1 << 24) - 1;
+    static public final int ALL_DAYS_OF_WEEK = (1 << 7) - 1;
+    static public final long ALL_DAYS_OF_MONTH = ((1L << 31) - 1) << 1;
+    static public final int ANY_DAY_OF_YEAR = 0;
+
+    public static final CompiledSchedule NEVER = new CompiledSchedule(Kind.NEVER, null, 0L, 0, 0, 0L, 0, 0L, 0L, 0L, 0, 0);
+
+    public enum Kind {
+        NEVER, AT, EVERY_SECONDS, EVERY_FIXED, EVERY_MONTHS
+    }
+
+    static public CompiledSchedule compile(TaskSpec spec) {
+        if(spec == null) {
+            return NEVER;
+        }
+        ZoneId zone = spec.opt().timezone().isPresent() ? TaskZones.zone(spec.timezone()) : null;
+        if(spec.opt().scheduled().at().isPresent()) {
+            return compileAt(spec.scheduled().at(), zone);
+        }
+        if(spec.opt().scheduled().every().isPresent()) {
+            return compileEvery(spec.scheduled().every(), zone);
+        }
+        return NEVER;
+    }
+
+    static private CompiledSchedule compileAt(At at, ZoneId zone) {
+        long minutes = ALL_MINUTES;
+        if(at.opt().minuteOfHours().isPresent()) {
+            if(at.minuteOfHours() < 0 || at.minuteOfHours() > 59) return NEVER;
+            minutes = 1L << at.minuteOfHours();
+        }
+        int hours = ALL_HOURS;
+        if(at.opt().hourOfDay().isPresent()) {
+            if(at.hourOfDay() < 0 || at.hourOfDay() > 23) return NEVER;
+            hours = 1 << at.hourOfDay();
+        }
+        int daysOfWeek = ALL_DAYS_OF_WEEK;
+        if(at.opt().dayOfWeek().isPresent()) {
+            daysOfWeek = 1 << (DayOfWeek.valueOf(at.dayOfWeek().name()).getValue() - 1);
+        }
+        long daysOfMonth = ALL_DAYS_OF_MONTH;
+        if(at.opt().dayOfMonth().isPresent()) {
+            if(at.dayOfMonth() < 1 || at.dayOfMonth() > 31) return NEVER;
+            daysOfMonth = 1L << at.dayOfMonth();
+        }
+        int dayOfYear = ANY_DAY_OF_YEAR;
+        if(at.opt().dayOfYear().isPresent()) {
+            if(at.dayOfYear() < 1 || at.dayOfYear() > 366) return NEVER;
+            dayOfYear = at.dayOfYear().intValue();
+        }
+        return new CompiledSchedule(Kind.AT, zone, minutes, hours, daysOfWeek, daysOfMonth, dayOfYear, 0L, 0L, 0L, 0, 0);
+    }
+
+    static private CompiledSchedule compileEvery(Every every, ZoneId zone) {
+        if(! every.opt().startingAt().isPresent()) {
+            return NEVER;
+        }
+        LocalDateTime startingAt = every.startingAt().withNano(0);
+        long anchor = startingAt.toEpochSecond(ZoneOffset.UTC);
+
+        if(every.opt().seconds().isPresent()) {
+            return fixed(Kind.EVERY_SECONDS, zone, anchor, every.seconds());
+        }
+        if(every.opt().minutes().isPresent()) {
+            return fixed(Kind.EVERY_FIXED, zone, anchor, every.minutes() * 60L);
+        }
+        if(every.opt().hours().isPresent()) {
+            return fixed(Kind.EVERY_FIXED, zone, anchor, every.hours() * 3600L);
+        }
+        if(every.opt().days().isPresent()) {
+            return fixed(Kind.EVERY_FIXED, zone, anchor, every.days() * 86400L);
+        }
+        if(every.opt().months().isPresent()) {
+            return monthly(zone, startingAt, every.months());
+        }
+        if(every.opt().years().isPresent()) {
+            return monthly(zone, startingAt, every.years() * 12L);
+        }
+        return NEVER;
+    }
+
+    static private CompiledSchedule fixed(Kind kind, ZoneId zone, long anchor, long periodSeconds) {
+        if(periodSeconds <= 0) {
+            return NEVER;
+        }
+        return new CompiledSchedule(kind, zone, 0L, 0, 0, 0L, 0, anchor, periodSeconds, 0L, 0, 0);
+    }
+
+    static private CompiledSchedule monthly(ZoneId zone, LocalDateTime startingAt, long periodMonths) {
+        if(periodMonths <= 0) {
+            return NEVER;
+        }
+        long anchorMonth = startingAt.getYear() * 12L + startingAt.getMonthValue() - 1;
+        return new CompiledSchedule(Kind.EVERY_MONTHS, zone, 0L, 0, 0, 0L, 0, 0L, periodMonths, anchorMonth,
+                startingAt.getDayOfMonth(), startingAt.toLocalTime().toSecondOfDay());
+    }
+
+    private final Kind kind;
+    private final ZoneId zone;
+
+    private final long minutes;
+    private final int hours;
+    private final int daysOfWeek;
+    private final long daysOfMonth;
+    private final int dayOfYear;
+
+    private final long anchor;
+    private final long period;
+    private final long anchorMonth;
+    private final int anchorDayOfMonth;
+    private final int anchorSecondOfDay;
+
+    private CompiledSchedule(Kind kind, ZoneId zone, long minutes, int hours, int daysOfWeek, long daysOfMonth, int dayOfYear, long anchor, long period, long anchorMonth, int anchorDayOfMonth, int anchorSecondOfDay) {
+        this.kind = kind;
+        this.zone = zone;
+        this.minutes = minutes;
+        this.hours = hours;
+        this.daysOfWeek = daysOfWeek;
+        this.daysOfMonth = daysOfMonth;
+        this.dayOfYear = dayOfYear;
+        this.anchor = anchor;
+        this.period = period;
+        this.anchorMonth = anchorMonth;
+        this.anchorDayOfMonth = anchorDayOfMonth;
+        this.anchorSecondOfDay = anchorSecondOfDay;
+    }
+
+    public Kind kind() {
+        return kind;
+    }
+
+    public ZoneId zone() {
+        return zone;
+    }
+
+    public long minutes() {
+        return minutes;
+    }
+
+    public int hours() {
+        return hours;
+    }
+
+    public int daysOfWeek() {
+        return daysOfWeek;
+    }
+
+    public long daysOfMonth() {
+        return daysOfMonth;
+    }
+
+    public int dayOfYear() {
+        return dayOfYear;
+    }
+
+    public boolean matches(LocalTick tick, boolean secondsPrecision) {
+        switch (this.kind) {
+            case AT:
+                return (this.minutes >>> tick.minute & 1L) != 0L
+                        && (this.hours >>> tick.hour & 1) != 0
+                        && (this.daysOfWeek >>> (tick.dayOfWeek - 1) & 1) != 0
+                        && (this.daysOfMonth >>> tick.dayOfMonth & 1L) != 0L
+                        && (this.dayOfYear == ANY_DAY_OF_YEAR || this.dayOfYear == tick.dayOfYear);
+            case EVERY_SECONDS:
+                return secondsPrecision && Math.floorMod(tick.epochSecond - this.anchor, this.period) == 0L;
+            case EVERY_FIXED:
+                if(secondsPrecision) {
+                    return Math.floorMod(tick.epochSecond - this.anchor, this.period) == 0L;
+                } else {
+                    return Math.floorMod(Math.floorDiv(tick.epochSecond, 60L) - Math.floorDiv(this.anchor, 60L), this.period / 60L) == 0L;
+                }
+            case EVERY_MONTHS:
+                if(tick.dayOfMonth != this.anchorDayOfMonth) {
+                    return false;
+                }
+                if(secondsPrecision ? tick.secondOfDay != this.anchorSecondOfDay : tick.secondOfDay / 60 != this.anchorSecondOfDay / 60) {
+                    return false;
+                }
+                return Math.floorMod(tick.monthIndex - this.anchorMonth, this.period) == 0L;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledSchedule{" +
+                "kind=" + kind +
+                ", zone=" + zone +
+                '}';
+    }
+}
@@ -5,13 +5,15 @@ import org.codingmatters.poom.crons.crontab.api.types.taskspec.scheduled.At;
 import org.codingmatters.poom.crons.domain.selector.expression.EveryDateTimeTaskSelector;
 import org.codingmatters.poom.services.logging.CategorizedLogger;
 import org.codingmatters.poom.services.support.Env;
-import org.codingmatters.poom.services.support.date.UTC;
 
 import java.time.DayOfWeek;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DateTimeTaskSelector implements TaskSelector {
     static private final CategorizedLogger log = CategorizedLogger.getLogger(DateTimeTaskSelector.class);
@@ -22,6 +24,10 @@ public class DateTimeTaskSelector implements TaskSelector {
                     .asString()
     );
 
+    public static TimeZone defaultTimeZone() {
+        return DEFAULT_DEFAULT_TZ;
+    }
+
     public static DateTimeTaskSelector minutesPrecision(LocalDateTime atTime, TimeZone defaultTimeZone) {
         return new DateTimeTaskSelector(atTime, ChronoUnit.MINUTES, defaultTimeZone);
     }
@@ -39,12 +45,14 @@ public class DateTimeTaskSelector implements TaskSelector {
     private final LocalDateTime atTime;
     private final ChronoUnit precision;
     private final EveryDateTimeTaskSelector everyTaskSelector;
-    private final TimeZone defaultTimeZone;
+    private final ZoneId defaultZone;
+
+    private final Map<ZoneId, LocalTick> ticks = new ConcurrentHashMap<>();
 
     private DateTimeTaskSelector(LocalDateTime atTime, ChronoUnit precision, TimeZone defaultTimeZone) {
         this.atTime = atTime;
         this.precision = precision;
-        this.defaultTimeZone = defaultTimeZone;
+        this.defaultZone = defaultTimeZone.toZoneId();
 
         if(!Arrays.asList(ChronoUnit.MINUTES, ChronoUnit.SECONDS).contains(precision)) {
             throw new InstantiationError("precision : " + precision + " is not supported");
@@ -55,26 +63,44 @@ public class DateTimeTaskSelector implements TaskSelector {
 
     @Override
     public boolean selectable(TaskSpec spec) {
-        TimeZone tz = this.taskTimeZone(spec);
+        LocalDateTime now = this.localTick(this.taskZone(spec)).local;
         if(spec.opt().scheduled().at().isPresent()) {
-            return this.selectableAt(spec.scheduled().at(), tz);
+            return this.selectableAt(spec.scheduled().at(), now);
         }
         if(spec.opt().scheduled().every().isPresent()) {
-            return this.everyTaskSelector.selectable(spec.scheduled().every(), tz);
+            return this.everyTaskSelector.selectable(spec.scheduled().every(), now);
         }
         return false;
     }
 
-    private TimeZone taskTimeZone(TaskSpec spec) {
+    @Override
+    public boolean selectable(CompiledSchedule schedule, TaskSpec spec) {
+        if(schedule == null) {
+            return this.selectable(spec);
+        }
+        if(schedule.kind() == CompiledSchedule.Kind.NEVER) {
+            return false;
+        }
+        return schedule.matches(this.localTick(schedule.zone() != null ? schedule.zone() : this.defaultZone), this.precision == ChronoUnit.SECONDS);
+    }
+
+    private LocalTick localTick(ZoneId zone) {
+        LocalTick tick = this.ticks.get(zone);
+        if(tick == null) {
+            tick = this.ticks.computeIfAbsent(zone, z -> LocalTick.of(this.atTime, z));
+        }
+        return tick;
+    }
+
+    private ZoneId taskZone(TaskSpec spec) {
         if(spec.opt().timezone().isPresent()) {
-            return TimeZone.getTimeZone(spec.timezone());
+            return TaskZones.zone(spec.timezone());
         } else {
-            return this.defaultTimeZone;
+            return this.defaultZone;
         }
     }
 
-    private boolean selectableAt(At at, TimeZone tz) {
-        LocalDateTime now = UTC.at(this.atTime, tz);
+    private boolean selectableAt(At at, LocalDateTime now) {
         if(at.opt().dayOfWeek().isPresent() && ! this.sameDayOfWeek(at.dayOfWeek(), now.getDayOfWeek())) {
             return false;
         }
@@ -0,0 +1,46 @@
+package org.codingmatters.poom.crons.domain.selector;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+public final class LocalTick {
+
+    static public LocalTick of(LocalDateTime utcAt, ZoneId zone) {
+        return new LocalTick(zone, LocalDateTime.ofInstant(utcAt.toInstant(ZoneOffset.UTC), zone));
+    }
+
+    public final ZoneId zone;
+    public final LocalDateTime local;
+    public final long epochSecond;
+    public final long monthIndex;
+    public final int secondOfDay;
+    public final int second;
+    public final int minute;
+    public final int hour;
+    public final int dayOfWeek;
+    public final int dayOfMonth;
+    public final int dayOfYear;
+
+    private LocalTick(ZoneId zone, LocalDateTime local) {
+        this.zone = zone;
+        this.local = local;
+        this.epochSecond = local.toEpochSecond(ZoneOffset.UTC);
+        this.monthIndex = local.getYear() * 12L + local.getMonthValue() - 1;
+        this.secondOfDay = local.toLocalTime().toSecondOfDay();
+        this.second = local.getSecond();
+        this.minute = local.getMinute();
+        this.hour = local.getHour();
+        this.dayOfWeek = local.getDayOfWeek().getValue();
+        this.dayOfMonth = local.getDayOfMonth();
+        this.dayOfYear = local.getDayOfYear();
+    }
+
+    @Override
+    public String toString() {
+        return "LocalTick{" +
+                "zone=" + zone +
+                ", epochSecond=" + epochSecond +
+                '}';
+    }
+}
@@ -0,0 +1,214 @@
+package org.codingmatters.poom.crons.domain.selector;
+
+import org.codingmatters.poom.crons.crontab.api.types.TaskSpec;
+import org.codingmatters.poom.crons.crontab.api.types.taskspec.scheduled.At;
+import org.codingmatters.poom.crons.crontab.api.types.taskspec.scheduled.Every;
+
+import java.time.*;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.TimeZone;
+
+public class NextOccurrence {
+    static private final int MAX_ITERATIONS = 1000;
+
+    public static NextOccurrence minutesPrecision() {
+        return minutesPrecision(DateTimeTaskSelector.defaultTimeZone());
+    }
+    public static NextOccurrence minutesPrecision(TimeZone defaultTimeZone) {
+        return new NextOccurrence(ChronoUnit.MINUTES, defaultTimeZone);
+    }
+
+    public static NextOccurrence secondsPrecision() {
+        return secondsPrecision(DateTimeTaskSelector.defaultTimeZone());
+    }
+    public static NextOccurrence secondsPrecision(TimeZone defaultTimeZone) {
+        return new NextOccurrence(ChronoUnit.SECONDS, defaultTimeZone);
+    }
+
+    private final ChronoUnit precision;
+    private final ZoneId defaultZone;
+
+    public NextOccurrence(ChronoUnit precision, TimeZone defaultTimeZone) {
+        if(!Arrays.asList(ChronoUnit.MINUTES, ChronoUnit.SECONDS).contains(precision)) {
+            throw new InstantiationError("precision : " + precision + " is not supported");
+        }
+        this.precision = precision;
+        this.defaultZone = defaultTimeZone.toZoneId();
+    }
+
+    public Optional<Instant> nextOccurrence(TaskSpec spec, Instant after) {
+        if(spec == null || ! spec.opt().scheduled().isPresent()) {
+            return Optional.empty();
+        }
+        ZoneRules rules = this.taskZone(spec).getRules();
+        Instant from = after.truncatedTo(this.precision).plus(1, this.precision);
+
+        LocalDateTime local = LocalDateTime.ofInstant(from, rules.getOffset(from));
+        Optional<Instant> secondPass = this.overlapSecondPass(spec, from, local, rules);
+        for (int i = 0; i < MAX_ITERATIONS; i++) {
+            Optional<LocalDateTime> next = this.nextLocal(spec, local);
+            if(! next.isPresent()) {
+                return secondPass;
+            }
+            List<ZoneOffset> offsets = rules.getValidOffsets(next.get());
+            if(offsets.isEmpty()) {
+                local = rules.getTransition(next.get()).getDateTimeAfter();
+                continue;
+            }
+            for (ZoneOffset offset : offsets) {
+                Instant candidate = next.get().toInstant(offset);
+                if(! candidate.isBefore(from)) {
+                    return Optional.of(secondPass.isPresent() && secondPass.get().isBefore(candidate) ? secondPass.get() : candidate);
+                }
+            }
+            local = next.get().plus(1, this.precision);
+        }
+        return secondPass;
+    }
+
+    public Optional<LocalDateTime> nextOccurrence(TaskSpec spec, LocalDateTime utcAfter) {
+        return this.nextOccurrence(spec, utcAfter.toInstant(ZoneOffset.UTC))
+                .map(instant -> LocalDateTime.ofInstant(instant, ZoneOffset.UTC));
+    }
+
+    public LocalDateTime atPrecision(LocalDateTime dt) {
+        if(this.precision.equals(ChronoUnit.MINUTES)) {
+            return dt.withNano(0).withSecond(0);
+        } else {
+            return dt.withNano(0);
+        }
+    }
+
+    private ZoneId taskZone(TaskSpec spec) {
+        if(spec.opt().timezone().isPresent()) {
+            return TaskZones.zone(spec.timezone());
+        } else {
+            return this.defaultZone;
+        }
+    }
+
+    private Optional<Instant> overlapSecondPass(TaskSpec spec, Instant from, LocalDateTime local, ZoneRules rules) {
+        ZoneOffsetTransition transition = rules.getTransition(local);
+        if(transition == null || ! transition.isOverlap() || ! rules.getOffset(from).equals(transition.getOffsetBefore())) {
+            return Optional.empty();
+        }
+        Optional<LocalDateTime> next = this.nextLocal(spec, transition.getDateTimeAfter());
+        if(next.isPresent() && next.get().isBefore(transition.getDateTimeBefore())) {
+            return Optional.of(next.get().toInstant(transition.getOffsetAfter()));
+        }
+        return Optional.empty();
+    }
+
+    private Optional<LocalDateTime> nextLocal(TaskSpec spec, LocalDateTime from) {
+        if(spec.opt().scheduled().at().isPresent()) {
+            return this.nextAt(spec.scheduled().at(), from);
+        }
+        if(spec.opt().scheduled().every().isPresent()) {
+            return this.nextEvery(spec.scheduled().every(), from);
+        }
+        return Optional.empty();
+    }
+
+    private Optional<LocalDateTime> nextAt(At at, LocalDateTime from) {
+        LocalDateTime candidate = from;
+        for (int i = 0; i < MAX_ITERATIONS; i++) {
+            if(at.opt().dayOfYear().isPresent() && candidate.getDayOfYear() != at.dayOfYear()) {
+                if(candidate.getDayOfYear() < at.dayOfYear() && at.dayOfYear() <= candidate.toLocalDate().lengthOfYear()) {
+                    candidate = candidate.toLocalDate().withDayOfYear(at.dayOfYear().intValue()).atStartOfDay();
+                } else {
+                    candidate = candidate.toLocalDate().withDayOfYear(1).plusYears(1).atStartOfDay();
+                }
+                continue;
+            }
+            if(at.opt().dayOfMonth().isPresent() && candidate.getDayOfMonth() != at.dayOfMonth()) {
+                if(candidate.getDayOfMonth() < at.dayOfMonth() && at.dayOfMonth() <= candidate.toLocalDate().lengthOfMonth()) {
+                    candidate = candidate.toLocalDate().withDayOfMonth(at.dayOfMonth().intValue()).atStartOfDay();
+                } else {
+                    candidate = candidate.toLocalDate().withDayOfMonth(1).plusMonths(1).atStartOfDay();
+                }
+                continue;
+            }
+            if(at.opt().dayOfWeek().isPresent() && ! DateTimeTaskSelector.sameDayOfWeek(at.dayOfWeek(), candidate.getDayOfWeek())) {
+                candidate = candidate.toLocalDate().with(TemporalAdjusters.next(DayOfWeek.valueOf(at.dayOfWeek().name()))).atStartOfDay();
+                continue;
+            }
+            if(at.opt().hourOfDay().isPresent() && candidate.getHour() != at.hourOfDay()) {
+                if(candidate.getHour() < at.hourOfDay()) {
+                    candidate = candidate.truncatedTo(ChronoUnit.DAYS).withHour(at.hourOfDay().intValue());
+                } else {
+                    candidate = candidate.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+                }
+                continue;
+            }
+            if(at.opt().minuteOfHours().isPresent() && candidate.getMinute() != at.minuteOfHours()) {
+                if(candidate.getMinute() < at.minuteOfHours()) {
+                    candidate = candidate.truncatedTo(ChronoUnit.HOURS).withMinute(at.minuteOfHours().intValue());
+                } else {
+                    candidate = candidate.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+                }
+                continue;
+            }
+            return Optional.of(candidate);
+        }
+        return Optional.empty();
+    }
+
+    private Optional<LocalDateTime> nextEvery(Every every, LocalDateTime from) {
+        if(! every.opt().startingAt().isPresent()) {
+            return Optional.empty();
+        }
+        LocalDateTime startingAt = this.atPrecision(every.startingAt());
+
+        if(every.opt().seconds().isPresent()) {
+            if(this.precision == ChronoUnit.MINUTES) {
+                return Optional.empty();
+            }
+            return this.nextOnFixedPeriod(startingAt, from, every.seconds());
+        }
+        if(every.opt().minutes().isPresent()) {
+            return this.nextOnFixedPeriod(startingAt, from, every.minutes() * 60L);
+        }
+        if(every.opt().hours().isPresent()) {
+            return this.nextOnFixedPeriod(startingAt, from, every.hours() * 3600L);
+        }
+        if(every.opt().days().isPresent()) {
+            return this.nextOnFixedPeriod(startingAt, from, every.days() * 86400L);
+        }
+        if(every.opt().months().isPresent()) {
+            return this.nextOnMonthPeriod(startingAt, from, every.months());
+        }
+        if(every.opt().years().isPresent()) {
+            return this.nextOnMonthPeriod(startingAt, from, every.years() * 12L);
+        }
+        return Optional.empty();
+    }
+
+    private Optional<LocalDateTime> nextOnFixedPeriod(LocalDateTime startingAt, LocalDateTime from, long periodSeconds) {
+        if(periodSeconds <= 0) {
+            return Optional.empty();
+        }
+        long span = ChronoUnit.SECONDS.between(startingAt, from);
+        long periods = -Math.floorDiv(-span, periodSeconds);
+        return Optional.of(startingAt.plusSeconds(periods * periodSeconds));
+    }
+
+    private Optional<LocalDateTime> nextOnMonthPeriod(LocalDateTime startingAt, LocalDateTime from, long periodMonths) {
+        if(periodMonths <= 0) {
+            return Optional.empty();
+        }
+        long periods = Math.floorDiv(ChronoUnit.MONTHS.between(startingAt, from), periodMonths) - 1;
+        for (int i = 0; i < MAX_ITERATIONS; i++, periods++) {
+            LocalDateTime candidate = startingAt.plusMonths(periods * periodMonths);
+            if(candidate.getDayOfMonth() == startingAt.getDayOfMonth() && ! candidate.isBefore(from)) {
+                return Optional.of(candidate);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -5,4 +5,8 @@ import org.codingmatters.poom.crons.crontab.api.types.TaskSpec;
 @FunctionalInterface
 public interface TaskSelector {
     boolean selectable(TaskSpec spec);
+
+    default boolean selectable(CompiledSchedule schedule, TaskSpec spec) {
+        return this.selectable(spec);
+    }
 }
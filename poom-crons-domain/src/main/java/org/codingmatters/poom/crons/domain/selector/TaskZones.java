@@ -0,0 +1,26 @@
+package org.codingmatters.poom.crons.domain.selector;
+
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class TaskZones {
+
+    static private final int MAX_CACHED_ZONES = 1024;
+    static private final Map<String, ZoneId> zones = new ConcurrentHashMap<>();
+
+    static public ZoneId zone(String timezone) {
+        ZoneId result = zones.get(timezone);
+        if(result == null) {
+            result = TimeZone.getTimeZone(timezone).toZoneId();
+            if(zones.size() < MAX_CACHED_ZONES) {
+                zones.putIfAbsent(timezone, result);
+            }
+        }
+        return result;
+    }
+
+    private TaskZones() {
+    }
+}
@@ -20,8 +20,11 @@ public class EveryDateTimeTaskSelector {
     }
 
     public boolean selectable(Every every, TimeZone tz) {
+        return this.selectable(every, UTC.at(this.atTime, tz));
+    }
+
+    public boolean selectable(Every every, LocalDateTime now) {
         LocalDateTime startingAt = this.atPrecision(every.startingAt());
-        LocalDateTime now = UTC.at(this.atTime, tz);
 
         EveryMatcher matcher = new EveryMatcher(now, this.precision);
 
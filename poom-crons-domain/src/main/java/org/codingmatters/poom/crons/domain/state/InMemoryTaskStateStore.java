@@ -0,0 +1,51 @@
+package org.codingmatters.poom.crons.domain.state;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class InMemoryTaskStateStore implements TaskStateStore {
+
+    private final Map<String, Map<String, TaskState>> states = new ConcurrentHashMap<>();
+
+    @Override
+    public TaskState get(String account, String id) {
+        Map<String, TaskState> accountStates = this.states.get(account);
+        return accountStates != null ? accountStates.get(id) : null;
+    }
+
+    @Override
+    public Map<String, TaskState> get(String account, Set<String> ids) {
+        Map<String, TaskState> result = new HashMap<>();
+        Map<String, TaskState> accountStates = this.states.get(account);
+        if(accountStates != null) {
+            for (String id : ids) {
+                TaskState state = accountStates.get(id);
+                if(state != null) {
+                    result.put(id, state);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, TaskState> all(String account) {
+        Map<String, TaskState> accountStates = this.states.get(account);
+        return accountStates != null ? new HashMap<>(accountStates) : new HashMap<>();
+    }
+
+    @Override
+    public void putAll(String account, Map<String, TaskState> states) {
+        this.states.computeIfAbsent(account, a -> new ConcurrentHashMap<>()).putAll(states);
+    }
+
+    @Override
+    public void remove(String account, String id) {
+        Map<String, TaskState> accountStates = this.states.get(account);
+        if(accountStates != null) {
+            accountStates.remove(id);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.codingmatters.poom.crons.domain.state;
+
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.crons.domain.persistence.BatchUpdatableRepository;
+import org.codingmatters.poom.services.domain.entities.Entity;
+import org.codingmatters.poom.services.domain.entities.PagedEntityList;
+import org.codingmatters.poom.services.domain.exceptions.RepositoryException;
+import org.codingmatters.poom.services.domain.repositories.Repository;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+public class RepositoryTaskStateStore implements TaskStateStore {
+
+    private final Function<String, Repository<Task, Void>> repositoryForAccount;
+
+    public RepositoryTaskStateStore(Function<String, Repository<Task, Void>> repositoryForAccount) {
+        this.repositoryForAccount = repositoryForAccount;
+    }
+
+    @Override
+    public TaskState get(String account, String id) throws RepositoryException {
+        Entity<Task> stored = this.repositoryForAccount.apply(account).retrieve(id);
+        return stored != null ? TaskState.of(stored.value()) : null;
+    }
+
+    @Override
+    public Map<String, TaskState> get(String account, Set<String> ids) throws RepositoryException {
+        Repository<Task, Void> repository = this.repositoryForAccount.apply(account);
+        Map<String, TaskState> result = new HashMap<>();
+        for (String id : ids) {
+            Entity<Task> stored = repository.retrieve(id);
+            if(stored != null) {
+                result.put(id, TaskState.of(stored.value()));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, TaskState> all(String account) throws RepositoryException {
+        Repository<Task, Void> repository = this.repositoryForAccount.apply(account);
+        Map<String, TaskState> result = new HashMap<>();
+        long start = 0;
+        PagedEntityList<Task> entities;
+        do {
+            long end = start + 1000 - 1;
+            entities = repository.all(start, end);
+            for (Entity<Task> entity : entities) {
+                result.put(entity.id(), TaskState.of(entity.value()));
+            }
+            start = end + 1;
+        } while(entities.size() == 1000);
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void putAll(String account, Map<String, TaskState> states) throws RepositoryException {
+        Repository<Task, Void> repository = this.repositoryForAccount.apply(account);
+        Map<String, TaskState> missing = new LinkedHashMap<>(states);
+        if(repository instanceof BatchUpdatableRepository) {
+            Map<String, UnaryOperator<Task>> changes = new LinkedHashMap<>();
+            for (Map.Entry<String, TaskState> state : states.entrySet()) {
+                changes.put(state.getKey(), state.getValue()::applyTo);
+            }
+            for (Entity<Task> updated : ((BatchUpdatableRepository<Task>) repository).updateAll(changes)) {
+                missing.remove(updated.id());
+            }
+        } else {
+            for (Map.Entry<String, TaskState> state : states.entrySet()) {
+                Entity<Task> stored = repository.retrieve(state.getKey());
+                if(stored != null) {
+                    repository.update(stored, state.getValue().applyTo(stored.value()));
+                    missing.remove(state.getKey());
+                }
+            }
+        }
+        for (Map.Entry<String, TaskState> state : missing.entrySet()) {
+            repository.createWithId(state.getKey(), state.getValue().applyTo(Task.builder().build()));
+        }
+    }
+
+    @Override
+    public void remove(String account, String id) throws RepositoryException {
+        Repository<Task, Void> repository = this.repositoryForAccount.apply(account);
+        Entity<Task> stored = repository.retrieve(id);
+        if(stored != null) {
+            repository.delete(stored);
+        }
+    }
+}
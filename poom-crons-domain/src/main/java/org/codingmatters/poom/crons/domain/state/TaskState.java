@@ -0,0 +1,66 @@
+package org.codingmatters.poom.crons.domain.state;
+
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+public class TaskState {
+
+    static public TaskState of(Task task) {
+        return new TaskState(task.lastTrig(), task.success(), task.errorCount());
+    }
+
+    private final LocalDateTime lastTrig;
+    private final Boolean success;
+    private final Long errorCount;
+
+    public TaskState(LocalDateTime lastTrig, Boolean success, Long errorCount) {
+        this.lastTrig = lastTrig;
+        this.success = success;
+        this.errorCount = errorCount;
+    }
+
+    public LocalDateTime lastTrig() {
+        return lastTrig;
+    }
+
+    public Boolean success() {
+        return success;
+    }
+
+    public Long errorCount() {
+        return errorCount;
+    }
+
+    public Task applyTo(Task task) {
+        return task
+                .withLastTrig(this.lastTrig)
+                .withSuccess(this.success)
+                .withErrorCount(this.errorCount);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TaskState taskState = (TaskState) o;
+        return Objects.equals(lastTrig, taskState.lastTrig) &&
+                Objects.equals(success, taskState.success) &&
+                Objects.equals(errorCount, taskState.errorCount);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(lastTrig, success, errorCount);
+    }
+
+    @Override
+    public String toString() {
+        return "TaskState{" +
+                "lastTrig=" + lastTrig +
+                ", success=" + success +
+                ", errorCount=" + errorCount +
+                '}';
+    }
+}
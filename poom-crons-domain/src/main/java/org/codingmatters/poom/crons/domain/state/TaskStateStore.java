@@ -0,0 +1,21 @@
+package org.codingmatters.poom.crons.domain.state;
+
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.services.domain.entities.Entity;
+import org.codingmatters.poom.services.domain.exceptions.RepositoryException;
+
+import java.util.Map;
+import java.util.Set;
+
+public interface TaskStateStore {
+    TaskState get(String account, String id) throws RepositoryException;
+    Map<String, TaskState> get(String account, Set<String> ids) throws RepositoryException;
+    Map<String, TaskState> all(String account) throws RepositoryException;
+    void putAll(String account, Map<String, TaskState> states) throws RepositoryException;
+    void remove(String account, String id) throws RepositoryException;
+
+    default Task merged(String account, Entity<Task> task) throws RepositoryException {
+        TaskState state = this.get(account, task.id());
+        return state != null ? state.applyTo(task.value()) : task.value();
+    }
+}
@@ -0,0 +1,68 @@
+package org.codingmatters.poom.crons.domain.tracing;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.ContextKey;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class TickTracing {
+
+    static public final String INSTRUMENTATION_NAME = "org.codingmatters.poom.crons";
+    static private final ContextKey<TickTracing> TRACING = ContextKey.named("poom-crons-tick-tracing");
+
+    static public TickTracing disabled() {
+        return new TickTracing(OpenTelemetry.noop(), 0d);
+    }
+
+    static public TickTracing global(double sampleRate) {
+        if(sampleRate <= 0d) {
+            return disabled();
+        }
+        return new TickTracing(GlobalOpenTelemetry.get(), sampleRate);
+    }
+
+    static public Span start(String name, SpanKind kind) {
+        return start(Context.current(), name, kind);
+    }
+
+    static public Span start(Context context, String name, SpanKind kind) {
+        TickTracing tracing = context.get(TRACING);
+        if(tracing == null) {
+            return Span.getInvalid();
+        }
+        return tracing.tracer.spanBuilder(name).setParent(context).setSpanKind(kind).startSpan();
+    }
+
+    static public void end(Context context) {
+        Span.fromContext(context).end();
+    }
+
+    private final Tracer tracer;
+    private final double sampleRate;
+
+    public TickTracing(OpenTelemetry openTelemetry, double sampleRate) {
+        this.tracer = openTelemetry.getTracer(INSTRUMENTATION_NAME);
+        this.sampleRate = sampleRate;
+    }
+
+    public Context tick(LocalDateTime at) {
+        if(this.sampleRate <= 0d || ThreadLocalRandom.current().nextDouble() >= this.sampleRate) {
+            return Context.root();
+        }
+        Span span = this.tracer.spanBuilder("tick")
+                .setNoParent()
+                .setAttribute("poom.crons.tick.at", at.toString())
+                .startSpan();
+        return Context.root().with(span).with(TRACING, this);
+    }
+
+    public double sampleRate() {
+        return this.sampleRate;
+    }
+}
@@ -0,0 +1,19 @@
+package org.codingmatters.poom.crons.domain.tracing;
+
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Context;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+
+public class TraceContextInterceptor implements Interceptor {
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request.Builder request = chain.request().newBuilder();
+        W3CTraceContextPropagator.getInstance().inject(Context.current(), request, (builder, name, value) -> builder.header(name, value));
+        return chain.proceed(request.build());
+    }
+}
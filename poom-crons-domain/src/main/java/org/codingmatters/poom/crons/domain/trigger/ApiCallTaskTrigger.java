@@ -1,12 +1,18 @@
 package org.codingmatters.poom.crons.domain.trigger;
 
 import com.fasterxml.jackson.core.JsonFactory;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
 import org.codingmatters.poom.crons.cronned.api.TaskEventTriggeredPostRequest;
 import org.codingmatters.poom.crons.cronned.api.TaskEventTriggeredPostResponse;
 import org.codingmatters.poom.crons.cronned.client.PoomCronnedClient;
 import org.codingmatters.poom.crons.cronned.client.PoomCronnedRequesterClient;
 import org.codingmatters.poom.crons.crontab.api.types.Task;
 import org.codingmatters.poom.crons.crontab.api.types.TaskSpec;
+import org.codingmatters.poom.crons.domain.tracing.TickTracing;
 import org.codingmatters.poom.services.logging.CategorizedLogger;
 import org.codingmatters.poom.services.support.date.UTC;
 import org.codingmatters.rest.api.client.UrlProvider;
@@ -16,26 +22,70 @@ import org.codingmatters.value.objects.values.ObjectValue;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
-public class ApiCallTaskTrigger implements TaskTrigger {
+public class ApiCallTaskTrigger implements TaskTrigger, AsyncTaskTrigger {
     static private CategorizedLogger log = CategorizedLogger.getLogger(ApiCallTaskTrigger.class);
 
+    static private final AtomicInteger callThreadCount = new AtomicInteger();
+    static private final ExecutorService defaultCallExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "task-trigger-" + callThreadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final Function<TaskSpec, PoomCronnedClient> clientProvider;
+    private final Executor callExecutor;
 
     public ApiCallTaskTrigger(Function<TaskSpec, PoomCronnedClient> clientProvider) {
+        this(clientProvider, defaultCallExecutor);
+    }
+
+    public ApiCallTaskTrigger(Function<TaskSpec, PoomCronnedClient> clientProvider, Executor callExecutor) {
         this.clientProvider = clientProvider;
+        this.callExecutor = callExecutor;
+    }
+
+    public ApiCallTaskTrigger(JsonFactory jsonFactory) {
+        this(TriggerHttpClients.fromEnv(), jsonFactory);
     }
 
     public ApiCallTaskTrigger(HttpClientWrapper clientWrapper, JsonFactory jsonFactory) {
-        this(spec -> {
-            UrlProvider urlProvider = () -> spec.url();
+        this(clientWrapper, jsonFactory, CronnedClientCache.DEFAULT_MAX_SIZE);
+    }
+
+    public ApiCallTaskTrigger(HttpClientWrapper clientWrapper, JsonFactory jsonFactory, int clientCacheSize) {
+        this(new CronnedClientCache(url -> {
+            UrlProvider urlProvider = () -> url;
             return new PoomCronnedRequesterClient(new OkHttpRequesterFactory(clientWrapper, urlProvider), jsonFactory, urlProvider);
-        });
+        }, clientCacheSize));
+    }
+
+    @Override
+    public CompletionStage<TriggerResult> trigAsync(Task task, LocalDateTime triggedAt, String eventId) {
+        return CompletableFuture.supplyAsync(() -> this.trig(task, triggedAt, eventId), Context.current().wrap(this.callExecutor));
     }
 
     @Override
     public TriggerResult trig(Task task, LocalDateTime triggedAt, String eventId) {
+        Span span = TickTracing.start("trigger", SpanKind.CLIENT)
+                .setAttribute("url.full", task.spec() != null ? task.spec().url() : null)
+                .setAttribute("poom.crons.task.id", task.id())
+                .setAttribute("poom.crons.event.id", eventId);
+        try (Scope scope = span.makeCurrent()) {
+            TriggerResult result = this.call(task, triggedAt, eventId);
+            if(! result.success()) {
+                span.setStatus(StatusCode.ERROR, result.gone() ? "gone" : "failed");
+            }
+            return result;
+        } finally {
+            span.end();
+        }
+    }
+
+    private TriggerResult call(Task task, LocalDateTime triggedAt, String eventId) {
         PoomCronnedClient client = this.clientProvider.apply(task.spec());
         if(client == null) {
             log.error("[GRAVE] failed getting API client while triggering with task spec : " + task
@@ -0,0 +1,21 @@
+package org.codingmatters.poom.crons.domain.trigger;
+
+import io.opentelemetry.context.Context;
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+@FunctionalInterface
+public interface AsyncTaskTrigger {
+    CompletionStage<TriggerResult> trigAsync(Task task, LocalDateTime triggedAt, String eventId);
+
+    static AsyncTaskTrigger of(TaskTrigger trigger, Executor executor) {
+        if(trigger instanceof AsyncTaskTrigger) {
+            return (AsyncTaskTrigger) trigger;
+        }
+        return (task, triggedAt, eventId) -> CompletableFuture.supplyAsync(() -> trigger.trig(task, triggedAt, eventId), Context.current().wrap(executor));
+    }
+}
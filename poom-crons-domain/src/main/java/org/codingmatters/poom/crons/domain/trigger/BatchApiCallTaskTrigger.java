@@ -0,0 +1,207 @@
+package org.codingmatters.poom.crons.domain.trigger;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Scope;
+import org.codingmatters.poom.crons.cronned.api.TaskEventsTriggeredBatchPostRequest;
+import org.codingmatters.poom.crons.cronned.api.TaskEventsTriggeredBatchPostResponse;
+import org.codingmatters.poom.crons.cronned.api.types.TriggeredEvent;
+import org.codingmatters.poom.crons.cronned.api.types.TriggeredEventStatus;
+import org.codingmatters.poom.crons.cronned.client.PoomCronnedClient;
+import org.codingmatters.poom.crons.cronned.client.PoomCronnedRequesterClient;
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.crons.crontab.api.types.TaskSpec;
+import org.codingmatters.poom.crons.domain.tracing.TickTracing;
+import org.codingmatters.poom.services.logging.CategorizedLogger;
+import org.codingmatters.poom.services.support.Env;
+import org.codingmatters.rest.api.client.UrlProvider;
+import org.codingmatters.rest.api.client.okhttp.HttpClientWrapper;
+import org.codingmatters.rest.api.client.okhttp.OkHttpRequesterFactory;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+public class BatchApiCallTaskTrigger implements TaskTrigger, BatchTaskTrigger {
+    static private CategorizedLogger log = CategorizedLogger.getLogger(BatchApiCallTaskTrigger.class);
+
+    static public final String CRON_BATCH_RETRY_SECONDS = "CRON_BATCH_RETRY_SECONDS";
+    static public final String CRON_BATCH_RETRY_SECONDS_DEFAULT = "600";
+
+    private final Function<TaskSpec, PoomCronnedClient> clientProvider;
+    private final ApiCallTaskTrigger singleTrigger;
+    private final Duration batchRetry;
+    private final Map<String, Instant> batchUnsupportedUntil = new ConcurrentHashMap<>();
+    private Clock clock = Clock.systemUTC();
+
+    public BatchApiCallTaskTrigger(Function<TaskSpec, PoomCronnedClient> clientProvider) {
+        this(clientProvider, Duration.ofSeconds(Env.optional(CRON_BATCH_RETRY_SECONDS).orElse(new Env.Var(CRON_BATCH_RETRY_SECONDS_DEFAULT)).asLong()));
+    }
+
+    public BatchApiCallTaskTrigger(Function<TaskSpec, PoomCronnedClient> clientProvider, Duration batchRetry) {
+        this.clientProvider = clientProvider;
+        this.singleTrigger = new ApiCallTaskTrigger(clientProvider);
+        this.batchRetry = batchRetry;
+    }
+
+    public BatchApiCallTaskTrigger(JsonFactory jsonFactory) {
+        this(TriggerHttpClients.fromEnv(), jsonFactory);
+    }
+
+    public BatchApiCallTaskTrigger(HttpClientWrapper clientWrapper, JsonFactory jsonFactory) {
+        this(clientWrapper, jsonFactory, CronnedClientCache.DEFAULT_MAX_SIZE);
+    }
+
+    public BatchApiCallTaskTrigger(HttpClientWrapper clientWrapper, JsonFactory jsonFactory, int clientCacheSize) {
+        this(new CronnedClientCache(url -> {
+            UrlProvider urlProvider = () -> url;
+            return new PoomCronnedRequesterClient(new OkHttpRequesterFactory(clientWrapper, urlProvider), jsonFactory, urlProvider);
+        }, clientCacheSize));
+    }
+
+    public BatchApiCallTaskTrigger usingClock(Clock clock) {
+        this.clock = clock;
+        return this;
+    }
+
+    @Override
+    public TriggerResult trig(Task task, LocalDateTime triggedAt, String eventId) {
+        return this.singleTrigger.trig(task, triggedAt, eventId);
+    }
+
+    @Override
+    public List<TriggerResult> trigBatch(List<Task> tasks, LocalDateTime triggedAt, String eventId) {
+        if(tasks.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if(tasks.size() == 1) {
+            return Collections.singletonList(this.trig(tasks.get(0), triggedAt, eventId));
+        }
+        if(! this.batchSupported(tasks.get(0).spec().url())) {
+            return this.oneByOne(tasks, triggedAt, eventId);
+        }
+
+        Span span = TickTracing.start("trigger.batch", SpanKind.CLIENT)
+                .setAttribute("url.full", tasks.get(0).spec().url())
+                .setAttribute("poom.crons.event.id", eventId)
+                .setAttribute("poom.crons.batch.size", tasks.size());
+        try (Scope scope = span.makeCurrent()) {
+            return this.callBatch(tasks, triggedAt, eventId);
+        } finally {
+            span.end();
+        }
+    }
+
+    private List<TriggerResult> callBatch(List<Task> tasks, LocalDateTime triggedAt, String eventId) {
+        PoomCronnedClient client = this.clientProvider.apply(tasks.get(0).spec());
+        if(client == null) {
+            log.error("[GRAVE] failed getting API client while triggering batch for url : " + tasks.get(0).spec().url());
+            return this.all(tasks, new TriggerResult(false, false));
+        }
+
+        List<TriggeredEvent> events = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            events.add(TriggeredEvent.builder()
+                    .poomTaskId(task.id())
+                    .poomEventId(eventId)
+                    .poomTriggedAt(triggedAt)
+                    .payload(task.spec().payload())
+                    .build());
+        }
+
+        try {
+            TaskEventsTriggeredBatchPostResponse response = client.taskEventsTriggeredBatch().post(TaskEventsTriggeredBatchPostRequest.builder()
+                    .payload(events)
+                    .build());
+
+            if(response.opt().status200().isPresent()) {
+                log.debug("triggered batch of {} tasks for {}", tasks.size(), tasks.get(0).spec().url());
+                return this.itemResults(tasks, response.status200().payload());
+            } else if(response.opt().status410().isPresent()) {
+                log.info("cronned service signaled as gone while triggering batch for {}", tasks.get(0).spec().url());
+                return this.all(tasks, new TriggerResult(false, true));
+            } else if(response.opt().status500().isPresent()) {
+                log.error("error while triggering batch for {} : {}", tasks.get(0).spec().url(), response);
+                return this.all(tasks, new TriggerResult(false, false));
+            } else {
+                log.info("cronned service at {} does not support batches, falling back to one call per task for {}", tasks.get(0).spec().url(), this.batchRetry);
+                this.batchUnsupportedUntil.put(tasks.get(0).spec().url(), this.clock.instant().plus(this.batchRetry));
+                return this.oneByOne(tasks, triggedAt, eventId);
+            }
+        } catch (IOException e) {
+            log.error("failed triggering batch for url : " + tasks.get(0).spec().url(), e);
+            return this.all(tasks, new TriggerResult(false, false));
+        } catch (Exception e) {
+            log.error("unexpected error triggering batch for url : " + tasks.get(0).spec().url(), e);
+            return this.all(tasks, new TriggerResult(false, false));
+        }
+    }
+
+    private boolean batchSupported(String url) {
+        Instant unsupportedUntil = this.batchUnsupportedUntil.get(url);
+        if(unsupportedUntil == null) {
+            return true;
+        }
+        if(this.clock.instant().isBefore(unsupportedUntil)) {
+            return false;
+        }
+        this.batchUnsupportedUntil.remove(url, unsupportedUntil);
+        return true;
+    }
+
+    private List<TriggerResult> itemResults(List<Task> tasks, List<TriggeredEventStatus> statuses) {
+        Map<String, TriggeredEventStatus> byTaskId = new HashMap<>();
+        if(statuses != null) {
+            for (TriggeredEventStatus status : statuses) {
+                if(status != null && status.poomTaskId() != null) {
+                    byTaskId.put(status.poomTaskId(), status);
+                }
+            }
+        }
+
+        Set<String> taskIds = new HashSet<>();
+        for (Task task : tasks) {
+            taskIds.add(task.id());
+        }
+        boolean byId = ! taskIds.contains(null) && taskIds.size() == tasks.size();
+
+        List<TriggerResult> results = new ArrayList<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            TriggeredEventStatus status = byId ? byTaskId.get(task.id())
+                    : statuses != null && i < statuses.size() ? statuses.get(i)
+                    : null;
+            if(status == null || status.status() == null) {
+                log.error("no status returned for task {} in batch for {}", task.id(), task.spec().url());
+                results.add(new TriggerResult(false, false));
+            } else if(status.status() == TriggeredEventStatus.Status.DONE) {
+                results.add(new TriggerResult(true));
+            } else if(status.status() == TriggeredEventStatus.Status.GONE) {
+                log.info("cronned service signaled task {} as gone : {}", task.id(), status.description());
+                results.add(new TriggerResult(false, true));
+            } else {
+                log.error("error while triggering task {} in batch : {}", task.id(), status.description());
+                results.add(new TriggerResult(false, false));
+            }
+        }
+        return results;
+    }
+
+    private List<TriggerResult> oneByOne(List<Task> tasks, LocalDateTime triggedAt, String eventId) {
+        List<TriggerResult> results = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            results.add(this.trig(task, triggedAt, eventId));
+        }
+        return results;
+    }
+
+    private List<TriggerResult> all(List<Task> tasks, TriggerResult result) {
+        return new ArrayList<>(Collections.nCopies(tasks.size(), result));
+    }
+}
@@ -0,0 +1,11 @@
+package org.codingmatters.poom.crons.domain.trigger;
+
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@FunctionalInterface
+public interface BatchTaskTrigger {
+    List<TriggerResult> trigBatch(List<Task> tasks, LocalDateTime triggedAt, String eventId);
+}
@@ -0,0 +1,53 @@
+package org.codingmatters.poom.crons.domain.trigger;
+
+import org.codingmatters.poom.crons.cronned.client.PoomCronnedClient;
+import org.codingmatters.poom.crons.crontab.api.types.TaskSpec;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+public class CronnedClientCache implements Function<TaskSpec, PoomCronnedClient> {
+
+    static public final int DEFAULT_MAX_SIZE = 1024;
+
+    private final Function<String, PoomCronnedClient> clientForUrl;
+    private final Map<String, PoomCronnedClient> clients;
+
+    public CronnedClientCache(Function<String, PoomCronnedClient> clientForUrl) {
+        this(clientForUrl, DEFAULT_MAX_SIZE);
+    }
+
+    public CronnedClientCache(Function<String, PoomCronnedClient> clientForUrl, int maxSize) {
+        this.clientForUrl = clientForUrl;
+        this.clients = new LinkedHashMap<String, PoomCronnedClient>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PoomCronnedClient> eldest) {
+                return this.size() > maxSize;
+            }
+        };
+    }
+
+    @Override
+    public PoomCronnedClient apply(TaskSpec spec) {
+        if(spec == null || spec.url() == null) {
+            return null;
+        }
+        synchronized (this.clients) {
+            PoomCronnedClient client = this.clients.get(spec.url());
+            if(client == null) {
+                client = this.clientForUrl.apply(spec.url());
+                if(client != null) {
+                    this.clients.put(spec.url(), client);
+                }
+            }
+            return client;
+        }
+    }
+
+    public int size() {
+        synchronized (this.clients) {
+            return this.clients.size();
+        }
+    }
+}
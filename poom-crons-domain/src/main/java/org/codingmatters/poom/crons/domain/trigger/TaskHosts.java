@@ -0,0 +1,21 @@
+package org.codingmatters.poom.crons.domain.trigger;
+
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+
+import java.net.URI;
+
+public class TaskHosts {
+
+    static public String host(Task task) {
+        String url = task.opt().spec().url().orElse("");
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host : url;
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    private TaskHosts() {
+    }
+}
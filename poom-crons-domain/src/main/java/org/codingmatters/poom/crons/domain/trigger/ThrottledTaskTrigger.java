@@ -0,0 +1,130 @@
+package org.codingmatters.poom.crons.domain.trigger;
+
+import io.opentelemetry.context.Context;
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.services.logging.CategorizedLogger;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+public class ThrottledTaskTrigger implements AsyncTaskTrigger {
+    static private final CategorizedLogger log = CategorizedLogger.getLogger(ThrottledTaskTrigger.class);
+
+    private final TaskTrigger trigger;
+    private final Executor executor;
+    private final int maxInFlight;
+    private final int maxPerHost;
+
+    private final Map<String, Host> hosts = new HashMap<>();
+    private final Deque<Host> ready = new ArrayDeque<>();
+    private int inFlight = 0;
+
+    public ThrottledTaskTrigger(TaskTrigger trigger, Executor executor, int maxInFlight, int maxPerHost) {
+        this.trigger = trigger;
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.maxPerHost = maxPerHost;
+    }
+
+    @Override
+    public CompletionStage<TriggerResult> trigAsync(Task task, LocalDateTime triggedAt, String eventId) {
+        Pending pending = new Pending(task, triggedAt, eventId, Context.current());
+        synchronized (this) {
+            Host host = this.hosts.computeIfAbsent(TaskHosts.host(task), Host::new);
+            host.waiting.add(pending);
+            this.markReady(host);
+        }
+        this.dispatch();
+        return pending.result;
+    }
+
+    private void dispatch() {
+        List<Pending> started = new ArrayList<>();
+        synchronized (this) {
+            while (this.inFlight < this.maxInFlight && ! this.ready.isEmpty()) {
+                Host host = this.ready.poll();
+                host.ready = false;
+                Pending pending = host.waiting.poll();
+                pending.host = host;
+                host.inFlight++;
+                this.inFlight++;
+                this.markReady(host);
+                started.add(pending);
+            }
+        }
+        for (Pending pending : started) {
+            try {
+                this.executor.execute(pending.context.wrap(() -> this.run(pending)));
+            } catch (RejectedExecutionException e) {
+                log.warn("trigger executor rejected task, task not triggered : {}", pending.task.id());
+                this.release(pending.host);
+                pending.result.complete(new TriggerResult(false, false));
+            }
+        }
+    }
+
+    private void run(Pending pending) {
+        try {
+            pending.result.complete(this.trigger.trig(pending.task, pending.triggedAt, pending.eventId));
+        } catch (Throwable e) {
+            pending.result.completeExceptionally(e);
+            if(e instanceof Error) {
+                throw (Error) e;
+            }
+        } finally {
+            this.release(pending.host);
+        }
+    }
+
+    private void release(Host host) {
+        synchronized (this) {
+            host.inFlight--;
+            this.inFlight--;
+            this.markReady(host);
+            if(host.inFlight == 0 && host.waiting.isEmpty()) {
+                this.hosts.remove(host.name);
+            }
+        }
+        this.dispatch();
+    }
+
+    private void markReady(Host host) {
+        if(! host.ready && ! host.waiting.isEmpty() && host.inFlight < this.maxPerHost) {
+            host.ready = true;
+            this.ready.add(host);
+        }
+    }
+
+    static private class Host {
+        private final String name;
+        private final Deque<Pending> waiting = new ArrayDeque<>();
+        private int inFlight = 0;
+        private boolean ready = false;
+
+        Host(String name) {
+            this.name = name;
+        }
+    }
+
+    static private class Pending {
+        private final Task task;
+        private final LocalDateTime triggedAt;
+        private final String eventId;
+        private final Context context;
+        private final CompletableFuture<TriggerResult> result = new CompletableFuture<>();
+        private Host host;
+
+        Pending(Task task, LocalDateTime triggedAt, String eventId, Context context) {
+            this.task = task;
+            this.triggedAt = triggedAt;
+            this.eventId = eventId;
+            this.context = context;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.codingmatters.poom.crons.domain.trigger;
+
+import org.codingmatters.poom.services.logging.CategorizedLogger;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TriggerExecutors {
+    static private final CategorizedLogger log = CategorizedLogger.getLogger(TriggerExecutors.class);
+
+    static private final AtomicInteger threadCount = new AtomicInteger();
+
+    static public ExecutorService virtualThreadPerTask() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.warn("virtual threads are not available on this jvm ({}), falling back to a cached platform thread pool", System.getProperty("java.version"));
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "task-trigger-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private TriggerExecutors() {
+    }
+}
@@ -0,0 +1,42 @@
+package org.codingmatters.poom.crons.domain.trigger;
+
+import okhttp3.ConnectionPool;
+import org.codingmatters.poom.crons.domain.tracing.TraceContextInterceptor;
+import org.codingmatters.poom.services.support.Env;
+import org.codingmatters.rest.api.client.okhttp.HttpClientWrapper;
+import org.codingmatters.rest.api.client.okhttp.OkHttpClientWrapper;
+
+import java.util.concurrent.TimeUnit;
+
+public class TriggerHttpClients {
+
+    static public final String CRON_HTTP_MAX_IDLE_CONNECTIONS = "CRON_HTTP_MAX_IDLE_CONNECTIONS";
+    static public final String CRON_HTTP_MAX_IDLE_CONNECTIONS_DEFAULT = "64";
+    static public final String CRON_HTTP_KEEP_ALIVE_SECONDS = "CRON_HTTP_KEEP_ALIVE_SECONDS";
+    static public final String CRON_HTTP_KEEP_ALIVE_SECONDS_DEFAULT = "300";
+    static public final String CRON_HTTP_TIMEOUT_SECONDS = "CRON_HTTP_TIMEOUT_SECONDS";
+    static public final String CRON_HTTP_TIMEOUT_SECONDS_DEFAULT = "30";
+
+    static public HttpClientWrapper fromEnv() {
+        return pooled(
+                Math.toIntExact(Env.optional(CRON_HTTP_MAX_IDLE_CONNECTIONS).orElse(new Env.Var(CRON_HTTP_MAX_IDLE_CONNECTIONS_DEFAULT)).asLong()),
+                Env.optional(CRON_HTTP_KEEP_ALIVE_SECONDS).orElse(new Env.Var(CRON_HTTP_KEEP_ALIVE_SECONDS_DEFAULT)).asLong(),
+                Env.optional(CRON_HTTP_TIMEOUT_SECONDS).orElse(new Env.Var(CRON_HTTP_TIMEOUT_SECONDS_DEFAULT)).asLong()
+        );
+    }
+
+    static public HttpClientWrapper pooled(int maxIdleConnections, long keepAliveSeconds, long timeoutSeconds) {
+        ConnectionPool connectionPool = new ConnectionPool(maxIdleConnections, keepAliveSeconds, TimeUnit.SECONDS);
+        return OkHttpClientWrapper.build(builder -> builder
+                .connectionPool(connectionPool)
+                .connectTimeout(timeoutSeconds, TimeUnit.SECONDS)
+                .readTimeout(timeoutSeconds, TimeUnit.SECONDS)
+                .writeTimeout(timeoutSeconds, TimeUnit.SECONDS)
+                .retryOnConnectionFailure(true)
+                .addInterceptor(new TraceContextInterceptor())
+        );
+    }
+
+    private TriggerHttpClients() {
+    }
+}
@@ -2,19 +2,45 @@ package org.codingmatters.poom.crons.domain;
 
 import org.codingmatters.poom.crons.crontab.api.types.Task;
 import org.codingmatters.poom.crons.crontab.api.types.TaskSpec;
+import org.codingmatters.poom.crons.domain.accounts.RepositoryAccountRegistry;
+import org.codingmatters.poom.crons.domain.ownership.ConsistentHashOwnership;
+import org.codingmatters.poom.crons.domain.ownership.TaskOwnership;
+import org.codingmatters.poom.crons.domain.persistence.BatchUpdatableRepository;
+import org.codingmatters.poom.crons.domain.state.InMemoryTaskStateStore;
+import org.codingmatters.poom.crons.domain.state.TaskState;
+import org.codingmatters.poom.crons.domain.scheduler.PriorityQueueTaskScheduler;
+import org.codingmatters.poom.crons.domain.scheduler.TaskScheduler;
 import org.codingmatters.poom.services.domain.exceptions.RepositoryException;
 import org.codingmatters.poom.services.domain.repositories.Repository;
 import org.codingmatters.poom.services.domain.repositories.inmemory.InMemoryRepository;
+import org.codingmatters.poom.services.support.date.UTC;
 import org.codingmatters.poom.services.domain.entities.Entity;
+import org.codingmatters.poom.services.domain.entities.ImmutableEntity;
 import org.codingmatters.poom.services.domain.entities.PagedEntityList;
 import org.junit.Test;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 public class CrontabTest {
@@ -197,4 +223,361 @@ public class CrontabTest {
 
         assertThat(this.crontab.tasks(), hasSize(0));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void givenCrontabWithScheduler__whenCreatingAndDeletingTasks__thenRemainingTasksAreDue() throws Exception {
+        Crontab crontab = new Crontab(account -> {
+            accountRepositries.computeIfAbsent(account, s -> createAccountRepository());
+            return accountRepositries.get(account);
+        }, new PriorityQueueTaskScheduler(ChronoUnit.MINUTES, TimeZone.getTimeZone("UTC")));
+
+        Repository<Task, Void> accountRepository = crontab.forAccount("my-account");
+        Entity<Task> kept = accountRepository.create(Task.builder().spec(spec -> spec.url("kept")
+                .scheduled(scheduled -> scheduled.every(every -> every.minutes(1L).startingAt(UTC.now().minusHours(1L))))
+        ).build());
+        Entity<Task> deleted = accountRepository.create(Task.builder().spec(spec -> spec.url("deleted")
+                .scheduled(scheduled -> scheduled.every(every -> every.minutes(1L).startingAt(UTC.now().minusHours(1L))))
+        ).build());
+        accountRepository.delete(deleted);
+
+        List<Entity<Task>> due = crontab.due(UTC.now().plusMinutes(1L));
+        assertThat(due, hasSize(1));
+        assertThat(due.get(0).id(), is("my-account/" + kept.id()));
+    }
+
+    @Test
+    public void givenSelectionRunning__whenCreatingTask__thenCreationIsNotBlockedBySelection() throws Exception {
+        this.crontab.forAccount("my-account").create(Task.builder().spec(TaskSpec.builder().url("task-0").build()).build());
+
+        CountDownLatch selecting = new CountDownLatch(1);
+        CountDownLatch created = new CountDownLatch(1);
+        ExecutorService tick = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<Entity<Task>>> selection = tick.submit(() -> this.crontab.selectable(spec -> {
+                selecting.countDown();
+                try {
+                    return created.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    return false;
+                }
+            }, this.forkJoinPool));
+
+            selecting.await(10, TimeUnit.SECONDS);
+            this.crontab.forAccount("my-account").create(Task.builder().spec(TaskSpec.builder().url("task-1").build()).build());
+            assertThat(this.crontab.tasks(), hasSize(2));
+            created.countDown();
+
+            assertThat(selection.get(), hasSize(1));
+        } finally {
+            tick.shutdownNow();
+        }
+    }
+
+    @Test
+    public void givenDueSelectionRunning__whenCreatingTask__thenCreationIsNotBlockedByScheduler_andTaskIsDueOnNextSelection() throws Exception {
+        CountDownLatch selecting = new CountDownLatch(1);
+        CountDownLatch created = new CountDownLatch(1);
+        PriorityQueueTaskScheduler delegate = new PriorityQueueTaskScheduler(ChronoUnit.MINUTES, TimeZone.getTimeZone("UTC"));
+        TaskScheduler blocking = new TaskScheduler() {
+            @Override
+            public synchronized void schedule(Entity<Task> task, LocalDateTime now) {
+                delegate.schedule(task, now);
+            }
+
+            @Override
+            public synchronized void unschedule(String id) {
+                delegate.unschedule(id);
+            }
+
+            @Override
+            public synchronized List<Entity<Task>> due(LocalDateTime at) {
+                selecting.countDown();
+                try {
+                    created.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return delegate.due(at);
+            }
+        };
+        Crontab crontab = new Crontab(account -> {
+            accountRepositries.computeIfAbsent(account, s -> createAccountRepository());
+            return accountRepositries.get(account);
+        }, blocking);
+
+        ExecutorService tick = Executors.newSingleThreadExecutor();
+        ExecutorService api = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<Entity<Task>>> selection = tick.submit(() -> crontab.due(UTC.now().plusMinutes(1L)));
+            selecting.await(10, TimeUnit.SECONDS);
+
+            Future<Entity<Task>> creation = api.submit(() -> crontab.forAccount("my-account").create(Task.builder().spec(spec -> spec.url("task")
+                    .scheduled(scheduled -> scheduled.every(every -> every.minutes(1L).startingAt(UTC.now().minusHours(1L))))
+            ).build()));
+            Entity<Task> task = creation.get(5, TimeUnit.SECONDS);
+            created.countDown();
+
+            assertThat(selection.get(), hasSize(0));
+            List<Entity<Task>> due = crontab.due(UTC.now().plusMinutes(1L));
+            assertThat(due, hasSize(1));
+            assertThat(due.get(0).id(), is("my-account/" + task.id()));
+        } finally {
+            created.countDown();
+            tick.shutdownNow();
+            api.shutdownNow();
+        }
+    }
+
+    @Test
+    public void givenTasksListed__whenCreatingTask__thenListedTasksAreAnUnchangedSnapshot() throws Exception {
+        this.crontab.forAccount("my-account").create(Task.builder().spec(TaskSpec.builder().url("task-0").build()).build());
+
+        List<Entity<Task>> tasks = this.crontab.tasks();
+        this.crontab.forAccount("my-account").create(Task.builder().spec(TaskSpec.builder().url("task-1").build()).build());
+
+        assertThat(tasks, hasSize(1));
+        assertThat(this.crontab.tasks(), hasSize(2));
+        assertThat(this.crontab.stream().count(), is(2L));
+    }
+
+    @Test
+    public void givenShardedCrontab__whenCreatingTasksInManyAccounts__thenTasksAreSpreadAndMerged() throws Exception {
+        Crontab crontab = new Crontab(account -> {
+            accountRepositries.computeIfAbsent(account, s -> createAccountRepository());
+            return accountRepositries.get(account);
+        }, () -> new PriorityQueueTaskScheduler(ChronoUnit.MINUTES, TimeZone.getTimeZone("UTC")), 4);
+
+        for (int i = 0; i < 50; i++) {
+            crontab.forAccount("my-account-" + (i % 3)).create(Task.builder().spec(spec -> spec.url("task")
+                    .scheduled(scheduled -> scheduled.every(every -> every.minutes(1L).startingAt(UTC.now().minusHours(1L))))
+            ).build());
+        }
+
+        assertThat(crontab.shardCount(), is(4));
+        assertThat(crontab.tasks(), hasSize(50));
+        assertThat(crontab.selectable(spec -> true, this.forkJoinPool), hasSize(50));
+        assertThat(crontab.due(UTC.now().plusMinutes(1L), this.forkJoinPool), hasSize(50));
+
+        Entity<Task> first = crontab.tasks().get(0);
+        crontab.delete(first);
+
+        assertThat(crontab.tasks(), hasSize(49));
+        assertThat(crontab.due(UTC.now().plusMinutes(2L)), hasSize(49));
+    }
+
+    @Test
+    public void givenClusterOfTwoCrontabs__whenTasksCreated__thenEachTaskIsCachedByItsOwnerOnly() throws Exception {
+        List<String> nodes = Arrays.asList("node-1", "node-2");
+        ConsistentHashOwnership ownership1 = new ConsistentHashOwnership("node-1", nodes, ConsistentHashOwnership.Partition.TASK);
+        ConsistentHashOwnership ownership2 = new ConsistentHashOwnership("node-2", nodes, ConsistentHashOwnership.Partition.TASK);
+        Function<String, Repository<Task, Void>> repositories = account -> {
+            accountRepositries.computeIfAbsent(account, s -> createAccountRepository());
+            return accountRepositries.get(account);
+        };
+        Crontab crontab1 = new Crontab(repositories, () -> null, 2, ownership1);
+        Crontab crontab2 = new Crontab(repositories, () -> null, 2, ownership2);
+
+        for (int i = 0; i < 100; i++) {
+            crontab1.forAccount("my-account").create(Task.builder().spec(TaskSpec.builder().url("task-" + i).build()).build());
+        }
+        crontab2.loadAccounts("my-account");
+
+        assertThat(crontab1.tasks().size() + crontab2.tasks().size(), is(100));
+        for (Entity<Task> task : crontab1.tasks()) {
+            assertThat(crontab2.tasks().stream().anyMatch(other -> other.id().equals(task.id())), is(false));
+        }
+
+        ownership1.members(Collections.singletonList("node-1"));
+        ownership2.members(Collections.singletonList("node-1"));
+
+        assertThat(crontab1.tasks(), hasSize(100));
+        assertThat(crontab2.tasks(), hasSize(0));
+    }
+
+    @Test
+    public void givenClusterOfTwoCrontabs__whenTasksChangedThroughNonOwner__thenOwnerCatchesUpOnReconcile() throws Exception {
+        List<String> nodes = Arrays.asList("node-1", "node-2");
+        ConsistentHashOwnership ownership1 = new ConsistentHashOwnership("node-1", nodes, ConsistentHashOwnership.Partition.TASK);
+        ConsistentHashOwnership ownership2 = new ConsistentHashOwnership("node-2", nodes, ConsistentHashOwnership.Partition.TASK);
+        Function<String, Repository<Task, Void>> repositories = account -> {
+            accountRepositries.computeIfAbsent(account, s -> createAccountRepository());
+            return accountRepositries.get(account);
+        };
+        Crontab crontab1 = new Crontab(repositories, () -> null, 2, ownership1).loadAccounts("my-account");
+        Crontab crontab2 = new Crontab(repositories, () -> null, 2, ownership2).loadAccounts("my-account");
+
+        List<Entity<Task>> created = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            created.add(crontab1.forAccount("my-account").create(Task.builder().spec(TaskSpec.builder().url("task-" + i).build()).build()));
+        }
+        assertThat(crontab1.tasks().size() < 100, is(true));
+
+        crontab2.reconcile();
+        assertThat(crontab1.tasks().size() + crontab2.tasks().size(), is(100));
+
+        Entity<Task> owned2 = created.stream()
+                .filter(task -> ownership2.owns("my-account", task.id()))
+                .findFirst().get();
+        Entity<Task> cached = crontab2.tasks().stream().filter(task -> task.id().equals("my-account/" + owned2.id())).findFirst().get();
+        crontab2.cacheAll(Collections.singletonList(new ImmutableEntity<>(cached.id(), cached.version(), cached.value().withErrorCount(2L))));
+        crontab1.forAccount("my-account").update(owned2, owned2.value().withSpec(TaskSpec.builder().url("changed").build()));
+
+        crontab2.reconcile();
+        Entity<Task> reconciled = crontab2.tasks().stream().filter(task -> task.id().equals("my-account/" + owned2.id())).findFirst().get();
+        assertThat(reconciled.value().spec().url(), is("changed"));
+        assertThat(reconciled.value().errorCount(), is(2L));
+
+        crontab1.forAccount("my-account").delete(owned2);
+        crontab2.reconcile();
+        assertThat(crontab1.tasks().size() + crontab2.tasks().size(), is(99));
+    }
+
+    @Test
+    public void givenClusterOfTwoCrontabsSharingAccounts__whenTaskCreatedThroughNonOwnerInUnknownAccount__thenOwnerDiscoversAccountOnReconcile() throws Exception {
+        List<String> nodes = Arrays.asList("node-1", "node-2");
+        ConsistentHashOwnership ownership1 = new ConsistentHashOwnership("node-1", nodes, ConsistentHashOwnership.Partition.ACCOUNT);
+        ConsistentHashOwnership ownership2 = new ConsistentHashOwnership("node-2", nodes, ConsistentHashOwnership.Partition.ACCOUNT);
+        Function<String, Repository<Task, Void>> repositories = account -> {
+            accountRepositries.computeIfAbsent(account, s -> createAccountRepository());
+            return accountRepositries.get(account);
+        };
+        RepositoryAccountRegistry accounts = new RepositoryAccountRegistry(createAccountRepository());
+        Crontab crontab1 = new Crontab(repositories, () -> null, 2, ownership1).usingAccounts(accounts);
+        Crontab crontab2 = new Crontab(repositories, () -> null, 2, ownership2).usingAccounts(accounts);
+
+        String account = "account-0";
+        for (int i = 1; ! ownership2.owns(account, null); i++) {
+            account = "account-" + i;
+        }
+        Entity<Task> created = crontab1.forAccount(account).create(Task.builder().spec(TaskSpec.builder().url("task").build()).build());
+        assertThat(crontab1.tasks(), hasSize(0));
+        assertThat(crontab2.tasks(), hasSize(0));
+
+        crontab2.reconcile();
+
+        assertThat(crontab2.tasks(), hasSize(1));
+        assertThat(crontab2.tasks().get(0).id(), is(account + "/" + created.id()));
+    }
+
+    @Test
+    public void givenBatchUpdatableRepositories__whenUpdatingAll__thenOneBatchPerAccount_andCrontabIsUpdated() throws Exception {
+        AtomicInteger batches = new AtomicInteger();
+        accountRepositries.put("my-account-1", this.createBatchAccountRepository(batches));
+        accountRepositries.put("my-account-2", this.createBatchAccountRepository(batches));
+        for (int i = 0; i < 10; i++) {
+            this.crontab.forAccount("my-account-" + (1 + i % 2)).create(Task.builder().spec(TaskSpec.builder().url("task-" + i).build()).build());
+        }
+
+        List<Entity<Task>> executed = new ArrayList<>();
+        for (Entity<Task> task : this.crontab.tasks()) {
+            executed.add(new ImmutableEntity<>(task.id(), task.version(), task.value().withErrorCount(3L)));
+        }
+        this.crontab.updateAll(executed);
+
+        assertThat(batches.get(), is(2));
+        assertThat(this.crontab.tasks().stream().allMatch(task -> task.value().errorCount() == 3L), is(true));
+        assertThat(accountRepositries.get("my-account-1").all(0, 100).stream().allMatch(task -> task.value().errorCount() == 3L), is(true));
+    }
+
+    @Test
+    public void givenPlainRepositories__whenUpdatingAll__thenEachTaskIsUpdated_andCrontabIsUpdated() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            this.crontab.forAccount("my-account-" + (1 + i % 2)).create(Task.builder().spec(TaskSpec.builder().url("task-" + i).build()).build());
+        }
+
+        List<Entity<Task>> executed = new ArrayList<>();
+        for (Entity<Task> task : this.crontab.tasks()) {
+            executed.add(new ImmutableEntity<>(task.id(), task.version(), task.value().withErrorCount(3L)));
+        }
+        this.crontab.updateAll(executed);
+
+        assertThat(this.crontab.tasks().stream().allMatch(task -> task.value().errorCount() == 3L), is(true));
+        assertThat(accountRepositries.get("my-account-2").all(0, 100).stream().allMatch(task -> task.value().errorCount() == 3L), is(true));
+    }
+
+    @Test
+    public void givenSpecUpdatedAfterSelection__whenCachingAndPersistingSelectedTasks__thenSpecIsKept_andOnlyStateIsMerged() throws Exception {
+        Entity<Task> created = this.crontab.forAccount("my-account").create(Task.builder().spec(TaskSpec.builder().url("task").build()).build());
+        Entity<Task> selected = this.crontab.tasks().get(0);
+        LocalDateTime lastTrig = UTC.now();
+
+        this.crontab.forAccount("my-account").update(created, created.value().withSpec(TaskSpec.builder().url("changed").build()));
+
+        List<Entity<Task>> executed = Collections.singletonList(new ImmutableEntity<>(selected.id(), selected.version(), selected.value().withLastTrig(lastTrig).withErrorCount(1L)));
+        this.crontab.cacheAll(executed);
+        this.crontab.persistAll(executed);
+
+        assertThat(this.crontab.tasks().get(0).value().spec().url(), is("changed"));
+        assertThat(this.crontab.tasks().get(0).value().errorCount(), is(1L));
+        assertThat(accountRepositries.get("my-account").retrieve(created.id()).value().spec().url(), is("changed"));
+        assertThat(accountRepositries.get("my-account").retrieve(created.id()).value().errorCount(), is(1L));
+        assertThat(accountRepositries.get("my-account").retrieve(created.id()).value().lastTrig(), is(lastTrig));
+    }
+
+    @Test
+    public void givenTaskTriggered__whenCachingAnOlderTriggerState__thenCachedStateIsKept() throws Exception {
+        this.crontab.forAccount("my-account").create(Task.builder().spec(TaskSpec.builder().url("task").build()).build());
+        Entity<Task> selected = this.crontab.tasks().get(0);
+        LocalDateTime lastTrig = UTC.now();
+
+        this.crontab.cacheAll(Collections.singletonList(new ImmutableEntity<>(selected.id(), selected.version(), selected.value().withLastTrig(lastTrig).withErrorCount(0L))));
+        this.crontab.cacheAll(Collections.singletonList(new ImmutableEntity<>(selected.id(), selected.version(), selected.value().withLastTrig(lastTrig.minusMinutes(1L)).withErrorCount(5L))));
+
+        assertThat(this.crontab.tasks().get(0).value().lastTrig(), is(lastTrig));
+        assertThat(this.crontab.tasks().get(0).value().errorCount(), is(0L));
+    }
+
+    @Test
+    public void givenStateStore__whenUpdatingAll__thenOnlyStateIsWritten_andCrontabIsUpdated_andStateIsMergedOnLoad() throws Exception {
+        InMemoryTaskStateStore stateStore = new InMemoryTaskStateStore();
+        Function<String, Repository<Task, Void>> repositories = account -> {
+            accountRepositries.computeIfAbsent(account, s -> createAccountRepository());
+            return accountRepositries.get(account);
+        };
+        Crontab crontab = new Crontab(repositories, () -> null, 1, TaskOwnership.ALL, stateStore);
+        Entity<Task> created = crontab.forAccount("my-account").create(Task.builder().spec(TaskSpec.builder().url("task").build()).build());
+
+        Entity<Task> cached = crontab.tasks().get(0);
+        crontab.updateAll(Collections.singletonList(new ImmutableEntity<>(cached.id(), cached.version(), cached.value().withSuccess(true).withErrorCount(0L))));
+
+        assertThat(crontab.tasks().get(0).value().success(), is(true));
+        assertThat(accountRepositries.get("my-account").retrieve(created.id()).value(), is(created.value()));
+        assertThat(stateStore.get("my-account", created.id()), is(new TaskState(null, true, 0L)));
+
+        Crontab reloaded = new Crontab(repositories, () -> null, 1, TaskOwnership.ALL, stateStore).loadAccounts("my-account");
+        assertThat(reloaded.tasks().get(0).value().errorCount(), is(0L));
+
+        crontab.forAccount("my-account").delete(created);
+        assertThat(stateStore.get("my-account", created.id()), is(nullValue()));
+    }
+
+    private InMemoryRepository<Task, Void> createBatchAccountRepository(AtomicInteger batches) {
+        return new BatchInMemoryRepository(batches);
+    }
+
+    static class BatchInMemoryRepository extends InMemoryRepository<Task, Void> implements BatchUpdatableRepository<Task> {
+        private final AtomicInteger batches;
+
+        BatchInMemoryRepository(AtomicInteger batches) {
+            this.batches = batches;
+        }
+
+        @Override
+        public PagedEntityList<Task> search(Void query, long startIndex, long endIndex) throws RepositoryException {
+            return this.all(startIndex, endIndex);
+        }
+
+        @Override
+        public List<Entity<Task>> updateAll(Map<String, UnaryOperator<Task>> changes) throws RepositoryException {
+            this.batches.incrementAndGet();
+            List<Entity<Task>> result = new ArrayList<>(changes.size());
+            for (Map.Entry<String, UnaryOperator<Task>> change : changes.entrySet()) {
+                Entity<Task> stored = this.retrieve(change.getKey());
+                if(stored != null) {
+                    result.add(this.update(stored, change.getValue().apply(stored.value())));
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package org.codingmatters.poom.crons.domain;
 
 import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.crons.crontab.api.types.TaskSpec;
+import org.codingmatters.poom.crons.domain.clock.VirtualClock;
+import org.codingmatters.poom.crons.domain.trigger.AsyncTaskTrigger;
+import org.codingmatters.poom.crons.domain.trigger.BatchTaskTrigger;
 import org.codingmatters.poom.crons.domain.trigger.TaskTrigger;
 import org.codingmatters.poom.crons.domain.trigger.TriggerResult;
 import org.codingmatters.poom.services.support.date.UTC;
@@ -9,10 +13,19 @@ import org.codingmatters.poom.services.domain.entities.ImmutableEntity;
 import org.junit.Test;
 
 import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.ZoneOffset;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.codingmatters.poom.services.tests.DateMatchers.around;
 import static org.hamcrest.Matchers.*;
@@ -34,6 +47,22 @@ public class TaskExecutorTest {
         assertThat(executed, is(empty()));
     }
 
+    @Test
+    public void givenClock__whenExecutingOneTask__thenTriggerTimeAndTimestampComeFromClock() throws Exception {
+        LocalDateTime virtualNow = LocalDateTime.of(2020, Month.OCTOBER, 24, 10, 16);
+        List<LocalDateTime> triggedAt = Collections.synchronizedList(new LinkedList<>());
+        List<Entity<Task>> tasks = new LinkedList<>();
+        tasks.add(this.entity(Task.builder().build()));
+
+        List<Entity<Task>> executed = new TaskExecutor(this.forkJoinPool, (spec, at, eventId) -> {
+            triggedAt.add(at);
+            return new TriggerResult(true);
+        }).usingClock(new VirtualClock(virtualNow.toInstant(ZoneOffset.UTC))).execute(tasks);
+
+        assertThat(triggedAt, contains(virtualNow));
+        assertThat(executed.get(0).value().lastTrig(), is(virtualNow));
+    }
+
     @Test
     public void givenTriggerSucceeds__whenExecutingOneTask__thenTaskIsExecuted_andMarkedAsSuccess_andErrorCountIsInitializedAt0_andTimestamped() throws Exception {
         List<Entity<Task>> tasks = new LinkedList<>();
@@ -74,6 +103,123 @@ public class TaskExecutorTest {
         assertThat(executed.get(0).value().lastTrig(), is(around(UTC.now())));
     }
 
+    @Test
+    public void givenAsyncTrigger__whenExecutingManyTasks__thenInFlightCallsAreBounded_andAllTasksAreExecuted() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        ScheduledExecutorService remote = Executors.newScheduledThreadPool(4);
+        AsyncTaskTrigger trigger = (task, triggedAt, eventId) -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            CompletableFuture<TriggerResult> result = new CompletableFuture<>();
+            remote.schedule(() -> {
+                inFlight.decrementAndGet();
+                result.complete(new TriggerResult(true));
+            }, 10, TimeUnit.MILLISECONDS);
+            return result;
+        };
+
+        List<Entity<Task>> tasks = new LinkedList<>();
+        for (int i = 0; i < 50; i++) {
+            tasks.add(this.entity(Task.builder().build()));
+        }
+        try {
+            List<Entity<Task>> executed = new TaskExecutor(trigger, 5).execute(tasks);
+
+            assertThat(executed, hasSize(50));
+            assertThat(executed.stream().allMatch(task -> task.value().success()), is(true));
+            assertThat(maxInFlight.get(), is(lessThanOrEqualTo(5)));
+        } finally {
+            remote.shutdownNow();
+        }
+    }
+
+    @Test
+    public void givenAsyncTriggerFailsExceptionally__whenExecutingOneTask__thenTaskIsMarkedAsFailure() throws Exception {
+        AsyncTaskTrigger trigger = (task, triggedAt, eventId) -> {
+            CompletableFuture<TriggerResult> result = new CompletableFuture<>();
+            result.completeExceptionally(new RuntimeException("connection reset"));
+            return result;
+        };
+        List<Entity<Task>> tasks = new LinkedList<>();
+        tasks.add(this.entity(Task.builder().build()));
+
+        List<Entity<Task>> executed = new TaskExecutor(trigger, 5).execute(tasks);
+
+        assertThat(executed, hasSize(1));
+        assertThat(executed.get(0).value().success(), is(false));
+        assertThat(executed.get(0).value().errorCount(), is(1L));
+    }
+
+    @Test
+    public void givenBatchTrigger__whenExecutingTasksForManyUrls__thenTasksAreGroupedByUrl_andBatchesAreBounded_andResultsKeepTaskOrder() throws Exception {
+        List<List<Task>> batches = Collections.synchronizedList(new LinkedList<>());
+        BatchTaskTrigger trigger = (batch, triggedAt, eventId) -> {
+            batches.add(batch);
+            List<TriggerResult> results = new LinkedList<>();
+            for (Task task : batch) {
+                results.add(new TriggerResult(task.spec().url().equals("http://a")));
+            }
+            return results;
+        };
+
+        List<Entity<Task>> tasks = new LinkedList<>();
+        for (int i = 0; i < 7; i++) {
+            tasks.add(this.entity(Task.builder().spec(TaskSpec.builder().url(i % 2 == 0 ? "http://a" : "http://b").build()).build()));
+        }
+
+        List<Entity<Task>> executed = new TaskExecutor(trigger, this.forkJoinPool, 3, 2).execute(tasks);
+
+        assertThat(executed, hasSize(7));
+        for (int i = 0; i < 7; i++) {
+            assertThat(executed.get(i).id(), is(tasks.get(i).id()));
+            assertThat(executed.get(i).value().success(), is(i % 2 == 0));
+        }
+        assertThat(batches, hasSize(3));
+        for (List<Task> batch : batches) {
+            assertThat(batch.size(), is(lessThanOrEqualTo(3)));
+            assertThat(batch.stream().map(task -> task.spec().url()).distinct().count(), is(1L));
+        }
+    }
+
+    @Test
+    public void givenBatchTrigger__whenExecutingTasks__thenTaskIdsAreSentAsBySingleTrigger() throws Exception {
+        List<String> sentIds = Collections.synchronizedList(new LinkedList<>());
+        BatchTaskTrigger trigger = (batch, triggedAt, eventId) -> {
+            List<TriggerResult> results = new LinkedList<>();
+            for (Task task : batch) {
+                sentIds.add(task.id());
+                results.add(new TriggerResult(true));
+            }
+            return results;
+        };
+        List<Entity<Task>> tasks = new LinkedList<>();
+        tasks.add(this.entity(Task.builder().id("task-id").spec(TaskSpec.builder().url("http://a").build()).build()));
+        tasks.add(this.entity(Task.builder().spec(TaskSpec.builder().url("http://a").build()).build()));
+
+        List<Entity<Task>> executed = new TaskExecutor(trigger, this.forkJoinPool, 10, 2).execute(tasks);
+
+        assertThat(sentIds, containsInAnyOrder("task-id", null));
+        assertThat(executed.get(0).value().success(), is(true));
+        assertThat(executed.get(1).value().success(), is(true));
+        assertThat(executed.get(1).value().id(), is(nullValue()));
+    }
+
+    @Test
+    public void givenBatchTriggerFails__whenExecutingTasks__thenAllBatchTasksAreMarkedAsFailure() throws Exception {
+        BatchTaskTrigger trigger = (batch, triggedAt, eventId) -> {
+            throw new RuntimeException("connection reset");
+        };
+        List<Entity<Task>> tasks = new LinkedList<>();
+        tasks.add(this.entity(Task.builder().spec(TaskSpec.builder().url("http://a").build()).build()));
+        tasks.add(this.entity(Task.builder().spec(TaskSpec.builder().url("http://a").build()).errorCount(2L).build()));
+
+        List<Entity<Task>> executed = new TaskExecutor(trigger, this.forkJoinPool, 10, 2).execute(tasks);
+
+        assertThat(executed.get(0).value().success(), is(false));
+        assertThat(executed.get(0).value().errorCount(), is(1L));
+        assertThat(executed.get(1).value().errorCount(), is(3L));
+    }
+
     private Entity<Task> entity(Task task) {
         return new ImmutableEntity<>(UUID.randomUUID().toString(), BigInteger.ZERO, task);
     }
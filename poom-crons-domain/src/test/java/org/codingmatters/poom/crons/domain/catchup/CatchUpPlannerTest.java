@@ -0,0 +1,67 @@
+package org.codingmatters.poom.crons.domain.catchup;
+
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.crons.crontab.api.types.TaskSpec;
+import org.codingmatters.poom.crons.domain.selector.NextOccurrence;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.TimeZone;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class CatchUpPlannerTest {
+
+    static private final LocalDateTime LAST_TRIG = LocalDateTime.of(2020, Month.OCTOBER, 24, 10, 15, 0, 350_000_000);
+    static private final LocalDateTime RESTART = LocalDateTime.of(2020, Month.OCTOBER, 24, 10, 20, 30);
+
+    private final CatchUpPlanner planner = new CatchUpPlanner(NextOccurrence.minutesPrecision(TimeZone.getTimeZone("UTC")), 3);
+
+    @Test
+    public void givenNoPolicy__whenOccurrencesWereMissed__thenNothingIsCaughtUp() throws Exception {
+        assertThat(this.planner.missed(this.task(null, LAST_TRIG), RESTART), is(empty()));
+    }
+
+    @Test
+    public void givenSkipPolicy__whenOccurrencesWereMissed__thenNothingIsCaughtUp() throws Exception {
+        assertThat(this.planner.missed(this.task(TaskSpec.CatchUp.SKIP, LAST_TRIG), RESTART), is(empty()));
+    }
+
+    @Test
+    public void givenFireOncePolicy__whenOccurrencesWereMissed__thenFirstMissedOccurrenceIsCaughtUp() throws Exception {
+        assertThat(this.planner.missed(this.task(TaskSpec.CatchUp.FIRE_ONCE, LAST_TRIG), RESTART), contains(
+                LocalDateTime.of(2020, Month.OCTOBER, 24, 10, 16)
+        ));
+    }
+
+    @Test
+    public void givenFireAllPolicy__whenOccurrencesWereMissed__thenMissedOccurrencesAreCaughtUpUpToMax() throws Exception {
+        assertThat(this.planner.missed(this.task(TaskSpec.CatchUp.FIRE_ALL, LAST_TRIG), RESTART), contains(
+                LocalDateTime.of(2020, Month.OCTOBER, 24, 10, 16),
+                LocalDateTime.of(2020, Month.OCTOBER, 24, 10, 17),
+                LocalDateTime.of(2020, Month.OCTOBER, 24, 10, 18)
+        ));
+    }
+
+    @Test
+    public void givenFireAllPolicy__whenNothingWasMissed__thenNothingIsCaughtUp() throws Exception {
+        assertThat(this.planner.missed(this.task(TaskSpec.CatchUp.FIRE_ALL, LAST_TRIG), LAST_TRIG.plusSeconds(30)), is(empty()));
+    }
+
+    @Test
+    public void givenNeverTriggered__thenNothingIsCaughtUp() throws Exception {
+        assertThat(this.planner.missed(this.task(TaskSpec.CatchUp.FIRE_ALL, null), RESTART), is(empty()));
+    }
+
+    private Task task(TaskSpec.CatchUp policy, LocalDateTime lastTrig) {
+        return Task.builder()
+                .lastTrig(lastTrig)
+                .spec(TaskSpec.builder()
+                        .catchUp(policy)
+                        .scheduled(scheduled -> scheduled.every(every -> every.minutes(1L).startingAt(LocalDateTime.of(2020, Month.JANUARY, 1, 0, 0))))
+                        .build())
+                .build();
+    }
+}
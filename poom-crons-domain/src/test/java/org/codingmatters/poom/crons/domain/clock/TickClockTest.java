@@ -0,0 +1,115 @@
+package org.codingmatters.poom.crons.domain.clock;
+
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TickClockTest {
+
+    static private final LocalDateTime START = LocalDateTime.of(2020, Month.OCTOBER, 24, 10, 15, 42, 300_000_000);
+
+    private final MutableClock clock = new MutableClock(START.toInstant(ZoneOffset.UTC));
+    private final List<LocalDateTime> ticks = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void givenBoundaryNotReached__whenFiring__thenNothingFires() throws Exception {
+        TickClock tickClock = new TickClock(this.clock, Duration.ofMinutes(1), 10, this.ticks::add);
+
+        this.clock.plusMillis(17_000);
+
+        assertThat(tickClock.fireDue(), is(0));
+        assertThat(this.ticks, is(empty()));
+    }
+
+    @Test
+    public void givenWokenLate__whenFiring__thenIntendedBoundaryIsPassed() throws Exception {
+        TickClock tickClock = new TickClock(this.clock, Duration.ofMinutes(1), 10, this.ticks::add);
+
+        this.clock.plusMillis(17_700 + 1_250);
+
+        assertThat(tickClock.fireDue(), is(1));
+        assertThat(this.ticks, contains(LocalDateTime.of(2020, Month.OCTOBER, 24, 10, 16)));
+        assertThat(tickClock.maxLatenessMillis(), is(1_250L));
+    }
+
+    @Test
+    public void givenStall__whenFiring__thenSkippedBoundariesAreReplayedInOrder() throws Exception {
+        TickClock tickClock = new TickClock(this.clock, Duration.ofMinutes(1), 10, this.ticks::add);
+
+        this.clock.plusMillis(3 * 60_000);
+
+        assertThat(tickClock.fireDue(), is(3));
+        assertThat(this.ticks, contains(
+                LocalDateTime.of(2020, Month.OCTOBER, 24, 10, 16),
+                LocalDateTime.of(2020, Month.OCTOBER, 24, 10, 17),
+                LocalDateTime.of(2020, Month.OCTOBER, 24, 10, 18)
+        ));
+        assertThat(tickClock.replayed(), is(2L));
+    }
+
+    @Test
+    public void givenLongStall__whenFiring__thenOnlyMaxReplayBoundariesAreReplayed() throws Exception {
+        TickClock tickClock = new TickClock(this.clock, Duration.ofSeconds(1), 5, this.ticks::add);
+
+        this.clock.plusMillis(60_000);
+
+        assertThat(tickClock.fireDue(), is(6));
+        assertThat(this.ticks.get(5), is(LocalDateTime.of(2020, Month.OCTOBER, 24, 10, 16, 42)));
+        assertThat(tickClock.skipped(), is(54L));
+    }
+
+    @Test
+    public void givenClockGoesBackward__whenFiring__thenBoundariesAreNotFiredTwice() throws Exception {
+        TickClock tickClock = new TickClock(this.clock, Duration.ofMinutes(1), 10, this.ticks::add);
+        this.clock.plusMillis(60_000);
+        tickClock.fireDue();
+
+        this.clock.plusMillis(-30_000);
+        assertThat(tickClock.fireDue(), is(0));
+
+        this.clock.plusMillis(60_000);
+        assertThat(tickClock.fireDue(), is(1));
+        assertThat(this.ticks, contains(
+                LocalDateTime.of(2020, Month.OCTOBER, 24, 10, 16),
+                LocalDateTime.of(2020, Month.OCTOBER, 24, 10, 17)
+        ));
+    }
+
+    static class MutableClock extends Clock {
+        private volatile Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void plusMillis(long millis) {
+            this.instant = this.instant.plusMillis(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return this.instant;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.codingmatters.poom.crons.domain.metrics;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class HistogramTest {
+
+    private final Histogram histogram = new Histogram();
+
+    @Test
+    public void givenNothingRecorded__whenSnapshot__thenEverythingIsZero() throws Exception {
+        Histogram.Snapshot snapshot = this.histogram.snapshot();
+
+        assertThat(snapshot.count(), is(0L));
+        assertThat(snapshot.max(), is(0L));
+        assertThat(snapshot.mean(), is(0d));
+        assertThat(snapshot.percentile(99), is(0L));
+    }
+
+    @Test
+    public void givenSmallValues__whenSnapshot__thenPercentilesAreExact() throws Exception {
+        for (long value = 1; value <= 10; value++) {
+            this.histogram.record(value);
+        }
+
+        Histogram.Snapshot snapshot = this.histogram.snapshot();
+
+        assertThat(snapshot.count(), is(10L));
+        assertThat(snapshot.sum(), is(55L));
+        assertThat(snapshot.percentile(50), is(5L));
+        assertThat(snapshot.percentile(90), is(9L));
+        assertThat(snapshot.percentile(100), is(10L));
+    }
+
+    @Test
+    public void givenLargeValues__whenSnapshot__thenPercentilesAreWithinBucketPrecision() throws Exception {
+        for (long value = 1; value <= 100_000; value++) {
+            this.histogram.record(value);
+        }
+
+        Histogram.Snapshot snapshot = this.histogram.snapshot();
+
+        assertThat(snapshot.count(), is(100_000L));
+        assertThat(snapshot.max(), is(100_000L));
+        assertThat(snapshot.percentile(50), is(both(greaterThanOrEqualTo(50_000L * 15 / 16)).and(lessThanOrEqualTo(50_000L))));
+        assertThat(snapshot.percentile(99), is(both(greaterThanOrEqualTo(99_000L * 15 / 16)).and(lessThanOrEqualTo(99_000L))));
+    }
+
+    @Test
+    public void givenNegativeValue__whenRecording__thenRecordedAsZero() throws Exception {
+        this.histogram.record(-12L);
+
+        assertThat(this.histogram.snapshot().count(), is(1L));
+        assertThat(this.histogram.snapshot().max(), is(0L));
+    }
+
+    @Test
+    public void whenComputingBucketBounds__thenLowerBoundIsNeverAboveValue() throws Exception {
+        for (long value : new long[] {0L, 1L, 15L, 16L, 17L, 1_000L, 123_456_789L, Long.MAX_VALUE}) {
+            assertThat(Histogram.lowerBound(Histogram.index(value)), is(lessThanOrEqualTo(value)));
+            assertThat(Histogram.index(value), is(lessThan((64 - 4 + 1) * 16)));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.codingmatters.poom.crons.domain.metrics;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class MetricsRegistryTest {
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+
+    @Test
+    public void givenSameNameAndTags__whenGettingCounter__thenSameCounterIsReturned() throws Exception {
+        this.registry.counter("trigger.outcome", "outcome", "success").increment();
+        this.registry.counter("trigger.outcome", "outcome", "success").add(2L);
+        this.registry.counter("trigger.outcome", "outcome", "failure").increment();
+
+        MetricsSnapshot snapshot = this.registry.snapshot();
+
+        assertThat(snapshot.counters().get(MetricId.of("trigger.outcome", "outcome", "success")), is(3L));
+        assertThat(snapshot.counters().get(MetricId.of("trigger.outcome", "outcome", "failure")), is(1L));
+    }
+
+    @Test
+    public void givenHistogram__whenSnapshot__thenRecordedValuesAreExported() throws Exception {
+        Histogram histogram = this.registry.histogram("trigger.latency.micros", "host", "localhost:8080");
+        histogram.record(12L);
+        histogram.record(14L);
+
+        Histogram.Snapshot snapshot = this.registry.snapshot().histograms().get(MetricId.of("trigger.latency.micros", "host", "localhost:8080"));
+
+        assertThat(snapshot.count(), is(2L));
+        assertThat(snapshot.max(), is(14L));
+    }
+
+    @Test
+    public void givenGauge__whenSnapshot__thenGaugeIsEvaluatedAtSnapshotTime() throws Exception {
+        AtomicLong value = new AtomicLong(1L);
+        this.registry.gauge("tick.pipeline.dropped", value::get);
+
+        value.set(42L);
+
+        assertThat(this.registry.snapshot().gauges().get(MetricId.of("tick.pipeline.dropped")).longValue(), is(42L));
+    }
+
+    @Test
+    public void givenTaggedGauges__whenSnapshot__thenOneGaugePerKey() throws Exception {
+        Map<String, Long> sizes = new HashMap<>();
+        sizes.put("account-1", 12L);
+        sizes.put("account-2", 3L);
+        this.registry.gauges("crontab.tasks", "account", () -> sizes);
+
+        MetricsSnapshot snapshot = this.registry.snapshot();
+
+        assertThat(snapshot.gauges().get(MetricId.of("crontab.tasks", "account", "account-1")).longValue(), is(12L));
+        assertThat(snapshot.gauges().get(MetricId.of("crontab.tasks", "account", "account-2")).longValue(), is(3L));
+    }
+}
@@ -0,0 +1,85 @@
+package org.codingmatters.poom.crons.domain.ownership;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ConsistentHashOwnershipTest {
+
+    private static final List<String> NODES = Arrays.asList("node-1", "node-2", "node-3");
+
+    @Test
+    public void givenClusterMembers__whenPartitionedByTask__thenEachTaskHasExactlyOneOwner() throws Exception {
+        List<ConsistentHashOwnership> cluster = Arrays.asList(
+                new ConsistentHashOwnership("node-1", NODES, ConsistentHashOwnership.Partition.TASK),
+                new ConsistentHashOwnership("node-2", NODES, ConsistentHashOwnership.Partition.TASK),
+                new ConsistentHashOwnership("node-3", NODES, ConsistentHashOwnership.Partition.TASK)
+        );
+
+        int[] owned = new int[NODES.size()];
+        for (int i = 0; i < 3000; i++) {
+            int owners = 0;
+            for (int node = 0; node < cluster.size(); node++) {
+                if(cluster.get(node).owns("account", "task-" + i)) {
+                    owners++;
+                    owned[node]++;
+                }
+            }
+            assertThat(owners, is(1));
+        }
+        for (int count : owned) {
+            assertThat(count, is(both(greaterThan(500)).and(lessThan(1500))));
+        }
+    }
+
+    @Test
+    public void givenPartitionedByAccount__thenAllAccountTasksHaveTheSameOwner() throws Exception {
+        ConsistentHashOwnership ownership = new ConsistentHashOwnership("node-1", NODES, ConsistentHashOwnership.Partition.ACCOUNT);
+
+        boolean owned = ownership.owns("account", "task-0");
+        for (int i = 1; i < 100; i++) {
+            assertThat(ownership.owns("account", "task-" + i), is(owned));
+        }
+    }
+
+    @Test
+    public void givenNodeAdded__thenOnlyTasksMovingToNewNodeChangeOwner() throws Exception {
+        ConsistentHashOwnership ownership = new ConsistentHashOwnership("node-1", NODES, ConsistentHashOwnership.Partition.TASK);
+        String[] before = new String[3000];
+        for (int i = 0; i < before.length; i++) {
+            before[i] = ownership.owner("account/task-" + i);
+        }
+
+        ownership.members(Arrays.asList("node-1", "node-2", "node-3", "node-4"));
+
+        for (int i = 0; i < before.length; i++) {
+            String after = ownership.owner("account/task-" + i);
+            assertThat(after, anyOf(is(before[i]), is("node-4")));
+        }
+    }
+
+    @Test
+    public void givenListener__whenMembersChange__thenListenerIsNotified() throws Exception {
+        ConsistentHashOwnership ownership = new ConsistentHashOwnership("node-1", NODES, ConsistentHashOwnership.Partition.TASK);
+        AtomicInteger notified = new AtomicInteger();
+        ownership.onChange(notified::incrementAndGet);
+
+        ownership.members(Arrays.asList("node-1", "node-2"));
+
+        assertThat(notified.get(), is(1));
+    }
+
+    @Test
+    public void givenNodeNotMember__thenOwnsNothing() throws Exception {
+        ConsistentHashOwnership ownership = new ConsistentHashOwnership("node-4", NODES, ConsistentHashOwnership.Partition.TASK);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(ownership.owns("account", "task-" + i), is(false));
+        }
+    }
+}
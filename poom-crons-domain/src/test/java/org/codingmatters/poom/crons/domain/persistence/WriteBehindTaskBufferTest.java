@@ -0,0 +1,99 @@
+package org.codingmatters.poom.crons.domain.persistence;
+
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.crons.crontab.api.types.TaskSpec;
+import org.codingmatters.poom.crons.domain.Crontab;
+import org.codingmatters.poom.services.domain.entities.Entity;
+import org.codingmatters.poom.services.domain.entities.ImmutableEntity;
+import org.codingmatters.poom.services.domain.entities.PagedEntityList;
+import org.codingmatters.poom.services.domain.exceptions.RepositoryException;
+import org.codingmatters.poom.services.domain.repositories.Repository;
+import org.codingmatters.poom.services.domain.repositories.inmemory.InMemoryRepository;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class WriteBehindTaskBufferTest {
+
+    private final AtomicInteger writes = new AtomicInteger();
+    private final HashMap<String, Repository<Task, Void>> accountRepositries = new HashMap<>();
+    private final Crontab crontab = new Crontab(account -> {
+        accountRepositries.computeIfAbsent(account, s -> createAccountRepository());
+        return accountRepositries.get(account);
+    });
+
+    private InMemoryRepository<Task, Void> createAccountRepository() {
+        return new InMemoryRepository<Task, Void>() {
+            @Override
+            public PagedEntityList<Task> search(Void query, long startIndex, long endIndex) throws RepositoryException {
+                return this.all(startIndex, endIndex);
+            }
+
+            @Override
+            public Entity<Task> update(Entity<Task> entity, Task withValue) throws RepositoryException {
+                writes.incrementAndGet();
+                return super.update(entity, withValue);
+            }
+        };
+    }
+
+    @Test
+    public void givenTaskTriggeredManyTimes__whenFlushing__thenOnlyLatestStateIsWritten_andCacheWasUpdatedBeforeFlush() throws Exception {
+        Entity<Task> created = this.crontab.forAccount("my-account").create(Task.builder().spec(TaskSpec.builder().url("task").build()).build());
+        WriteBehindTaskBuffer buffer = new WriteBehindTaskBuffer(this.crontab, 1000, Runnable::run);
+
+        for (long i = 1; i <= 5; i++) {
+            Entity<Task> cached = this.crontab.tasks().get(0);
+            buffer.offer(Collections.singletonList(new ImmutableEntity<>(cached.id(), cached.version(), cached.value().withErrorCount(i))));
+            assertThat(this.crontab.tasks().get(0).value().errorCount(), is(i));
+        }
+
+        assertThat(this.writes.get(), is(0));
+        assertThat(buffer.pending(), is(1));
+
+        assertThat(buffer.flush(), is(1));
+
+        assertThat(this.writes.get(), is(1));
+        assertThat(buffer.pending(), is(0));
+        assertThat(this.accountRepositries.get("my-account").retrieve(created.id()).value().errorCount(), is(5L));
+    }
+
+    @Test
+    public void givenPendingReachesThreshold__whenOffering__thenBufferIsFlushed() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            this.crontab.forAccount("my-account").create(Task.builder().spec(TaskSpec.builder().url("task-" + i).build()).build());
+        }
+        WriteBehindTaskBuffer buffer = new WriteBehindTaskBuffer(this.crontab, 3, Runnable::run);
+
+        List<Entity<Task>> executed = new ArrayList<>();
+        for (Entity<Task> task : this.crontab.tasks()) {
+            executed.add(new ImmutableEntity<>(task.id(), task.version(), task.value().withSuccess(true)));
+        }
+        buffer.offer(executed.subList(0, 2));
+        assertThat(this.writes.get(), is(0));
+
+        buffer.offer(executed.subList(2, 4));
+        assertThat(this.writes.get(), is(4));
+        assertThat(buffer.pending(), is(0));
+    }
+
+    @Test
+    public void givenTaskDeleted__whenFlushing__thenDeletedTaskIsNotWritten() throws Exception {
+        Entity<Task> created = this.crontab.forAccount("my-account").create(Task.builder().spec(TaskSpec.builder().url("task").build()).build());
+        WriteBehindTaskBuffer buffer = new WriteBehindTaskBuffer(this.crontab, 1000, Runnable::run);
+        Entity<Task> cached = this.crontab.tasks().get(0);
+        buffer.offer(Collections.singletonList(new ImmutableEntity<>(cached.id(), cached.version(), cached.value().withErrorCount(1L))));
+
+        this.crontab.forAccount("my-account").delete(created);
+
+        assertThat(buffer.flush(), is(1));
+        assertThat(this.writes.get(), is(0));
+    }
+}
@@ -0,0 +1,148 @@
+package org.codingmatters.poom.crons.domain.pipeline;
+
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.crons.domain.TaskExecutor;
+import org.codingmatters.poom.crons.domain.trigger.TaskTrigger;
+import org.codingmatters.poom.crons.domain.trigger.TriggerResult;
+import org.codingmatters.poom.services.domain.entities.Entity;
+import org.codingmatters.poom.services.domain.entities.ImmutableEntity;
+import org.codingmatters.poom.services.support.date.UTC;
+import org.junit.After;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TickPipelineTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final TaskTrigger blockedTrigger = (task, triggedAt, eventId) -> {
+        try {
+            this.release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return new TriggerResult(true);
+    };
+    private final List<Entity<Task>> persisted = new CopyOnWriteArrayList<>();
+
+    @After
+    public void tearDown() throws Exception {
+        this.release.countDown();
+        this.pool.shutdownNow();
+    }
+
+    @Test
+    public void givenTriggersAreBlocked__whenTicking__thenTicksReturnWithoutWaitingForTriggers() throws Exception {
+        TickPipeline pipeline = new TickPipeline(at -> this.tasks(1), new TaskExecutor(this.pool, this.blockedTrigger), this.persisted::addAll, 10, 1).start();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            pipeline.tick(UTC.now());
+        }
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), is(lessThan(1000L)));
+        assertThat(pipeline.metrics().ticks(), is(5L));
+        assertThat(this.persisted, is(empty()));
+
+        this.release.countDown();
+        assertThat(pipeline.stop(10, TimeUnit.SECONDS), is(true));
+        assertThat(this.persisted, hasSize(5));
+    }
+
+    @Test
+    public void givenExecutionQueueIsFull__whenTicking__thenBatchesAreDroppedAndCounted() throws Exception {
+        TickPipeline pipeline = new TickPipeline(at -> this.tasks(2), new TaskExecutor(this.pool, this.blockedTrigger), this.persisted::addAll, 2, 1).start();
+
+        for (int i = 0; i < 10; i++) {
+            pipeline.tick(UTC.now());
+        }
+
+        assertThat(pipeline.metrics().droppedTasks(), is(greaterThanOrEqualTo(2L * (10 - 3))));
+
+        this.release.countDown();
+        assertThat(pipeline.stop(10, TimeUnit.SECONDS), is(true));
+        assertThat((long) this.persisted.size() + pipeline.metrics().droppedTasks(), is(20L));
+    }
+
+    @Test
+    public void givenNothingIsDue__whenTicking__thenNothingIsExecuted() throws Exception {
+        TickPipeline pipeline = new TickPipeline(at -> Collections.emptyList(), new TaskExecutor(this.pool, this.blockedTrigger), this.persisted::addAll, 2, 1).start();
+
+        pipeline.tick(LocalDateTime.now());
+
+        assertThat(pipeline.executionQueueSize(), is(0));
+        assertThat(pipeline.stop(10, TimeUnit.SECONDS), is(true));
+        assertThat(this.persisted, is(empty()));
+    }
+
+    @Test
+    public void givenPersistenceIsBlocked__whenTasksAreExecuted__thenExecutedTasksAreNotifiedBeforePersistence() throws Exception {
+        CountDownLatch persistence = new CountDownLatch(1);
+        CountDownLatch notified = new CountDownLatch(1);
+        List<Entity<Task>> executed = new CopyOnWriteArrayList<>();
+        TickPipeline pipeline = new TickPipeline(at -> this.tasks(3), new TaskExecutor(this.pool, (task, triggedAt, eventId) -> new TriggerResult(true)), tasks -> {
+            try {
+                persistence.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.persisted.addAll(tasks);
+        }, 10, 1).whenExecuted(tasks -> {
+            executed.addAll(tasks);
+            notified.countDown();
+        }).start();
+
+        pipeline.tick(UTC.now());
+
+        assertThat(notified.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(executed, hasSize(3));
+        assertThat(this.persisted, is(empty()));
+
+        persistence.countDown();
+        assertThat(pipeline.stop(10, TimeUnit.SECONDS), is(true));
+        assertThat(this.persisted, hasSize(3));
+    }
+
+    @Test
+    public void givenTriggerThrowsRuntimeException__whenTicking__thenExecutionWorkerKeepsRunning() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        TickPipeline pipeline = new TickPipeline(at -> this.tasks(1), new TaskExecutor(this.pool, (task, triggedAt, eventId) -> new TriggerResult(true)) {
+            @Override
+            public List<Entity<Task>> execute(List<Entity<Task>> tasks) throws ExecutionException, InterruptedException {
+                if(calls.incrementAndGet() == 1) {
+                    throw new IllegalStateException("failing execution");
+                }
+                return super.execute(tasks);
+            }
+        }, this.persisted::addAll, 10, 1).start();
+
+        pipeline.tick(UTC.now());
+        pipeline.tick(UTC.now());
+
+        assertThat(pipeline.stop(10, TimeUnit.SECONDS), is(true));
+        assertThat(calls.get(), is(2));
+        assertThat(this.persisted, hasSize(1));
+    }
+
+    private List<Entity<Task>> tasks(int count) {
+        List<Entity<Task>> result = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < count; i++) {
+            result.add(new ImmutableEntity<>(UUID.randomUUID().toString(), BigInteger.ONE, Task.builder().build()));
+        }
+        return result;
+    }
+}
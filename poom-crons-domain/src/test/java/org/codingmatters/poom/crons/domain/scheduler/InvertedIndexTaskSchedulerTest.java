@@ -0,0 +1,129 @@
+package org.codingmatters.poom.crons.domain.scheduler;
+
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.crons.crontab.api.types.TaskSpec;
+import org.codingmatters.poom.crons.crontab.api.types.taskspec.scheduled.At;
+import org.codingmatters.poom.crons.domain.selector.DateTimeTaskSelector;
+import org.codingmatters.poom.services.domain.entities.Entity;
+import org.codingmatters.poom.services.domain.entities.ImmutableEntity;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class InvertedIndexTaskSchedulerTest {
+
+    static private final TimeZone PARIS_TZ = TimeZone.getTimeZone("Europe/Paris");
+    static private final TimeZone UTC_TZ = TimeZone.getTimeZone("UTC");
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2013, Month.APRIL, 5, 10, 32, 42, 728);
+
+    @Test
+    public void givenAtTasks__whenNoFieldMatches__thenNothingIsDue() throws Exception {
+        InvertedIndexTaskScheduler scheduler = new InvertedIndexTaskScheduler(ChronoUnit.MINUTES, UTC_TZ);
+        scheduler.schedule(this.entity("task-1", TaskSpec.builder().scheduled(scheduled -> scheduled.at(at -> at.hourOfDay(14L).minuteOfHours(36L))).build()), NOW);
+        scheduler.schedule(this.entity("task-2", TaskSpec.builder().scheduled(scheduled -> scheduled.at(at -> at.minuteOfHours(38L))).build()), NOW);
+
+        assertThat(scheduler.due(LocalDateTime.of(2013, Month.APRIL, 5, 14, 37)), is(empty()));
+        assertThat(this.ids(scheduler.due(LocalDateTime.of(2013, Month.APRIL, 5, 14, 36))), contains("task-1"));
+        assertThat(this.ids(scheduler.due(LocalDateTime.of(2013, Month.APRIL, 5, 15, 38))), contains("task-2"));
+    }
+
+    @Test
+    public void givenAtTaskWithTimezone__thenIndexedInTaskTimezone() throws Exception {
+        InvertedIndexTaskScheduler scheduler = new InvertedIndexTaskScheduler(ChronoUnit.MINUTES, UTC_TZ);
+        scheduler.schedule(this.entity("task", TaskSpec.builder().timezone("Europe/Paris").scheduled(scheduled -> scheduled
+                .at(at -> at.dayOfWeek(At.DayOfWeek.MONDAY).hourOfDay(8L).minuteOfHours(0L))
+        ).build()), NOW);
+
+        assertThat(scheduler.due(LocalDateTime.of(2013, Month.APRIL, 8, 8, 0)), is(empty()));
+        assertThat(scheduler.due(LocalDateTime.of(2013, Month.APRIL, 8, 6, 0)), hasSize(1));
+    }
+
+    @Test
+    public void givenScheduledTasks__whenUnscheduledAndRescheduled__thenIndexPositionsAreReused() throws Exception {
+        InvertedIndexTaskScheduler scheduler = new InvertedIndexTaskScheduler(ChronoUnit.MINUTES, UTC_TZ);
+        scheduler.schedule(this.entity("task-1", TaskSpec.builder().scheduled(scheduled -> scheduled.at(at -> at.minuteOfHours(33L))).build()), NOW);
+        scheduler.schedule(this.entity("task-2", TaskSpec.builder().scheduled(scheduled -> scheduled.at(at -> at.minuteOfHours(34L))).build()), NOW);
+        scheduler.unschedule("task-1");
+        scheduler.schedule(this.entity("task-3", TaskSpec.builder().scheduled(scheduled -> scheduled.at(at -> at.minuteOfHours(34L))).build()), NOW);
+        scheduler.schedule(this.entity("task-2", TaskSpec.builder().scheduled(scheduled -> scheduled.at(at -> at.minuteOfHours(35L))).build()), NOW);
+
+        assertThat(scheduler.due(NOW.withMinute(33)), is(empty()));
+        assertThat(this.ids(scheduler.due(NOW.withMinute(34))), contains("task-3"));
+        assertThat(this.ids(scheduler.due(NOW.withMinute(35))), contains("task-2"));
+        assertThat(scheduler.size(), is(2));
+    }
+
+    @Test
+    public void givenRandomTasks__whenTickingEachMinuteForThreeDays__thenSameDueTasksAsSelector() throws Exception {
+        this.assertSameAsSelector(ChronoUnit.MINUTES, LocalDateTime.of(2020, Month.OCTOBER, 24, 0, 0), 3 * 24 * 60, 60L);
+    }
+
+    @Test
+    public void givenRandomTasks__whenTickingEachSecondForTwoHours__thenSameDueTasksAsSelector() throws Exception {
+        this.assertSameAsSelector(ChronoUnit.SECONDS, NOW.withNano(0), 2 * 3600, 1L);
+    }
+
+    private void assertSameAsSelector(ChronoUnit precision, LocalDateTime start, int ticks, long tickSeconds) {
+        InvertedIndexTaskScheduler scheduler = new InvertedIndexTaskScheduler(precision, PARIS_TZ);
+        List<Entity<Task>> tasks = new LinkedList<>();
+
+        Random random = new Random(42);
+        for (int i = 0; i < 300; i++) {
+            Entity<Task> task = this.entity("task-" + i, this.randomSpec(random));
+            tasks.add(task);
+            scheduler.schedule(task, start);
+        }
+
+        for (int i = 1; i <= ticks; i++) {
+            LocalDateTime at = start.plusSeconds(i * tickSeconds);
+            DateTimeTaskSelector selector = precision == ChronoUnit.SECONDS ? DateTimeTaskSelector.secondsPrecision(at, PARIS_TZ) : DateTimeTaskSelector.minutesPrecision(at, PARIS_TZ);
+            List<Entity<Task>> expected = tasks.stream().filter(task -> selector.selectable(task.value().spec())).collect(Collectors.toList());
+            assertThat("at " + at, this.ids(scheduler.due(at)), is(this.ids(expected)));
+        }
+    }
+
+    private TaskSpec randomSpec(Random random) {
+        switch (random.nextInt(5)) {
+            case 0:
+                return TaskSpec.builder().scheduled(scheduled -> scheduled
+                        .every(every -> every.minutes(1L + random.nextInt(90)).startingAt(NOW.minusMinutes(random.nextInt(1000))))
+                ).build();
+            case 1:
+                return TaskSpec.builder().scheduled(scheduled -> scheduled
+                        .at(at -> at.minuteOfHours((long) random.nextInt(60)))
+                ).build();
+            case 2:
+                return TaskSpec.builder().scheduled(scheduled -> scheduled
+                        .at(at -> at.hourOfDay((long) random.nextInt(24)).minuteOfHours((long) random.nextInt(60)))
+                ).build();
+            case 3:
+                return TaskSpec.builder().timezone("America/New_York").scheduled(scheduled -> scheduled
+                        .at(at -> at.dayOfMonth(1L + random.nextInt(31)).minuteOfHours((long) random.nextInt(60)))
+                ).build();
+            default:
+                return TaskSpec.builder().scheduled(scheduled -> scheduled
+                        .at(at -> at.dayOfWeek(At.DayOfWeek.values()[random.nextInt(7)]).hourOfDay((long) random.nextInt(24)))
+                ).build();
+        }
+    }
+
+    private List<String> ids(List<Entity<Task>> tasks) {
+        return tasks.stream().map(Entity::id).sorted().collect(Collectors.toList());
+    }
+
+    private Entity<Task> entity(String id, TaskSpec spec) {
+        return new ImmutableEntity<>(id, BigInteger.ZERO, Task.builder().spec(spec).build());
+    }
+}
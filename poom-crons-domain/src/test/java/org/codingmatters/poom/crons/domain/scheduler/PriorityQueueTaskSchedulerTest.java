@@ -0,0 +1,121 @@
+package org.codingmatters.poom.crons.domain.scheduler;
+
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.crons.crontab.api.types.TaskSpec;
+import org.codingmatters.poom.services.domain.entities.Entity;
+import org.codingmatters.poom.services.domain.entities.ImmutableEntity;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.temporal.ChronoUnit;
+import java.util.TimeZone;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class PriorityQueueTaskSchedulerTest {
+
+    static private final TimeZone PARIS_TZ = TimeZone.getTimeZone("Europe/Paris");
+    static private final TimeZone UTC_TZ = TimeZone.getTimeZone("UTC");
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2013, Month.APRIL, 5, 10, 32, 42, 728);
+
+    @Test
+    public void givenNoTask__whenTicking__thenNothingIsDue() throws Exception {
+        PriorityQueueTaskScheduler scheduler = new PriorityQueueTaskScheduler(ChronoUnit.MINUTES, UTC_TZ);
+
+        assertThat(scheduler.due(NOW.plusMinutes(1)), is(empty()));
+    }
+
+    @Test
+    public void givenEveryTwoMinutesTask__whenTickingEachMinute__thenDueEveryTwoMinutes() throws Exception {
+        PriorityQueueTaskScheduler scheduler = new PriorityQueueTaskScheduler(ChronoUnit.MINUTES, UTC_TZ);
+        scheduler.schedule(this.entity("task", TaskSpec.builder().scheduled(scheduled -> scheduled
+                .every(every -> every.minutes(2L).startingAt(NOW.withMinute(0).withSecond(0)))
+        ).build()), NOW);
+
+        assertThat(scheduler.due(NOW.withMinute(33).withSecond(0)), is(empty()));
+        assertThat(scheduler.due(NOW.withMinute(34).withSecond(0)), hasSize(1));
+        assertThat(scheduler.due(NOW.withMinute(35).withSecond(0)), is(empty()));
+        assertThat(scheduler.due(NOW.withMinute(36).withSecond(1)), hasSize(1));
+    }
+
+    @Test
+    public void givenAtTaskInParis__whenTickingAtParisTime__thenDue() throws Exception {
+        PriorityQueueTaskScheduler scheduler = new PriorityQueueTaskScheduler(ChronoUnit.MINUTES, PARIS_TZ);
+        scheduler.schedule(this.entity("task", TaskSpec.builder().scheduled(scheduled -> scheduled
+                .at(at -> at.hourOfDay(14L).minuteOfHours(0L))
+        ).build()), NOW);
+
+        assertThat(scheduler.due(NOW.withHour(11).withMinute(0)), is(empty()));
+        assertThat(scheduler.due(NOW.withHour(12).withMinute(0)), hasSize(1));
+        assertThat(scheduler.due(NOW.plusDays(1).withHour(12).withMinute(0)), hasSize(1));
+    }
+
+    @Test
+    public void givenScheduledTask__whenTaskSpecChanges__thenRescheduled() throws Exception {
+        PriorityQueueTaskScheduler scheduler = new PriorityQueueTaskScheduler(ChronoUnit.MINUTES, UTC_TZ);
+        scheduler.schedule(this.entity("task", TaskSpec.builder().scheduled(scheduled -> scheduled
+                .at(at -> at.minuteOfHours(40L))
+        ).build()), NOW);
+        scheduler.schedule(this.entity("task", TaskSpec.builder().scheduled(scheduled -> scheduled
+                .at(at -> at.minuteOfHours(50L))
+        ).build()), NOW);
+
+        assertThat(scheduler.due(NOW.withMinute(40)), is(empty()));
+        assertThat(scheduler.due(NOW.withMinute(50)), hasSize(1));
+    }
+
+    @Test
+    public void givenScheduledTask__whenTaskValueChangesWithSameSpec__thenDueTaskHasLastValue() throws Exception {
+        PriorityQueueTaskScheduler scheduler = new PriorityQueueTaskScheduler(ChronoUnit.MINUTES, UTC_TZ);
+        TaskSpec spec = TaskSpec.builder().scheduled(scheduled -> scheduled.at(at -> at.minuteOfHours(40L))).build();
+        scheduler.schedule(this.entity("task", spec), NOW);
+        scheduler.schedule(new ImmutableEntity<>("task", BigInteger.ONE, Task.builder().spec(spec).errorCount(3L).build()), NOW.withMinute(39));
+
+        assertThat(scheduler.due(NOW.withMinute(40)).get(0).value().errorCount(), is(3L));
+    }
+
+    @Test
+    public void givenScheduledTask__whenUnscheduled__thenNotDue() throws Exception {
+        PriorityQueueTaskScheduler scheduler = new PriorityQueueTaskScheduler(ChronoUnit.MINUTES, UTC_TZ);
+        scheduler.schedule(this.entity("task", TaskSpec.builder().scheduled(scheduled -> scheduled
+                .at(at -> at.minuteOfHours(40L))
+        ).build()), NOW);
+        scheduler.unschedule("task");
+
+        assertThat(scheduler.due(NOW.withMinute(40)), is(empty()));
+        assertThat(scheduler.size(), is(0));
+    }
+
+    @Test
+    public void givenScheduledTask__whenTickIsMissed__thenNotDue_andRescheduled() throws Exception {
+        PriorityQueueTaskScheduler scheduler = new PriorityQueueTaskScheduler(ChronoUnit.MINUTES, UTC_TZ);
+        scheduler.schedule(this.entity("task", TaskSpec.builder().scheduled(scheduled -> scheduled
+                .at(at -> at.minuteOfHours(40L))
+        ).build()), NOW);
+
+        assertThat(scheduler.due(NOW.withMinute(41)), is(empty()));
+        assertThat(scheduler.due(NOW.plusHours(1).withMinute(40)), hasSize(1));
+    }
+
+    @Test
+    public void givenSecondsPrecision__whenEveryFiveSeconds__thenDueEveryFiveSeconds() throws Exception {
+        PriorityQueueTaskScheduler scheduler = new PriorityQueueTaskScheduler(ChronoUnit.SECONDS, UTC_TZ);
+        scheduler.schedule(this.entity("task", TaskSpec.builder().scheduled(scheduled -> scheduled
+                .every(every -> every.seconds(5L).startingAt(NOW.withSecond(0)))
+        ).build()), NOW.withSecond(0));
+
+        int dueCount = 0;
+        for (int second = 1; second < 60; second++) {
+            dueCount += scheduler.due(NOW.withSecond(second)).size();
+        }
+        assertThat(dueCount, is(11));
+    }
+
+    private Entity<Task> entity(String id, TaskSpec spec) {
+        return new ImmutableEntity<>(id, BigInteger.ZERO, Task.builder().spec(spec).build());
+    }
+}
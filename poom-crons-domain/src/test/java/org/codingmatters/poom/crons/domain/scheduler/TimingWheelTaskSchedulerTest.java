@@ -0,0 +1,130 @@
+package org.codingmatters.poom.crons.domain.scheduler;
+
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.crons.crontab.api.types.TaskSpec;
+import org.codingmatters.poom.crons.crontab.api.types.taskspec.scheduled.At;
+import org.codingmatters.poom.services.domain.entities.Entity;
+import org.codingmatters.poom.services.domain.entities.ImmutableEntity;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TimingWheelTaskSchedulerTest {
+
+    static private final TimeZone PARIS_TZ = TimeZone.getTimeZone("Europe/Paris");
+    static private final TimeZone UTC_TZ = TimeZone.getTimeZone("UTC");
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2013, Month.APRIL, 5, 10, 32, 42, 728);
+
+    @Test
+    public void givenEveryTwoMinutesTask__whenTickingEachMinute__thenDueEveryTwoMinutes() throws Exception {
+        TimingWheelTaskScheduler scheduler = new TimingWheelTaskScheduler(ChronoUnit.MINUTES, UTC_TZ);
+        scheduler.schedule(this.entity("task", TaskSpec.builder().scheduled(scheduled -> scheduled
+                .every(every -> every.minutes(2L).startingAt(NOW.withMinute(0).withSecond(0)))
+        ).build()), NOW);
+
+        assertThat(scheduler.due(NOW.withMinute(33).withSecond(0)), is(empty()));
+        assertThat(scheduler.due(NOW.withMinute(34).withSecond(0)), hasSize(1));
+        assertThat(scheduler.due(NOW.withMinute(35).withSecond(0)), is(empty()));
+        assertThat(scheduler.due(NOW.withMinute(36).withSecond(1)), hasSize(1));
+    }
+
+    @Test
+    public void givenAtDayOfMonthTask__whenTickingNextMonth__thenDueAfterCascadingLevels() throws Exception {
+        TimingWheelTaskScheduler scheduler = new TimingWheelTaskScheduler(ChronoUnit.MINUTES, PARIS_TZ);
+        scheduler.schedule(this.entity("task", TaskSpec.builder().scheduled(scheduled -> scheduled
+                .at(at -> at.dayOfMonth(2L).hourOfDay(14L).minuteOfHours(0L))
+        ).build()), NOW);
+
+        assertThat(scheduler.due(LocalDateTime.of(2013, Month.MAY, 2, 11, 59)), is(empty()));
+        assertThat(scheduler.due(LocalDateTime.of(2013, Month.MAY, 2, 12, 0)), hasSize(1));
+    }
+
+    @Test
+    public void givenAtDayOfYearTask__whenBeyondDaysWheel__thenDueFromOverflow() throws Exception {
+        TimingWheelTaskScheduler scheduler = new TimingWheelTaskScheduler(ChronoUnit.MINUTES, UTC_TZ);
+        scheduler.schedule(this.entity("task", TaskSpec.builder().scheduled(scheduled -> scheduled
+                .at(at -> at.dayOfYear(366L).hourOfDay(0L).minuteOfHours(0L))
+        ).build()), NOW);
+
+        assertThat(scheduler.due(LocalDateTime.of(2016, Month.DECEMBER, 31, 0, 0)), hasSize(1));
+    }
+
+    @Test
+    public void givenScheduledTask__whenUnscheduled__thenNotDue() throws Exception {
+        TimingWheelTaskScheduler scheduler = new TimingWheelTaskScheduler(ChronoUnit.SECONDS, UTC_TZ);
+        scheduler.schedule(this.entity("task", TaskSpec.builder().scheduled(scheduled -> scheduled
+                .every(every -> every.seconds(5L).startingAt(NOW.withSecond(0)))
+        ).build()), NOW);
+        scheduler.unschedule("task");
+
+        assertThat(scheduler.due(NOW.plusMinutes(1)), is(empty()));
+        assertThat(scheduler.size(), is(0));
+    }
+
+    @Test
+    public void givenRandomTasks__whenTickingEachSecondForTwoHours__thenSameDueTasksAsPriorityQueue() throws Exception {
+        this.assertSameAsPriorityQueue(ChronoUnit.SECONDS, 2 * 3600, 1L);
+    }
+
+    @Test
+    public void givenRandomTasks__whenTickingEachMinuteForThreeDays__thenSameDueTasksAsPriorityQueue() throws Exception {
+        this.assertSameAsPriorityQueue(ChronoUnit.MINUTES, 3 * 24 * 60, 60L);
+    }
+
+    private void assertSameAsPriorityQueue(ChronoUnit precision, int ticks, long tickSeconds) {
+        TimingWheelTaskScheduler wheel = new TimingWheelTaskScheduler(precision, PARIS_TZ);
+        PriorityQueueTaskScheduler queue = new PriorityQueueTaskScheduler(precision, PARIS_TZ);
+
+        Random random = new Random(42);
+        for (int i = 0; i < 300; i++) {
+            Entity<Task> task = this.entity("task-" + i, this.randomSpec(random));
+            wheel.schedule(task, NOW);
+            queue.schedule(task, NOW);
+        }
+
+        for (int i = 1; i <= ticks; i++) {
+            LocalDateTime at = NOW.plusSeconds(i * tickSeconds);
+            assertThat("at " + at, this.ids(wheel.due(at)), is(this.ids(queue.due(at))));
+        }
+    }
+
+    private TaskSpec randomSpec(Random random) {
+        switch (random.nextInt(4)) {
+            case 0:
+                return TaskSpec.builder().scheduled(scheduled -> scheduled
+                        .every(every -> every.seconds(1L + random.nextInt(120)).startingAt(NOW.minusDays(random.nextInt(10))))
+                ).build();
+            case 1:
+                return TaskSpec.builder().scheduled(scheduled -> scheduled
+                        .every(every -> every.minutes(1L + random.nextInt(90)).startingAt(NOW.minusMinutes(random.nextInt(1000))))
+                ).build();
+            case 2:
+                return TaskSpec.builder().scheduled(scheduled -> scheduled
+                        .at(at -> at.hourOfDay((long) random.nextInt(24)).minuteOfHours((long) random.nextInt(60)))
+                ).build();
+            default:
+                return TaskSpec.builder().scheduled(scheduled -> scheduled
+                        .at(at -> at.dayOfWeek(At.DayOfWeek.values()[random.nextInt(7)]).hourOfDay((long) random.nextInt(24)).minuteOfHours((long) random.nextInt(60)))
+                ).build();
+        }
+    }
+
+    private List<String> ids(List<Entity<Task>> tasks) {
+        return tasks.stream().map(Entity::id).sorted().collect(Collectors.toList());
+    }
+
+    private Entity<Task> entity(String id, TaskSpec spec) {
+        return new ImmutableEntity<>(id, BigInteger.ZERO, Task.builder().spec(spec).build());
+    }
+}
@@ -0,0 +1,95 @@
+package org.codingmatters.poom.crons.domain.selector;
+
+import org.codingmatters.poom.crons.crontab.api.types.TaskSpec;
+import org.codingmatters.poom.crons.crontab.api.types.taskspec.Scheduled;
+import org.codingmatters.poom.crons.crontab.api.types.taskspec.scheduled.At;
+import org.codingmatters.poom.crons.crontab.api.types.taskspec.scheduled.Every;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.TimeZone;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class CompiledScheduleTest {
+
+    static private final TimeZone PARIS_TZ = TimeZone.getTimeZone("Europe/Paris");
+
+    private static final LocalDateTime SPRING_FORWARD_2020 = LocalDateTime.of(2020, Month.MARCH, 28, 0, 0);
+    private static final LocalDateTime FALL_BACK_2020 = LocalDateTime.of(2020, Month.OCTOBER, 24, 0, 0);
+    private static final LocalDateTime START = LocalDateTime.of(2020, Month.JANUARY, 1, 0, 20, 15);
+
+    @Test
+    public void givenNoSchedule__thenCompiledToNever() throws Exception {
+        assertThat(CompiledSchedule.compile(TaskSpec.builder().build()).kind(), is(CompiledSchedule.Kind.NEVER));
+    }
+
+    @Test
+    public void givenAtOutOfRange__thenCompiledToNever() throws Exception {
+        assertThat(CompiledSchedule.compile(this.at(At.builder().minuteOfHours(60L).build())).kind(), is(CompiledSchedule.Kind.NEVER));
+        assertThat(CompiledSchedule.compile(this.at(At.builder().dayOfMonth(0L).build())).kind(), is(CompiledSchedule.Kind.NEVER));
+    }
+
+    @Test
+    public void givenTimezone__thenZoneIsResolvedAtCompileTime() throws Exception {
+        TaskSpec spec = TaskSpec.builder().timezone("America/New_York").scheduled(scheduled -> scheduled.at(at -> at.minuteOfHours(12L))).build();
+
+        assertThat(CompiledSchedule.compile(spec).zone(), is(TimeZone.getTimeZone("America/New_York").toZoneId()));
+    }
+
+    @Test
+    public void givenAtExpressions__whenMinutesPrecision__thenMatchesAreTheSelectorOnes() throws Exception {
+        for (LocalDateTime start : new LocalDateTime[] {SPRING_FORWARD_2020, FALL_BACK_2020}) {
+            this.assertMinutesMatchSelector(this.at(At.builder().hourOfDay(2L).minuteOfHours(30L).build()), start, 3 * 24 * 60);
+            this.assertMinutesMatchSelector(this.at(At.builder().minuteOfHours(15L).build()), start, 3 * 24 * 60);
+            this.assertMinutesMatchSelector(this.at(At.builder().dayOfWeek(At.DayOfWeek.SUNDAY).hourOfDay(2L).minuteOfHours(0L).build()), start, 3 * 24 * 60);
+            this.assertMinutesMatchSelector(this.at(At.builder().dayOfMonth(29L).build()), start, 3 * 24 * 60);
+            this.assertMinutesMatchSelector(this.at(At.builder().dayOfYear(299L).hourOfDay(1L).build()), start, 3 * 24 * 60);
+        }
+    }
+
+    @Test
+    public void givenEveryExpressions__whenMinutesPrecision__thenMatchesAreTheSelectorOnes() throws Exception {
+        for (LocalDateTime start : new LocalDateTime[] {SPRING_FORWARD_2020, FALL_BACK_2020}) {
+            this.assertMinutesMatchSelector(this.every(Every.builder().seconds(30L).startingAt(START).build()), start, 3 * 24 * 60);
+            this.assertMinutesMatchSelector(this.every(Every.builder().minutes(45L).startingAt(START).build()), start, 3 * 24 * 60);
+            this.assertMinutesMatchSelector(this.every(Every.builder().hours(1L).startingAt(START).build()), start, 3 * 24 * 60);
+            this.assertMinutesMatchSelector(this.every(Every.builder().days(3L).startingAt(START).build()), start, 3 * 24 * 60);
+            this.assertMinutesMatchSelector(this.every(Every.builder().months(1L).startingAt(LocalDateTime.of(2020, Month.JANUARY, 29, 2, 30)).build()), start, 3 * 24 * 60);
+            this.assertMinutesMatchSelector(this.every(Every.builder().years(1L).startingAt(LocalDateTime.of(2019, Month.OCTOBER, 25, 2, 30)).build()), start, 3 * 24 * 60);
+        }
+    }
+
+    @Test
+    public void givenEveryExpressions__whenSecondsPrecision__thenMatchesAreTheSelectorOnes() throws Exception {
+        this.assertSecondsMatchSelector(this.every(Every.builder().seconds(7L).startingAt(START).build()), FALL_BACK_2020.plusHours(22), 6 * 3600);
+        this.assertSecondsMatchSelector(this.every(Every.builder().minutes(5L).startingAt(START).build()), FALL_BACK_2020.plusHours(22), 6 * 3600);
+        this.assertSecondsMatchSelector(this.at(At.builder().minuteOfHours(15L).build()), FALL_BACK_2020.plusHours(22), 6 * 3600);
+    }
+
+    private void assertMinutesMatchSelector(TaskSpec spec, LocalDateTime start, int minutes) {
+        CompiledSchedule compiled = CompiledSchedule.compile(spec);
+        for (int i = 0; i < minutes; i++) {
+            DateTimeTaskSelector selector = DateTimeTaskSelector.minutesPrecision(start.plusMinutes(i), PARIS_TZ);
+            assertThat("compiled " + spec + " at " + start.plusMinutes(i), selector.selectable(compiled, spec), is(selector.selectable(spec)));
+        }
+    }
+
+    private void assertSecondsMatchSelector(TaskSpec spec, LocalDateTime start, int seconds) {
+        CompiledSchedule compiled = CompiledSchedule.compile(spec);
+        for (int i = 0; i < seconds; i++) {
+            DateTimeTaskSelector selector = DateTimeTaskSelector.secondsPrecision(start.plusSeconds(i), PARIS_TZ);
+            assertThat("compiled " + spec + " at " + start.plusSeconds(i), selector.selectable(compiled, spec), is(selector.selectable(spec)));
+        }
+    }
+
+    private TaskSpec at(At at) {
+        return TaskSpec.builder().scheduled(Scheduled.builder().at(at).build()).build();
+    }
+
+    private TaskSpec every(Every every) {
+        return TaskSpec.builder().scheduled(Scheduled.builder().every(every).build()).build();
+    }
+}
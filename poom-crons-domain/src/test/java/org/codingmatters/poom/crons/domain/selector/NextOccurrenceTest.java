@@ -0,0 +1,146 @@
+package org.codingmatters.poom.crons.domain.selector;
+
+import org.codingmatters.poom.crons.crontab.api.types.TaskSpec;
+import org.codingmatters.poom.crons.crontab.api.types.taskspec.Scheduled;
+import org.codingmatters.poom.crons.crontab.api.types.taskspec.scheduled.At;
+import org.codingmatters.poom.crons.crontab.api.types.taskspec.scheduled.Every;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.ZoneOffset;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+import java.util.TimeZone;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class NextOccurrenceTest {
+
+    static private final TimeZone PARIS_TZ = TimeZone.getTimeZone("Europe/Paris");
+    static private final TimeZone UTC_TZ = TimeZone.getTimeZone("UTC");
+
+    private static final LocalDateTime AT_2013_04_05_10_32_42_728 = LocalDateTime.of(2013, Month.APRIL, 5, 10, 32, 42, 728);
+    private static final LocalDateTime SPRING_FORWARD_2020 = LocalDateTime.of(2020, Month.MARCH, 28, 0, 0);
+    private static final LocalDateTime FALL_BACK_2020 = LocalDateTime.of(2020, Month.OCTOBER, 24, 0, 0);
+
+    @Test
+    public void givenNoSchedule__thenNoOccurrence() throws Exception {
+        assertThat(NextOccurrence.minutesPrecision(UTC_TZ).nextOccurrence(TaskSpec.builder().build(), this.instant(AT_2013_04_05_10_32_42_728)), is(Optional.empty()));
+    }
+
+    @Test
+    public void givenAtMinuteOfHour__thenNextOccurrenceIsNextMatchingMinute() throws Exception {
+        assertThat(
+                NextOccurrence.minutesPrecision(UTC_TZ).nextOccurrence(this.at(At.builder().minuteOfHours(32L).build()), this.instant(AT_2013_04_05_10_32_42_728)),
+                is(Optional.of(this.instant(LocalDateTime.of(2013, Month.APRIL, 5, 11, 32))))
+        );
+        assertThat(
+                NextOccurrence.minutesPrecision(UTC_TZ).nextOccurrence(this.at(At.builder().minuteOfHours(33L).build()), this.instant(AT_2013_04_05_10_32_42_728)),
+                is(Optional.of(this.instant(LocalDateTime.of(2013, Month.APRIL, 5, 10, 33))))
+        );
+    }
+
+    @Test
+    public void givenAtDayOfWeek_andTaskTimezone__thenNextOccurrenceIsInTaskTimezone() throws Exception {
+        TaskSpec spec = TaskSpec.builder().timezone("Europe/Paris").scheduled(scheduled -> scheduled
+                .at(at -> at.dayOfWeek(At.DayOfWeek.MONDAY).hourOfDay(8L).minuteOfHours(0L))
+        ).build();
+
+        assertThat(
+                NextOccurrence.minutesPrecision(UTC_TZ).nextOccurrence(spec, this.instant(AT_2013_04_05_10_32_42_728)),
+                is(Optional.of(this.instant(LocalDateTime.of(2013, Month.APRIL, 8, 6, 0))))
+        );
+    }
+
+    @Test
+    public void givenAtDayOfMonth__whenMonthHasNoSuchDay__thenNextOccurrenceSkipsMonth() throws Exception {
+        assertThat(
+                NextOccurrence.minutesPrecision(UTC_TZ).nextOccurrence(this.at(At.builder().dayOfMonth(31L).hourOfDay(0L).minuteOfHours(0L).build()), this.instant(AT_2013_04_05_10_32_42_728)),
+                is(Optional.of(this.instant(LocalDateTime.of(2013, Month.MAY, 31, 0, 0))))
+        );
+    }
+
+    @Test
+    public void givenAtDayOfYear366__thenNextOccurrenceIsInNextLeapYear() throws Exception {
+        assertThat(
+                NextOccurrence.minutesPrecision(UTC_TZ).nextOccurrence(this.at(At.builder().dayOfYear(366L).hourOfDay(0L).minuteOfHours(0L).build()), this.instant(AT_2013_04_05_10_32_42_728)),
+                is(Optional.of(this.instant(LocalDateTime.of(2016, Month.DECEMBER, 31, 0, 0))))
+        );
+    }
+
+    @Test
+    public void givenEveryMonthOn31__thenNextOccurrenceSkipsShortMonths() throws Exception {
+        TaskSpec spec = TaskSpec.builder().scheduled(scheduled -> scheduled
+                .every(every -> every.months(1L).startingAt(LocalDateTime.of(2013, Month.JANUARY, 31, 10, 0)))
+        ).build();
+
+        assertThat(
+                NextOccurrence.minutesPrecision(UTC_TZ).nextOccurrence(spec, this.instant(AT_2013_04_05_10_32_42_728)),
+                is(Optional.of(this.instant(LocalDateTime.of(2013, Month.MAY, 31, 10, 0))))
+        );
+    }
+
+    @Test
+    public void givenEverySeconds__whenMinutesPrecision__thenNoOccurrence() throws Exception {
+        TaskSpec spec = TaskSpec.builder().scheduled(scheduled -> scheduled
+                .every(every -> every.seconds(10L).startingAt(AT_2013_04_05_10_32_42_728.minusDays(1)))
+        ).build();
+
+        assertThat(NextOccurrence.minutesPrecision(UTC_TZ).nextOccurrence(spec, this.instant(AT_2013_04_05_10_32_42_728)), is(Optional.empty()));
+    }
+
+    @Test
+    public void givenAtExpressions__whenAroundDaylightSavingTransitions__thenOccurrencesAreTheSelectorOnes() throws Exception {
+        for (LocalDateTime start : new LocalDateTime[] {SPRING_FORWARD_2020, FALL_BACK_2020}) {
+            this.assertOccurrencesMatchSelector(this.at(At.builder().hourOfDay(2L).minuteOfHours(30L).build()), start, 3 * 24 * 60);
+            this.assertOccurrencesMatchSelector(this.at(At.builder().minuteOfHours(15L).build()), start, 3 * 24 * 60);
+            this.assertOccurrencesMatchSelector(this.at(At.builder().dayOfWeek(At.DayOfWeek.SUNDAY).hourOfDay(2L).minuteOfHours(0L).build()), start, 3 * 24 * 60);
+        }
+    }
+
+    @Test
+    public void givenEveryExpressions__whenAroundDaylightSavingTransitions__thenOccurrencesAreTheSelectorOnes() throws Exception {
+        for (LocalDateTime start : new LocalDateTime[] {SPRING_FORWARD_2020, FALL_BACK_2020}) {
+            this.assertOccurrencesMatchSelector(this.everyMinutes(45L, LocalDateTime.of(2020, Month.JANUARY, 1, 0, 0)), start, 3 * 24 * 60);
+            this.assertOccurrencesMatchSelector(this.everyHours(1L, LocalDateTime.of(2020, Month.JANUARY, 1, 0, 20)), start, 3 * 24 * 60);
+        }
+    }
+
+    private void assertOccurrencesMatchSelector(TaskSpec spec, LocalDateTime start, int minutes) {
+        List<LocalDateTime> selected = new LinkedList<>();
+        for (int i = 1; i <= minutes; i++) {
+            LocalDateTime at = start.plusMinutes(i);
+            if(DateTimeTaskSelector.minutesPrecision(at, PARIS_TZ).selectable(spec)) {
+                selected.add(at);
+            }
+        }
+
+        NextOccurrence nextOccurrence = NextOccurrence.minutesPrecision(PARIS_TZ);
+        LocalDateTime after = start;
+        for (LocalDateTime expected : selected) {
+            Optional<LocalDateTime> next = nextOccurrence.nextOccurrence(spec, after);
+            assertThat("next occurrence of " + spec + " after " + after, next, is(Optional.of(expected)));
+            after = next.get();
+        }
+    }
+
+    private TaskSpec at(At at) {
+        return TaskSpec.builder().scheduled(Scheduled.builder().at(at).build()).build();
+    }
+
+    private TaskSpec everyMinutes(long minutes, LocalDateTime startingAt) {
+        return TaskSpec.builder().scheduled(Scheduled.builder().every(Every.builder().minutes(minutes).startingAt(startingAt).build()).build()).build();
+    }
+
+    private TaskSpec everyHours(long hours, LocalDateTime startingAt) {
+        return TaskSpec.builder().scheduled(Scheduled.builder().every(Every.builder().hours(hours).startingAt(startingAt).build()).build()).build();
+    }
+
+    private Instant instant(LocalDateTime utc) {
+        return utc.toInstant(ZoneOffset.UTC);
+    }
+}
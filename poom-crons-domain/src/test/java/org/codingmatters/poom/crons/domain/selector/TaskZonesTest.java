@@ -0,0 +1,26 @@
+package org.codingmatters.poom.crons.domain.selector;
+
+import org.junit.Test;
+
+import java.time.ZoneId;
+import java.util.TimeZone;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class TaskZonesTest {
+
+    @Test
+    public void givenTimezone__whenResolvedTwice__thenSameZoneIsReturned() throws Exception {
+        ZoneId zone = TaskZones.zone("Europe/Paris");
+
+        assertThat(zone, is(ZoneId.of("Europe/Paris")));
+        assertThat(TaskZones.zone("Europe/Paris"), is(sameInstance(zone)));
+    }
+
+    @Test
+    public void givenUnknownTimezone__thenResolvedAsTimeZoneDoes() throws Exception {
+        assertThat(TaskZones.zone("Not/AZone"), is(TimeZone.getTimeZone("Not/AZone").toZoneId()));
+    }
+}
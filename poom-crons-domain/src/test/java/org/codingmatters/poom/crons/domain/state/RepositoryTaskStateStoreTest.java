@@ -0,0 +1,77 @@
+package org.codingmatters.poom.crons.domain.state;
+
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.services.domain.entities.PagedEntityList;
+import org.codingmatters.poom.services.domain.exceptions.RepositoryException;
+import org.codingmatters.poom.services.domain.repositories.Repository;
+import org.codingmatters.poom.services.domain.repositories.inmemory.InMemoryRepository;
+import org.codingmatters.poom.services.support.date.UTC;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class RepositoryTaskStateStoreTest {
+
+    private final Map<String, Repository<Task, Void>> repositories = new HashMap<>();
+    private final RepositoryTaskStateStore store = new RepositoryTaskStateStore(account -> this.repositories.computeIfAbsent(account, a -> new InMemoryRepository<Task, Void>() {
+        @Override
+        public PagedEntityList<Task> search(Void query, long startIndex, long endIndex) throws RepositoryException {
+            return this.all(startIndex, endIndex);
+        }
+    }));
+
+    @Test
+    public void givenNoState__whenPuttingStates__thenStatesAreCreated_andReadBackByAnotherStore() throws Exception {
+        LocalDateTime lastTrig = UTC.now();
+        this.store.putAll("my-account", Collections.singletonMap("task", new TaskState(lastTrig, true, 0L)));
+
+        RepositoryTaskStateStore restarted = new RepositoryTaskStateStore(this.repositories::get);
+        assertThat(restarted.get("my-account", "task"), is(new TaskState(lastTrig, true, 0L)));
+        assertThat(restarted.all("my-account"), is(Collections.singletonMap("task", new TaskState(lastTrig, true, 0L))));
+    }
+
+    @Test
+    public void givenState__whenPuttingStates__thenStateIsUpdatedInPlace() throws Exception {
+        this.store.putAll("my-account", Collections.singletonMap("task", new TaskState(UTC.now(), true, 0L)));
+        LocalDateTime lastTrig = UTC.now().plusMinutes(1L);
+        this.store.putAll("my-account", Collections.singletonMap("task", new TaskState(lastTrig, false, 1L)));
+
+        assertThat(this.repositories.get("my-account").all(0, 10).total(), is(1L));
+        assertThat(this.store.get("my-account", "task"), is(new TaskState(lastTrig, false, 1L)));
+    }
+
+    @Test
+    public void givenState__whenRemoving__thenStateIsGone() throws Exception {
+        this.store.putAll("my-account", Collections.singletonMap("task", new TaskState(UTC.now(), true, 0L)));
+
+        this.store.remove("my-account", "task");
+        this.store.remove("my-account", "not-stored");
+
+        assertThat(this.store.get("my-account", "task"), is(nullValue()));
+        assertThat(this.store.all("my-account").isEmpty(), is(true));
+    }
+
+    @Test
+    public void givenStates__whenGettingSomeIds__thenOnlyStoredRequestedStatesAreReturned() throws Exception {
+        LocalDateTime lastTrig = UTC.now();
+        Map<String, TaskState> states = new HashMap<>();
+        states.put("task-1", new TaskState(lastTrig, true, 0L));
+        states.put("task-2", new TaskState(lastTrig, false, 2L));
+        states.put("task-3", new TaskState(lastTrig, true, 0L));
+        this.store.putAll("my-account", states);
+
+        Map<String, TaskState> expected = new HashMap<>();
+        expected.put("task-1", new TaskState(lastTrig, true, 0L));
+        expected.put("task-2", new TaskState(lastTrig, false, 2L));
+        assertThat(this.store.get("my-account", new HashSet<>(Arrays.asList("task-1", "task-2", "not-stored"))), is(expected));
+    }
+}
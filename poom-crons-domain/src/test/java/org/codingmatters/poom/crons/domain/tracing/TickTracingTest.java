@@ -0,0 +1,40 @@
+package org.codingmatters.poom.crons.domain.tracing;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TickTracingTest {
+
+    @Test
+    public void givenDisabledTracing__whenTicking__thenNoChildSpanIsStarted() throws Exception {
+        Context tick = TickTracing.disabled().tick(LocalDateTime.now());
+
+        assertThat(tick, is(Context.root()));
+        assertThat(TickTracing.start(tick, "tick.selection", SpanKind.INTERNAL).getSpanContext().isValid(), is(false));
+    }
+
+    @Test
+    public void givenNoTickContext__whenStartingSpan__thenSpanIsInvalid() throws Exception {
+        assertThat(TickTracing.start("trigger", SpanKind.CLIENT), is(Span.getInvalid()));
+    }
+
+    @Test
+    public void givenZeroSampleRate__whenGettingGlobalTracing__thenTracingIsDisabled() throws Exception {
+        assertThat(TickTracing.global(0d).sampleRate(), is(0d));
+    }
+
+    @Test
+    public void givenFullSampleRate__whenTicking__thenTickContextCarriesTracing() throws Exception {
+        Context tick = new TickTracing(OpenTelemetry.noop(), 1d).tick(LocalDateTime.now());
+
+        assertThat(tick, is(not(Context.root())));
+    }
+}
@@ -0,0 +1,50 @@
+package org.codingmatters.poom.crons.domain.tracing;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Scope;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TraceContextInterceptorTest {
+
+    static private final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    static private final String SPAN_ID = "00f067aa0ba902b7";
+
+    private final AtomicReference<Request> sent = new AtomicReference<>();
+    private final OkHttpClient client = new OkHttpClient.Builder()
+            .addInterceptor(new TraceContextInterceptor())
+            .addInterceptor(chain -> {
+                this.sent.set(chain.request());
+                return new Response.Builder().request(chain.request()).protocol(Protocol.HTTP_1_1).code(204).message("No Content").build();
+            })
+            .build();
+
+    @Test
+    public void givenNoCurrentSpan__whenCalling__thenNoTraceContextIsSent() throws Exception {
+        this.client.newCall(new Request.Builder().url("http://localhost/cronned").build()).execute();
+
+        assertThat(this.sent.get().header("traceparent"), is(nullValue()));
+    }
+
+    @Test
+    public void givenSampledCurrentSpan__whenCalling__thenW3CTraceParentIsSent() throws Exception {
+        Span span = Span.wrap(SpanContext.create(TRACE_ID, SPAN_ID, TraceFlags.getSampled(), TraceState.getDefault()));
+        try (Scope scope = span.makeCurrent()) {
+            this.client.newCall(new Request.Builder().url("http://localhost/cronned").header("poom-event-id", "event").build()).execute();
+        }
+
+        assertThat(this.sent.get().header("traceparent"), is("00-" + TRACE_ID + "-" + SPAN_ID + "-01"));
+        assertThat(this.sent.get().header("poom-event-id"), is("event"));
+    }
+}
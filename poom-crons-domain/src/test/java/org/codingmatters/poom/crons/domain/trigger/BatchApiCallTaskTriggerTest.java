@@ -0,0 +1,180 @@
+package org.codingmatters.poom.crons.domain.trigger;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.codingmatters.poom.crons.cronned.api.PoomCronnedHandlers;
+import org.codingmatters.poom.crons.cronned.api.TaskEventTriggeredPostRequest;
+import org.codingmatters.poom.crons.cronned.api.TaskEventTriggeredPostResponse;
+import org.codingmatters.poom.crons.cronned.api.TaskEventsTriggeredBatchPostRequest;
+import org.codingmatters.poom.crons.cronned.api.TaskEventsTriggeredBatchPostResponse;
+import org.codingmatters.poom.crons.cronned.api.harness.PoomCronnedProcessor;
+import org.codingmatters.poom.crons.cronned.api.taskeventtriggeredpostresponse.Status204;
+import org.codingmatters.poom.crons.cronned.api.taskeventstriggeredbatchpostresponse.Status200;
+import org.codingmatters.poom.crons.cronned.api.taskeventstriggeredbatchpostresponse.Status410;
+import org.codingmatters.poom.crons.cronned.api.taskeventstriggeredbatchpostresponse.Status500;
+import org.codingmatters.poom.crons.cronned.api.types.Error;
+import org.codingmatters.poom.crons.cronned.api.types.TriggeredEventStatus;
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.crons.crontab.api.types.TaskSpec;
+import org.codingmatters.poom.crons.domain.clock.VirtualClock;
+import org.codingmatters.poom.services.support.date.UTC;
+import org.codingmatters.rest.api.client.okhttp.OkHttpClientWrapper;
+import org.codingmatters.rest.undertow.CdmHttpUndertowHandler;
+import org.codingmatters.rest.undertow.support.UndertowResource;
+import org.codingmatters.value.objects.values.ObjectValue;
+import org.codingmatters.value.objects.values.PropertyValue;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class BatchApiCallTaskTriggerTest {
+
+    @Rule
+    public UndertowResource server = new UndertowResource(new CdmHttpUndertowHandler(new PoomCronnedProcessor("/cronned", new JsonFactory(), new PoomCronnedHandlers.Builder()
+            .taskEventsTriggeredBatchPostHandler(this::taskEventsTriggeredBatch)
+            .taskEventTriggeredPostHandler(this::taskEventTriggered)
+            .build())));
+
+    private AtomicReference<TaskEventsTriggeredBatchPostResponse> nextResponse = new AtomicReference<>();
+    private AtomicReference<TaskEventsTriggeredBatchPostRequest> lastRequest = new AtomicReference<>();
+    private AtomicInteger singleCalls = new AtomicInteger();
+    private BatchApiCallTaskTrigger trigger;
+
+    private TaskEventsTriggeredBatchPostResponse taskEventsTriggeredBatch(TaskEventsTriggeredBatchPostRequest request) {
+        this.lastRequest.set(request);
+
+        if(this.nextResponse.get() == null) throw new AssertionError("must set net response");
+        return this.nextResponse.get();
+    }
+
+    private TaskEventTriggeredPostResponse taskEventTriggered(TaskEventTriggeredPostRequest request) {
+        this.singleCalls.incrementAndGet();
+        return TaskEventTriggeredPostResponse.builder().status204(Status204.builder().build()).build();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        this.trigger = new BatchApiCallTaskTrigger(OkHttpClientWrapper.build(builder -> builder.connectTimeout(2, TimeUnit.SECONDS)), new JsonFactory());
+    }
+
+    private Task task(String id) {
+        return Task.builder().id(id)
+                .spec(TaskSpec.builder()
+                        .url(this.server.baseUrl() + "/cronned")
+                        .payload(ObjectValue.builder().property("hello", PropertyValue.builder().stringValue(id)).build())
+                        .build())
+                .build();
+    }
+
+    @Test
+    public void givenBatch__whenCronnedReturnsA200__thenResultsAreMappedFromItemStatuses() throws Exception {
+        this.nextResponse.set(TaskEventsTriggeredBatchPostResponse.builder()
+                .status200(Status200.builder().payload(
+                        TriggeredEventStatus.builder().poomTaskId("t3").status(TriggeredEventStatus.Status.FAILED).description("boom").build(),
+                        TriggeredEventStatus.builder().poomTaskId("t1").status(TriggeredEventStatus.Status.DONE).build(),
+                        TriggeredEventStatus.builder().poomTaskId("t2").status(TriggeredEventStatus.Status.GONE).build()
+                ).build())
+                .build());
+
+        String eventId = UUID.randomUUID().toString();
+        assertThat(this.trigger.trigBatch(Arrays.asList(this.task("t1"), this.task("t2"), this.task("t3"), this.task("t4")), UTC.now(), eventId), contains(
+                new TriggerResult(true, false),
+                new TriggerResult(false, true),
+                new TriggerResult(false, false),
+                new TriggerResult(false, false)
+        ));
+
+        assertThat(this.lastRequest.get().payload(), hasSize(4));
+        assertThat(this.lastRequest.get().payload().get(0).poomTaskId(), is("t1"));
+        assertThat(this.lastRequest.get().payload().get(0).poomEventId(), is(eventId));
+        assertThat(this.lastRequest.get().payload().get(0).payload(), is(this.task("t1").spec().payload()));
+    }
+
+    @Test
+    public void givenBatchOfTasksWithoutId__whenCronnedReturnsA200__thenResultsAreMappedByPosition() throws Exception {
+        this.nextResponse.set(TaskEventsTriggeredBatchPostResponse.builder()
+                .status200(Status200.builder().payload(
+                        TriggeredEventStatus.builder().status(TriggeredEventStatus.Status.DONE).build(),
+                        TriggeredEventStatus.builder().status(TriggeredEventStatus.Status.GONE).build()
+                ).build())
+                .build());
+
+        assertThat(this.trigger.trigBatch(Arrays.asList(this.task("t1").withId(null), this.task("t2").withId(null)), UTC.now(), "12"), contains(
+                new TriggerResult(true, false),
+                new TriggerResult(false, true)
+        ));
+    }
+
+    @Test
+    public void givenBatch__whenCronnedReturnsA410__thenAllResultsAreGone() throws Exception {
+        this.nextResponse.set(TaskEventsTriggeredBatchPostResponse.builder()
+                .status410(Status410.builder().payload(Error.builder().build()).build())
+                .build());
+
+        assertThat(this.trigger.trigBatch(Arrays.asList(this.task("t1"), this.task("t2")), UTC.now(), "12"), contains(
+                new TriggerResult(false, true),
+                new TriggerResult(false, true)
+        ));
+    }
+
+    @Test
+    public void givenBatch__whenCronnedReturnsA500__thenAllResultsAreFailures() throws Exception {
+        this.nextResponse.set(TaskEventsTriggeredBatchPostResponse.builder()
+                .status500(Status500.builder().build())
+                .build());
+
+        assertThat(this.trigger.trigBatch(Arrays.asList(this.task("t1"), this.task("t2")), UTC.now(), "12"), contains(
+                new TriggerResult(false, false),
+                new TriggerResult(false, false)
+        ));
+    }
+
+    @Test
+    public void givenCronnedWithoutBatch__whenTriggeringBatches__thenSingleCallsAreUsedUntilRetryDelayExpires() throws Exception {
+        AtomicInteger batchCalls = new AtomicInteger();
+        VirtualClock clock = new VirtualClock(Instant.now());
+        BatchApiCallTaskTrigger trigger = new BatchApiCallTaskTrigger(OkHttpClientWrapper.build(builder -> builder
+                .connectTimeout(2, TimeUnit.SECONDS)
+                .addInterceptor(chain -> {
+                    if(! chain.request().url().encodedPath().endsWith("/batch")) {
+                        return chain.proceed(chain.request());
+                    }
+                    batchCalls.incrementAndGet();
+                    return new Response.Builder()
+                            .request(chain.request())
+                            .protocol(Protocol.HTTP_1_1)
+                            .code(404).message("Not Found")
+                            .body(ResponseBody.create(null, ""))
+                            .build();
+                })
+        ), new JsonFactory()).usingClock(clock);
+
+        assertThat(trigger.trigBatch(Arrays.asList(this.task("t1"), this.task("t2")), UTC.now(), "12"), contains(
+                new TriggerResult(true, false),
+                new TriggerResult(true, false)
+        ));
+        assertThat(batchCalls.get(), is(1));
+        assertThat(this.singleCalls.get(), is(2));
+
+        trigger.trigBatch(Arrays.asList(this.task("t1"), this.task("t2")), UTC.now(), "13");
+        assertThat(batchCalls.get(), is(1));
+        assertThat(this.singleCalls.get(), is(4));
+
+        clock.advance(Duration.ofSeconds(Long.parseLong(BatchApiCallTaskTrigger.CRON_BATCH_RETRY_SECONDS_DEFAULT) + 1));
+        trigger.trigBatch(Arrays.asList(this.task("t1"), this.task("t2")), UTC.now(), "14");
+        assertThat(batchCalls.get(), is(2));
+    }
+}
@@ -0,0 +1,58 @@
+package org.codingmatters.poom.crons.domain.trigger;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.codingmatters.poom.crons.cronned.client.PoomCronnedClient;
+import org.codingmatters.poom.crons.cronned.client.PoomCronnedRequesterClient;
+import org.codingmatters.poom.crons.crontab.api.types.TaskSpec;
+import org.codingmatters.rest.api.client.UrlProvider;
+import org.codingmatters.rest.api.client.okhttp.HttpClientWrapper;
+import org.codingmatters.rest.api.client.okhttp.OkHttpRequesterFactory;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class CronnedClientCacheTest {
+
+    private final HttpClientWrapper clientWrapper = TriggerHttpClients.pooled(4, 60, 2);
+    private final AtomicInteger created = new AtomicInteger();
+
+    private PoomCronnedClient client(String url) {
+        this.created.incrementAndGet();
+        UrlProvider urlProvider = () -> url;
+        return new PoomCronnedRequesterClient(new OkHttpRequesterFactory(this.clientWrapper, urlProvider), new JsonFactory(), urlProvider);
+    }
+
+    @Test
+    public void givenSameUrl__whenGettingClientTwice__thenClientIsReused() throws Exception {
+        CronnedClientCache cache = new CronnedClientCache(this::client, 10);
+
+        PoomCronnedClient client = cache.apply(TaskSpec.builder().url("http://cronned.local/a").build());
+
+        assertThat(cache.apply(TaskSpec.builder().url("http://cronned.local/a").build()), is(sameInstance(client)));
+        assertThat(this.created.get(), is(1));
+    }
+
+    @Test
+    public void givenCacheIsFull__whenGettingNewUrl__thenLeastRecentlyUsedClientIsEvicted() throws Exception {
+        CronnedClientCache cache = new CronnedClientCache(this::client, 2);
+
+        PoomCronnedClient a = cache.apply(TaskSpec.builder().url("http://cronned.local/a").build());
+        cache.apply(TaskSpec.builder().url("http://cronned.local/b").build());
+        cache.apply(TaskSpec.builder().url("http://cronned.local/a").build());
+        cache.apply(TaskSpec.builder().url("http://cronned.local/c").build());
+
+        assertThat(cache.size(), is(2));
+        assertThat(cache.apply(TaskSpec.builder().url("http://cronned.local/a").build()), is(sameInstance(a)));
+        assertThat(this.created.get(), is(3));
+    }
+
+    @Test
+    public void givenNoUrl__thenNoClient() throws Exception {
+        CronnedClientCache cache = new CronnedClientCache(this::client, 2);
+
+        assertThat(cache.apply(TaskSpec.builder().build()), is(nullValue()));
+    }
+}
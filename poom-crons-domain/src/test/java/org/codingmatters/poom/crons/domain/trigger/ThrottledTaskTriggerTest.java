@@ -0,0 +1,163 @@
+package org.codingmatters.poom.crons.domain.trigger;
+
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.services.support.date.UTC;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class ThrottledTaskTriggerTest {
+
+    @Test
+    public void givenManyTasksOnTwoHosts__whenTriggering__thenGlobalAndPerHostLimitsAreHonored() throws Exception {
+        Map<String, AtomicInteger> inFlightByHost = new ConcurrentHashMap<>();
+        Map<String, AtomicInteger> maxByHost = new ConcurrentHashMap<>();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        TaskTrigger blocking = (task, triggedAt, eventId) -> {
+            String host = task.spec().url().startsWith("http://a") ? "a" : "b";
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            maxByHost.computeIfAbsent(host, h -> new AtomicInteger()).accumulateAndGet(
+                    inFlightByHost.computeIfAbsent(host, h -> new AtomicInteger()).incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlightByHost.get(host).decrementAndGet();
+            inFlight.decrementAndGet();
+            return new TriggerResult(true);
+        };
+
+        ExecutorService executor = TriggerExecutors.virtualThreadPerTask();
+        try {
+            ThrottledTaskTrigger trigger = new ThrottledTaskTrigger(blocking, executor, 3, 2);
+            List<CompletableFuture<TriggerResult>> results = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                Task task = Task.builder().id("task-" + i).spec(spec -> spec.url((results.size() % 2 == 0 ? "http://a.local" : "http://b.local") + "/cronned")).build();
+                results.add(trigger.trigAsync(task, UTC.now(), "event").toCompletableFuture());
+            }
+            CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+            assertThat(results.stream().allMatch(result -> result.join().success()), is(true));
+            assertThat(maxInFlight.get(), is(lessThanOrEqualTo(3)));
+            assertThat(maxByHost.get("a").get(), is(lessThanOrEqualTo(2)));
+            assertThat(maxByHost.get("b").get(), is(lessThanOrEqualTo(2)));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void givenPlatformThreadPool__whenTriggeringMoreTasksThanAllowedInFlight__thenOnlyAllowedTasksAreHandedToTheExecutor() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        TaskTrigger blocking = (task, triggedAt, eventId) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new TriggerResult(true);
+        };
+
+        ExecutorService pool = Executors.newCachedThreadPool();
+        AtomicInteger submitted = new AtomicInteger();
+        try {
+            ThrottledTaskTrigger trigger = new ThrottledTaskTrigger(blocking, runnable -> {
+                submitted.incrementAndGet();
+                pool.execute(runnable);
+            }, 3, 2);
+            List<CompletableFuture<TriggerResult>> results = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                String host = i % 4 == 0 ? "http://a.local" : "http://b" + i + ".local";
+                results.add(trigger.trigAsync(Task.builder().id("task-" + i).spec(spec -> spec.url(host + "/cronned")).build(), UTC.now(), "event").toCompletableFuture());
+            }
+
+            assertThat(submitted.get(), is(3));
+
+            release.countDown();
+            CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+            assertThat(submitted.get(), is(40));
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void givenTriggerThrowsAnError__whenTriggering__thenFutureFails_andHostIsReleased() throws Exception {
+        TaskTrigger failingOnce = new TaskTrigger() {
+            private final AtomicInteger calls = new AtomicInteger();
+
+            @Override
+            public TriggerResult trig(Task task, LocalDateTime triggedAt, String eventId) {
+                if(this.calls.incrementAndGet() == 1) {
+                    throw new AssertionError("failing trigger");
+                }
+                return new TriggerResult(true);
+            }
+        };
+
+        ThrottledTaskTrigger trigger = new ThrottledTaskTrigger(failingOnce, runnable -> {
+            try {
+                runnable.run();
+            } catch (Error e) {
+            }
+        }, 1, 1);
+        CompletableFuture<TriggerResult> failed = trigger.trigAsync(Task.builder().id("t1").spec(spec -> spec.url("http://a.local/cronned")).build(), UTC.now(), "event").toCompletableFuture();
+        CompletableFuture<TriggerResult> next = trigger.trigAsync(Task.builder().id("t2").spec(spec -> spec.url("http://a.local/cronned")).build(), UTC.now(), "event").toCompletableFuture();
+
+        assertThat(failed.isCompletedExceptionally(), is(true));
+        assertThat(next.get(10, TimeUnit.SECONDS).success(), is(true));
+    }
+
+    @Test
+    public void givenOneHostIsSaturated__whenTriggeringAnotherHost__thenOtherHostIsNotStarved() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        TaskTrigger blockingOnA = (task, triggedAt, eventId) -> {
+            if(task.spec().url().startsWith("http://a")) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return new TriggerResult(true);
+        };
+
+        ExecutorService executor = TriggerExecutors.virtualThreadPerTask();
+        try {
+            ThrottledTaskTrigger trigger = new ThrottledTaskTrigger(blockingOnA, executor, 3, 1);
+            List<CompletableFuture<TriggerResult>> saturated = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                saturated.add(trigger.trigAsync(Task.builder().id("a-" + i).spec(spec -> spec.url("http://a.local/cronned")).build(), UTC.now(), "event").toCompletableFuture());
+            }
+            Thread.sleep(50);
+
+            TriggerResult other = trigger.trigAsync(Task.builder().id("b").spec(spec -> spec.url("http://b.local/cronned")).build(), UTC.now(), "event")
+                    .toCompletableFuture().get(10, TimeUnit.SECONDS);
+            assertThat(other.success(), is(true));
+
+            release.countDown();
+            CompletableFuture.allOf(saturated.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+}
@@ -3,25 +3,88 @@ package org.codingmatters.poom.crons.service;
 import org.codingmatters.poom.crons.crontab.api.types.Task;
 import org.codingmatters.poom.crons.domain.Crontab;
 import org.codingmatters.poom.crons.domain.TaskExecutor;
+import org.codingmatters.poom.crons.domain.accounts.AccountRegistry;
+import org.codingmatters.poom.crons.domain.catchup.CatchUpPlanner;
+import org.codingmatters.poom.crons.domain.clock.TickClock;
+import org.codingmatters.poom.crons.domain.metrics.Histogram;
+import org.codingmatters.poom.crons.domain.metrics.LoggingMetricsExporter;
+import org.codingmatters.poom.crons.domain.metrics.MetricsExporter;
+import org.codingmatters.poom.crons.domain.metrics.MetricsRegistry;
+import org.codingmatters.poom.crons.domain.ownership.ConsistentHashOwnership;
+import org.codingmatters.poom.crons.domain.ownership.TaskOwnership;
+import org.codingmatters.poom.crons.domain.persistence.WriteBehindTaskBuffer;
+import org.codingmatters.poom.crons.domain.pipeline.PipelineMetrics;
+import org.codingmatters.poom.crons.domain.pipeline.TickPipeline;
+import org.codingmatters.poom.crons.domain.scheduler.InvertedIndexTaskScheduler;
+import org.codingmatters.poom.crons.domain.scheduler.PriorityQueueTaskScheduler;
+import org.codingmatters.poom.crons.domain.scheduler.TaskScheduler;
+import org.codingmatters.poom.crons.domain.scheduler.TimingWheelTaskScheduler;
 import org.codingmatters.poom.crons.domain.selector.DateTimeTaskSelector;
+import org.codingmatters.poom.crons.domain.selector.NextOccurrence;
+import org.codingmatters.poom.crons.domain.state.InMemoryTaskStateStore;
+import org.codingmatters.poom.crons.domain.state.TaskStateStore;
+import org.codingmatters.poom.crons.domain.tracing.TickTracing;
+import org.codingmatters.poom.crons.domain.trigger.AsyncTaskTrigger;
+import org.codingmatters.poom.crons.domain.trigger.BatchTaskTrigger;
 import org.codingmatters.poom.crons.domain.trigger.TaskTrigger;
+import org.codingmatters.poom.crons.domain.trigger.ThrottledTaskTrigger;
+import org.codingmatters.poom.crons.domain.trigger.TriggerExecutors;
 import org.codingmatters.poom.services.domain.exceptions.RepositoryException;
 import org.codingmatters.poom.services.domain.repositories.Repository;
 import org.codingmatters.poom.services.logging.CategorizedLogger;
 import org.codingmatters.poom.services.support.Env;
-import org.codingmatters.poom.services.support.date.UTC;
 import org.codingmatters.poom.services.domain.entities.Entity;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.*;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class CrontabService {
 
     static private final CategorizedLogger log = CategorizedLogger.getLogger(CrontabService.class);
     private static final String CRON_ERROR_THRESHOLD = "CRON_ERROR_THRESHOLD";
     public static final String CRON_ERROR_THRESHOLD_DEFAULT = "30";
+    private static final String CRON_SHARDS = "CRON_SHARDS";
+    private static final String CRON_EXECUTION = "CRON_EXECUTION";
+    private static final String CRON_MAX_IN_FLIGHT = "CRON_MAX_IN_FLIGHT";
+    public static final String CRON_MAX_IN_FLIGHT_DEFAULT = "256";
+    private static final String CRON_MAX_IN_FLIGHT_PER_HOST = "CRON_MAX_IN_FLIGHT_PER_HOST";
+    public static final String CRON_MAX_IN_FLIGHT_PER_HOST_DEFAULT = "64";
+    private static final String CRON_MAX_BATCH_SIZE = "CRON_MAX_BATCH_SIZE";
+    public static final String CRON_MAX_BATCH_SIZE_DEFAULT = "100";
+    private static final String CRON_STATE_FLUSH_SECONDS = "CRON_STATE_FLUSH_SECONDS";
+    public static final String CRON_STATE_FLUSH_SECONDS_DEFAULT = "0";
+    private static final String CRON_STATE_FLUSH_MAX_PENDING = "CRON_STATE_FLUSH_MAX_PENDING";
+    public static final String CRON_STATE_FLUSH_MAX_PENDING_DEFAULT = "10000";
+    private static final String CRON_PIPELINE_QUEUE_CAPACITY = "CRON_PIPELINE_QUEUE_CAPACITY";
+    public static final String CRON_PIPELINE_QUEUE_CAPACITY_DEFAULT = "1024";
+    private static final String CRON_PIPELINE_EXECUTION_WORKERS = "CRON_PIPELINE_EXECUTION_WORKERS";
+    public static final String CRON_PIPELINE_EXECUTION_WORKERS_DEFAULT = "1";
+    private static final String CRON_MAX_TICK_REPLAY = "CRON_MAX_TICK_REPLAY";
+    public static final String CRON_MAX_TICK_REPLAY_DEFAULT = "60";
+    private static final String CRON_CATCH_UP_BATCH_SIZE = "CRON_CATCH_UP_BATCH_SIZE";
+    public static final String CRON_CATCH_UP_BATCH_SIZE_DEFAULT = "100";
+    private static final String CRON_CATCH_UP_INTERVAL_MILLIS = "CRON_CATCH_UP_INTERVAL_MILLIS";
+    public static final String CRON_CATCH_UP_INTERVAL_MILLIS_DEFAULT = "1000";
+    private static final String CRON_METRICS_EXPORT_SECONDS = "CRON_METRICS_EXPORT_SECONDS";
+    public static final String CRON_METRICS_EXPORT_SECONDS_DEFAULT = "0";
+    private static final String CRON_TRACING_SAMPLE_RATE = "CRON_TRACING_SAMPLE_RATE";
+    public static final String CRON_TRACING_SAMPLE_RATE_DEFAULT = "0.01";
+    private static final String CRON_NODE_ID = "CRON_NODE_ID";
+    private static final String CRON_CLUSTER_NODES = "CRON_CLUSTER_NODES";
+    private static final String CRON_CLUSTER_PARTITION = "CRON_CLUSTER_PARTITION";
+    private static final String CRON_CLUSTER_RECONCILE_SECONDS = "CRON_CLUSTER_RECONCILE_SECONDS";
+    public static final String CRON_CLUSTER_RECONCILE_SECONDS_DEFAULT = "60";
     private final Precision precision;
 
     public enum Precision {
@@ -30,12 +93,22 @@ public class CrontabService {
             public DateTimeTaskSelector selector(LocalDateTime now) {
                 return DateTimeTaskSelector.secondsPrecision(now);
             }
+
+            @Override
+            public NextOccurrence nextOccurrence() {
+                return NextOccurrence.secondsPrecision();
+            }
         },
         MINUTES(TimeUnit.MINUTES) {
             @Override
             public DateTimeTaskSelector selector(LocalDateTime now) {
                 return DateTimeTaskSelector.minutesPrecision(now);
             }
+
+            @Override
+            public NextOccurrence nextOccurrence() {
+                return NextOccurrence.minutesPrecision();
+            }
         };
 
         public final TimeUnit timeUnit;
@@ -44,9 +117,91 @@ public class CrontabService {
             this.timeUnit = timeUnit;
         }
 
+        public Duration period() {
+            return Duration.ofSeconds(TimeUnit.SECONDS.convert(1, this.timeUnit));
+        }
+
         public abstract DateTimeTaskSelector selector(LocalDateTime now) ;
+        public abstract NextOccurrence nextOccurrence();
+    }
+
+    public enum Engine {
+        SCAN {
+            @Override
+            public TaskScheduler scheduler(Precision precision) {
+                return null;
+            }
+        },
+        QUEUE {
+            @Override
+            public TaskScheduler scheduler(Precision precision) {
+                return new PriorityQueueTaskScheduler(precision.timeUnit.toChronoUnit(), DateTimeTaskSelector.defaultTimeZone());
+            }
+        },
+        WHEEL {
+            @Override
+            public TaskScheduler scheduler(Precision precision) {
+                return new TimingWheelTaskScheduler(precision.timeUnit.toChronoUnit(), DateTimeTaskSelector.defaultTimeZone());
+            }
+        },
+        INDEX {
+            @Override
+            public TaskScheduler scheduler(Precision precision) {
+                return new InvertedIndexTaskScheduler(precision.timeUnit.toChronoUnit(), DateTimeTaskSelector.defaultTimeZone());
+            }
+        };
+
+        public abstract TaskScheduler scheduler(Precision precision);
+    }
+
+    public enum Execution {
+        POOL {
+            @Override
+            public TaskExecutor executor(TaskTrigger trigger, ForkJoinPool pool, Supplier<ExecutorService> triggerExecutor) {
+                return new TaskExecutor(pool, trigger);
+            }
+        },
+        ASYNC {
+            @Override
+            public TaskExecutor executor(TaskTrigger trigger, ForkJoinPool pool, Supplier<ExecutorService> triggerExecutor) {
+                return new TaskExecutor(AsyncTaskTrigger.of(trigger, pool), envInt(CRON_MAX_IN_FLIGHT, CRON_MAX_IN_FLIGHT_DEFAULT));
+            }
+        },
+        VIRTUAL {
+            @Override
+            public TaskExecutor executor(TaskTrigger trigger, ForkJoinPool pool, Supplier<ExecutorService> triggerExecutor) {
+                return new TaskExecutor(new ThrottledTaskTrigger(
+                        trigger,
+                        triggerExecutor.get(),
+                        envInt(CRON_MAX_IN_FLIGHT, CRON_MAX_IN_FLIGHT_DEFAULT),
+                        envInt(CRON_MAX_IN_FLIGHT_PER_HOST, CRON_MAX_IN_FLIGHT_PER_HOST_DEFAULT)
+                ), TaskExecutor.UNLIMITED_IN_FLIGHT);
+            }
+        },
+        BATCH {
+            @Override
+            public TaskExecutor executor(TaskTrigger trigger, ForkJoinPool pool, Supplier<ExecutorService> triggerExecutor) {
+                if(! (trigger instanceof BatchTaskTrigger)) {
+                    throw new IllegalArgumentException("batch execution requires a batch task trigger, got : " + trigger);
+                }
+                return new TaskExecutor(
+                        (BatchTaskTrigger) trigger,
+                        triggerExecutor.get(),
+                        envInt(CRON_MAX_BATCH_SIZE, CRON_MAX_BATCH_SIZE_DEFAULT),
+                        envInt(CRON_MAX_IN_FLIGHT, CRON_MAX_IN_FLIGHT_DEFAULT)
+                );
+            }
+        };
+
+        public abstract TaskExecutor executor(TaskTrigger trigger, ForkJoinPool pool, Supplier<ExecutorService> triggerExecutor);
+    }
+
+    static private int envInt(String name, String defaultValue) {
+        return Math.toIntExact(Env.optional(name).orElse(new Env.Var(defaultValue)).asLong());
     }
 
+    private final Engine engine;
+    private final TaskOwnership ownership;
     private final Crontab crontab;
     private final PoomCronsApi api;
 
@@ -54,8 +209,21 @@ public class CrontabService {
     private final ForkJoinPool pool;
 
     private TaskExecutor executor;
+    private ExecutorService triggerExecutor;
 
     private ScheduledExecutorService scheduler;
+    private ExecutorService persister;
+    private final int stateFlushSeconds;
+    private WriteBehindTaskBuffer writeBehind;
+    private TickPipeline pipeline;
+    private final Clock clock;
+    private TickClock tickClock;
+    private LocalDateTime lastSimulatedFlush;
+    private final ConcurrentLinkedQueue<Entity<Task>> catchUps = new ConcurrentLinkedQueue<>();
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final Histogram scannedTasks;
+    private MetricsExporter exporter = new LoggingMetricsExporter();
+    private final TickTracing tracing;
     private final Long errorThreshold;
 
     public CrontabService(
@@ -72,65 +240,325 @@ public class CrontabService {
             TaskTrigger trigger,
             ForkJoinPool pool,
             Precision precision) throws RepositoryException {
+        this(repositoryForAccount, initialAccounts, trigger, pool, precision, Engine.QUEUE);
+    }
+
+    public CrontabService(
+            Function<String, Repository<Task, Void>> repositoryForAccount,
+            String[] initialAccounts,
+            TaskTrigger trigger,
+            ForkJoinPool pool,
+            Precision precision,
+            Engine engine) throws RepositoryException {
+        this(repositoryForAccount, initialAccounts, trigger, pool, precision, engine, ownershipFromEnv());
+    }
+
+    public CrontabService(
+            Function<String, Repository<Task, Void>> repositoryForAccount,
+            String[] initialAccounts,
+            TaskTrigger trigger,
+            ForkJoinPool pool,
+            Precision precision,
+            Engine engine,
+            TaskOwnership ownership) throws RepositoryException {
+        this(repositoryForAccount, initialAccounts, trigger, pool, precision, engine, ownership, null);
+    }
+
+    public CrontabService(
+            Function<String, Repository<Task, Void>> repositoryForAccount,
+            String[] initialAccounts,
+            TaskTrigger trigger,
+            ForkJoinPool pool,
+            Precision precision,
+            Engine engine,
+            TaskOwnership ownership,
+            TaskStateStore stateStore) throws RepositoryException {
+        this(repositoryForAccount, initialAccounts, trigger, pool, precision, engine, ownership, stateStore, Clock.systemUTC());
+    }
+
+    public CrontabService(
+            Function<String, Repository<Task, Void>> repositoryForAccount,
+            String[] initialAccounts,
+            TaskTrigger trigger,
+            ForkJoinPool pool,
+            Precision precision,
+            Engine engine,
+            TaskOwnership ownership,
+            TaskStateStore stateStore,
+            Clock clock) throws RepositoryException {
+        this(repositoryForAccount, initialAccounts, trigger, pool, precision, engine, ownership, stateStore, clock, AccountRegistry.LOCAL);
+    }
+
+    public CrontabService(
+            Function<String, Repository<Task, Void>> repositoryForAccount,
+            String[] initialAccounts,
+            TaskTrigger trigger,
+            ForkJoinPool pool,
+            Precision precision,
+            Engine engine,
+            TaskOwnership ownership,
+            TaskStateStore stateStore,
+            Clock clock,
+            AccountRegistry accountRegistry) throws RepositoryException {
         this.precision = precision;
-        this.crontab = new Crontab(repositoryForAccount).loadAccounts(initialAccounts);
+        this.engine = engine;
+        this.ownership = ownership;
+        this.clock = clock;
+        if(stateStore instanceof InMemoryTaskStateStore) {
+            log.warn("in memory task state store is not durable, trigger states will be lost on restart, use a RepositoryTaskStateStore outside tests");
+        }
+        if(ownership != TaskOwnership.ALL && accountRegistry == AccountRegistry.LOCAL) {
+            log.warn("cluster mode without a shared account registry, accounts only used through other nodes are never scheduled, use a RepositoryAccountRegistry");
+        }
+        int shards = envInt(CRON_SHARDS, String.valueOf(pool.getParallelism()));
+        this.crontab = new Crontab(repositoryForAccount, () -> engine.scheduler(precision), shards, ownership, stateStore, clock)
+                .usingMetrics(this.metrics)
+                .usingAccounts(accountRegistry)
+                .loadAccounts(initialAccounts);
+        this.scannedTasks = this.metrics.histogram("tick.tasks.scanned");
 
-        this.api = new PoomCronsApi(account -> this.crontab.forAccount(account));
+        this.api = new PoomCronsApi(account -> this.crontab.forAccount(account), stateStore);
         this.trigger = trigger;
         this.pool = pool;
 
-        this.executor = new TaskExecutor(this.pool, this.trigger);
+        Execution execution = Env.optional(CRON_EXECUTION)
+                .map(var -> Execution.valueOf(var.asString().toUpperCase()))
+                .orElse(this.trigger instanceof BatchTaskTrigger ? Execution.BATCH : this.trigger instanceof AsyncTaskTrigger ? Execution.ASYNC : Execution.POOL);
+        this.executor = execution.executor(this.trigger, this.pool, this::triggerExecutor).usingClock(clock).usingMetrics(this.metrics);
+        log.info("crontab service triggers tasks in {} execution mode", execution);
         errorThreshold = Env.optional(CRON_ERROR_THRESHOLD).orElse(new Env.Var(CRON_ERROR_THRESHOLD_DEFAULT)).asLong();
+        this.stateFlushSeconds = envInt(CRON_STATE_FLUSH_SECONDS, CRON_STATE_FLUSH_SECONDS_DEFAULT);
+        this.tracing = TickTracing.global(Double.parseDouble(Env.optional(CRON_TRACING_SAMPLE_RATE).orElse(new Env.Var(CRON_TRACING_SAMPLE_RATE_DEFAULT)).asString()));
+        log.info("crontab service traces {}% of ticks", this.tracing.sampleRate() * 100d);
+    }
+
+    private synchronized ExecutorService triggerExecutor() {
+        if(this.triggerExecutor == null) {
+            this.triggerExecutor = TriggerExecutors.virtualThreadPerTask();
+        }
+        return this.triggerExecutor;
     }
 
     public PoomCronsApi api() {
         return this.api;
     }
 
-    public void start() {
-        this.scheduler = Executors.newSingleThreadScheduledExecutor();
-        int nextMinuteStart = 60 - LocalDateTime.now().getSecond();
+    public MetricsRegistry metrics() {
+        return this.metrics;
+    }
+
+    public CrontabService exportMetricsTo(MetricsExporter exporter) {
+        this.exporter = exporter;
+        return this;
+    }
 
+    static public TaskOwnership ownershipFromEnv() {
+        if(! Env.optional(CRON_CLUSTER_NODES).isPresent()) {
+            return TaskOwnership.ALL;
+        }
+        String node = Env.mandatory(CRON_NODE_ID).asString();
+        List<String> nodes = Arrays.asList(Env.mandatory(CRON_CLUSTER_NODES).asString().split("\\s*,\\s*"));
+        ConsistentHashOwnership.Partition partition = ConsistentHashOwnership.Partition.valueOf(
+                Env.optional(CRON_CLUSTER_PARTITION).orElse(new Env.Var(ConsistentHashOwnership.Partition.TASK.name())).asString().toUpperCase()
+        );
+        log.info("crontab cluster mode, node {} in {} partitioned by {}", node, nodes, partition);
+        return new ConsistentHashOwnership(node, nodes, partition);
+    }
 
-        this.scheduler.scheduleAtFixedRate(this::checkedTick, nextMinuteStart, TimeUnit.SECONDS.convert(1, this.precision.timeUnit), TimeUnit.SECONDS);
+    public void start() {
+        this.scheduler = Executors.newScheduledThreadPool(2);
+        this.persister = Executors.newSingleThreadExecutor();
+        if(this.stateFlushSeconds > 0) {
+            this.writeBehind = new WriteBehindTaskBuffer(this.crontab, envInt(CRON_STATE_FLUSH_MAX_PENDING, CRON_STATE_FLUSH_MAX_PENDING_DEFAULT), this.persister);
+            this.scheduler.scheduleWithFixedDelay(() -> this.persister.submit(this.writeBehind::checkedFlush), this.stateFlushSeconds, this.stateFlushSeconds, TimeUnit.SECONDS);
+            log.info("trigger outcomes are written behind, flushed every {}s", this.stateFlushSeconds);
+        }
+        this.pipeline = this.newPipeline().start();
+        this.tickClock = this.newTickClock(this::checkedTick).start();
+        this.catchUp(this.tickClock.lastBoundary());
+        long catchUpInterval = envInt(CRON_CATCH_UP_INTERVAL_MILLIS, CRON_CATCH_UP_INTERVAL_MILLIS_DEFAULT);
+        this.scheduler.scheduleWithFixedDelay(this::dispatchCatchUps, catchUpInterval, catchUpInterval, TimeUnit.MILLISECONDS);
+
+        int nextMinuteStart = 60 - LocalDateTime.now(this.clock).getSecond();
         this.scheduler.scheduleAtFixedRate(this::cleanupFailedTasks, nextMinuteStart + 30, TimeUnit.SECONDS.convert(1, this.precision.timeUnit), TimeUnit.SECONDS);
+
+        if(this.ownership != TaskOwnership.ALL) {
+            long reconcileSeconds = envInt(CRON_CLUSTER_RECONCILE_SECONDS, CRON_CLUSTER_RECONCILE_SECONDS_DEFAULT);
+            this.scheduler.scheduleWithFixedDelay(this::reconcile, reconcileSeconds, reconcileSeconds, TimeUnit.SECONDS);
+            log.info("cluster mode, owned tasks are reconciled with repositories every {}s", reconcileSeconds);
+        }
+
+        long metricsExportSeconds = envInt(CRON_METRICS_EXPORT_SECONDS, CRON_METRICS_EXPORT_SECONDS_DEFAULT);
+        if(metricsExportSeconds > 0) {
+            this.scheduler.scheduleAtFixedRate(this::exportMetrics, metricsExportSeconds, metricsExportSeconds, TimeUnit.SECONDS);
+        }
         log.info("started crontab service");
     }
 
-    private void checkedTick() {
+    private TickPipeline newPipeline() {
+        return new TickPipeline(
+                this::due,
+                this.executor,
+                this::persist,
+                envInt(CRON_PIPELINE_QUEUE_CAPACITY, CRON_PIPELINE_QUEUE_CAPACITY_DEFAULT),
+                envInt(CRON_PIPELINE_EXECUTION_WORKERS, CRON_PIPELINE_EXECUTION_WORKERS_DEFAULT)
+        ).whenExecuted(this.crontab::cacheAll).usingMetrics(this.metrics).usingTracing(this.tracing);
+    }
+
+    private TickClock newTickClock(Consumer<LocalDateTime> onBoundary) {
+        return new TickClock(
+                this.clock,
+                this.precision.period(),
+                envInt(CRON_MAX_TICK_REPLAY, CRON_MAX_TICK_REPLAY_DEFAULT),
+                onBoundary
+        ).whenSkipping(this::catchUp).usingMetrics(this.metrics);
+    }
+
+    void startSimulation() {
+        if(this.stateFlushSeconds > 0) {
+            this.writeBehind = new WriteBehindTaskBuffer(this.crontab, envInt(CRON_STATE_FLUSH_MAX_PENDING, CRON_STATE_FLUSH_MAX_PENDING_DEFAULT), Runnable::run);
+        }
+        this.pipeline = this.newPipeline();
+        this.tickClock = this.newTickClock(this::simulatedTick);
+        this.lastSimulatedFlush = this.tickClock.lastBoundary();
+        this.catchUp(this.tickClock.lastBoundary());
+        log.info("started crontab service simulation at {}", this.tickClock.lastBoundary());
+    }
+
+    Duration tickPeriod() {
+        return this.precision.period();
+    }
+
+    int advanceSimulation() {
+        return this.tickClock.fireDue();
+    }
+
+    void stopSimulation() {
+        if(this.writeBehind != null) {
+            this.writeBehind.checkedFlush();
+        }
+        log.info("stopped crontab service simulation after {} ticks, tick pipeline metrics : {}", this.tickClock.ticks(), this.pipeline.metrics());
+        this.exportMetrics();
+    }
+
+    private void simulatedTick(LocalDateTime boundary) {
+        try {
+            this.cleanupFailedTasks(this.pipeline.tickInline(boundary));
+            this.cleanupFailedTasks(this.pipeline.runInline(boundary, this.nextCatchUps()));
+        } catch (RepositoryException | ExecutionException | InterruptedException e) {
+            log.error("error ticking at " + boundary, e);
+        }
+        if(this.writeBehind != null && ! boundary.isBefore(this.lastSimulatedFlush.plusSeconds(this.stateFlushSeconds))) {
+            this.writeBehind.checkedFlush();
+            this.lastSimulatedFlush = boundary;
+        }
+    }
+
+    private void checkedTick(LocalDateTime boundary) {
         try {
-            log.debug("tick");
-            this.tick();
+            log.debug("tick at {}", boundary);
+            this.pipeline.tick(boundary);
         } catch (RepositoryException | ExecutionException | InterruptedException e) {
-            log.error("error ticking", e);
+            log.error("error ticking at " + boundary, e);
+        }
+    }
+
+    private void catchUp(LocalDateTime upTo) {
+        List<Entity<Task>> missed = this.crontab.missed(new CatchUpPlanner(this.precision.nextOccurrence()), upTo);
+        if(! missed.isEmpty()) {
+            log.info("{} missed occurrences up to {} will be caught up", missed.size(), upTo);
+            this.catchUps.addAll(missed);
+        }
+    }
+
+    private void dispatchCatchUps() {
+        if(this.catchUps.isEmpty() || this.pipeline.executionQueueSize() > 0) {
+            return;
+        }
+        List<Entity<Task>> batch = this.nextCatchUps();
+        if(! this.pipeline.submit(this.tickClock.lastBoundary(), batch)) {
+            this.catchUps.addAll(batch);
         }
     }
 
-    private void tick() throws RepositoryException, ExecutionException, InterruptedException {
-        DateTimeTaskSelector selector = this.precision.selector(UTC.now());
-        List<Entity<Task>> selectable = this.crontab.selectable(selector, this.pool);
-        if(! selectable.isEmpty()) {
-            List<Entity<Task>> executed = this.executor.execute(selectable);
-            for (Entity<Task> task : executed) {
-                this.crontab.update(task, task.value());
+    private List<Entity<Task>> nextCatchUps() {
+        int batchSize = envInt(CRON_CATCH_UP_BATCH_SIZE, CRON_CATCH_UP_BATCH_SIZE_DEFAULT);
+        List<Entity<Task>> batch = new ArrayList<>(batchSize);
+        Set<String> batched = new HashSet<>();
+        for (Iterator<Entity<Task>> tasks = this.catchUps.iterator(); tasks.hasNext() && batch.size() < batchSize; ) {
+            Entity<Task> task = tasks.next();
+            if(batched.add(task.id())) {
+                batch.add(task);
+                tasks.remove();
             }
         }
+        return batch;
+    }
+
+    private List<Entity<Task>> due(LocalDateTime at) throws RepositoryException, ExecutionException, InterruptedException {
+        if(this.engine == Engine.SCAN) {
+            this.scannedTasks.record(this.crontab.size());
+            return this.crontab.selectable(this.precision.selector(at), this.pool);
+        } else {
+            List<Entity<Task>> due = this.crontab.due(at, this.pool);
+            this.scannedTasks.record(due.size());
+            return due;
+        }
+    }
+
+    private void persist(List<Entity<Task>> executed) throws RepositoryException {
+        if(this.writeBehind != null) {
+            this.writeBehind.offer(executed);
+        } else {
+            this.crontab.updateAll(executed);
+        }
+    }
+
+    public PipelineMetrics pipelineMetrics() {
+        return this.pipeline != null ? this.pipeline.metrics() : null;
+    }
+
+    private void reconcile() {
+        try {
+            this.crontab.reconcile();
+        } catch (RepositoryException e) {
+            log.error("error reconciling crontab with repositories", e);
+        }
+    }
+
+    private void exportMetrics() {
+        try {
+            this.exporter.export(this.metrics.snapshot());
+        } catch (RuntimeException e) {
+            log.error("error exporting metrics", e);
+        }
     }
 
     private void cleanupFailedTasks() {
         try {
-            for (Entity<Task> task : this.crontab.tasks()) {
-                if(task.value().errorCount() >= this.errorThreshold) {
-                    log.info("task has reached the error threshold ({}), removing from crontab : {}", this.errorThreshold, task);
-                    this.crontab.delete(task);
-                }
-            }
+            this.cleanupFailedTasks(this.crontab.tasks());
         } catch (RepositoryException e) {
             log.error("error cleaning failed tasks", e);
         }
     }
 
+    private void cleanupFailedTasks(List<Entity<Task>> tasks) throws RepositoryException {
+        for (Entity<Task> task : tasks) {
+            if(task.value().errorCount() >= this.errorThreshold) {
+                log.info("task has reached the error threshold ({}), removing from crontab : {}", this.errorThreshold, task);
+                this.crontab.delete(task);
+            }
+        }
+    }
+
     public void stop() {
+        try {
+            this.tickClock.stop();
+        } catch (InterruptedException e) {
+            log.error("error waiting for tick clock to stop", e);
+        }
+        log.info("tick clock stopped after {} ticks ({} replayed, {} skipped, max lateness {}ms)",
+                this.tickClock.ticks(), this.tickClock.replayed(), this.tickClock.skipped(), this.tickClock.maxLatenessMillis());
         this.scheduler.shutdown();
         try {
             this.scheduler.awaitTermination(2, TimeUnit.MINUTES);
@@ -148,7 +576,35 @@ public class CrontabService {
         }
         if(! this.scheduler.isTerminated()) {
             log.error("GRAVE - unable to stop scheduler");
-        } else {
+        }
+
+        try {
+            if(! this.pipeline.stop(2, TimeUnit.MINUTES)) {
+                log.error("GRAVE - due tasks not all executed and persisted on stop");
+            }
+        } catch (InterruptedException e) {
+            log.error("error waiting for tick pipeline to drain", e);
+        }
+
+        if(this.triggerExecutor != null) {
+            this.triggerExecutor.shutdown();
+        }
+
+        if(this.writeBehind != null) {
+            this.persister.submit(this.writeBehind::checkedFlush);
+        }
+        this.persister.shutdown();
+        try {
+            if(! this.persister.awaitTermination(2, TimeUnit.MINUTES)) {
+                log.error("GRAVE - trigger outcomes not persisted on time, some task states are lost");
+                this.persister.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            log.error("error waiting for trigger outcomes persistence", e);
+        }
+        log.info("tick pipeline metrics at stop : {}", this.pipeline.metrics());
+        this.exportMetrics();
+        if(this.scheduler.isTerminated() && this.persister.isTerminated()) {
             log.info("stopped crontab service");
         }
     }
@@ -2,6 +2,7 @@ package org.codingmatters.poom.crons.service;
 
 import org.codingmatters.poom.crons.crontab.api.PoomCronsHandlers;
 import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.crons.domain.state.TaskStateStore;
 import org.codingmatters.poom.crons.service.handler.*;
 import org.codingmatters.poom.services.domain.repositories.Repository;
 
@@ -12,11 +13,15 @@ public class PoomCronsApi {
     private final PoomCronsHandlers handlers;
 
     public PoomCronsApi(Function<String, Repository<Task, Void>> repositoryForAccount) {
+        this(repositoryForAccount, null);
+    }
+
+    public PoomCronsApi(Function<String, Repository<Task, Void>> repositoryForAccount, TaskStateStore stateStore) {
         handlers = new PoomCronsHandlers.Builder()
-                .taskGetHandler(new TaskGet(repositoryForAccount))
-                .taskPutHandler(new TaskUpdate(repositoryForAccount))
+                .taskGetHandler(new TaskGet(repositoryForAccount, stateStore))
+                .taskPutHandler(new TaskUpdate(repositoryForAccount, stateStore))
                 .taskDeleteHandler(new TaskDelete(repositoryForAccount))
-                .accountCrontabGetHandler(new TaskList(repositoryForAccount))
+                .accountCrontabGetHandler(new TaskList(repositoryForAccount, stateStore))
                 .accountCrontabPostHandler(new TaskCreate(repositoryForAccount))
                 .build();
     }
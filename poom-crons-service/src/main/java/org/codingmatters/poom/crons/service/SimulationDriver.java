@@ -0,0 +1,57 @@
+package org.codingmatters.poom.crons.service;
+
+import org.codingmatters.poom.crons.domain.clock.VirtualClock;
+import org.codingmatters.poom.services.logging.CategorizedLogger;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+public class SimulationDriver {
+    static private final CategorizedLogger log = CategorizedLogger.getLogger(SimulationDriver.class);
+
+    private final CrontabService service;
+    private final VirtualClock clock;
+    private final Duration period;
+    private boolean started = false;
+
+    public SimulationDriver(CrontabService service, VirtualClock clock) {
+        this.service = service;
+        this.clock = clock;
+        this.period = service.tickPeriod();
+    }
+
+    public synchronized SimulationDriver start() {
+        if(! this.started) {
+            this.service.startSimulation();
+            this.started = true;
+        }
+        return this;
+    }
+
+    public synchronized long advance(Duration duration) {
+        return this.runUntil(this.now().plus(duration));
+    }
+
+    public synchronized long runUntil(LocalDateTime utcEnd) {
+        this.start();
+        long ticks = 0;
+        long startedAt = System.nanoTime();
+        while (this.now().plus(this.period).compareTo(utcEnd) <= 0) {
+            this.clock.advance(this.period);
+            ticks += this.service.advanceSimulation();
+        }
+        log.debug("simulated {} ticks up to {} in {}ms", ticks, this.now(), Duration.ofNanos(System.nanoTime() - startedAt).toMillis());
+        return ticks;
+    }
+
+    public synchronized void stop() {
+        if(this.started) {
+            this.service.stopSimulation();
+            this.started = false;
+        }
+    }
+
+    public LocalDateTime now() {
+        return LocalDateTime.now(this.clock);
+    }
+}
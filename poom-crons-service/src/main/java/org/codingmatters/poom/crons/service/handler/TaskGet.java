@@ -4,6 +4,7 @@ import org.codingmatters.poom.crons.crontab.api.TaskGetRequest;
 import org.codingmatters.poom.crons.crontab.api.TaskGetResponse;
 import org.codingmatters.poom.crons.crontab.api.types.Error;
 import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.crons.domain.state.TaskStateStore;
 import org.codingmatters.poom.services.domain.exceptions.RepositoryException;
 import org.codingmatters.poom.services.domain.repositories.Repository;
 import org.codingmatters.poom.services.logging.CategorizedLogger;
@@ -15,9 +16,15 @@ public class TaskGet implements Function<TaskGetRequest, TaskGetResponse> {
     static private final CategorizedLogger log = CategorizedLogger.getLogger(TaskGet.class);
 
     private final Function<String, Repository<Task, Void>> repositoryForAccount;
+    private final TaskStateStore stateStore;
 
     public TaskGet(Function<String, Repository<Task, Void>> repositoryForAccount) {
+        this(repositoryForAccount, null);
+    }
+
+    public TaskGet(Function<String, Repository<Task, Void>> repositoryForAccount, TaskStateStore stateStore) {
         this.repositoryForAccount = repositoryForAccount;
+        this.stateStore = stateStore;
     }
 
     @Override
@@ -26,11 +33,12 @@ public class TaskGet implements Function<TaskGetRequest, TaskGetResponse> {
         try {
             Entity<Task> task = repository.retrieve(request.taskId());
             if(task != null) {
+                Task value = this.stateStore != null ? this.stateStore.merged(request.account(), task) : task.value();
                 log.audit().info("returning requested task {}", task);
                 return TaskGetResponse.builder()
                         .status200(status -> status
                                 .xEntityId(task.id())
-                                .payload(task.value())
+                                .payload(value)
                         )
                         .build();
             } else {
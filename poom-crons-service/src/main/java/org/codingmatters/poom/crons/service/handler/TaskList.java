@@ -4,20 +4,36 @@ import org.codingmatters.poom.crons.crontab.api.AccountCrontabGetRequest;
 import org.codingmatters.poom.crons.crontab.api.AccountCrontabGetResponse;
 import org.codingmatters.poom.crons.crontab.api.types.Error;
 import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.crons.domain.state.TaskState;
+import org.codingmatters.poom.crons.domain.state.TaskStateStore;
 import org.codingmatters.poom.services.domain.exceptions.RepositoryException;
 import org.codingmatters.poom.services.domain.repositories.Repository;
 import org.codingmatters.poom.services.logging.CategorizedLogger;
+import org.codingmatters.poom.services.domain.entities.Entity;
+import org.codingmatters.poom.services.domain.entities.PagedEntityList;
 import org.codingmatters.poom.services.support.paging.Rfc7233Pager;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
 
 public class TaskList implements Function<AccountCrontabGetRequest, AccountCrontabGetResponse> {
     static private final CategorizedLogger log = CategorizedLogger.getLogger(TaskList.class);
 
     private final Function<String, Repository<Task, Void>> repositoryForAccount;
+    private final TaskStateStore stateStore;
 
     public TaskList(Function<String, Repository<Task, Void>> repositoryForAccount) {
+        this(repositoryForAccount, null);
+    }
+
+    public TaskList(Function<String, Repository<Task, Void>> repositoryForAccount, TaskStateStore stateStore) {
         this.repositoryForAccount = repositoryForAccount;
+        this.stateStore = stateStore;
     }
 
     @Override
@@ -26,13 +42,14 @@ public class TaskList implements Function<AccountCrontabGetRequest, AccountCront
         try {
             Rfc7233Pager.Page<Task> page = Rfc7233Pager.forRequestedRange(request.range()).unit("Task").maxPageSize(1000).pager(repository).page();
             if(page.isValid()) {
+                List<Task> tasks = this.values(request.account(), page.list());
                 log.audit().info("returning {} task list", page.isPartial() ? "partial" : "complete");
                 if(page.isPartial()) {
                     return AccountCrontabGetResponse.builder()
                         .status206(status -> status
                                 .acceptRange(page.acceptRange())
                                 .contentRange(page.contentRange())
-                                .payload(page.list().valueList())
+                                .payload(tasks)
                         )
                         .build();
                 } else {
@@ -40,7 +57,7 @@ public class TaskList implements Function<AccountCrontabGetRequest, AccountCront
                         .status200(status -> status
                                 .acceptRange(page.acceptRange())
                                 .contentRange(page.contentRange())
-                                .payload(page.list().valueList())
+                                .payload(tasks)
                         )
                         .build();
                 }
@@ -65,4 +82,21 @@ public class TaskList implements Function<AccountCrontabGetRequest, AccountCront
                     .build();
         }
     }
+
+    private List<Task> values(String account, PagedEntityList<Task> entities) throws RepositoryException {
+        List<Task> result = new ArrayList<>(entities.size());
+        Map<String, TaskState> states = Collections.emptyMap();
+        if(this.stateStore != null) {
+            Set<String> ids = new HashSet<>();
+            for (Entity<Task> entity : entities) {
+                ids.add(entity.id());
+            }
+            states = this.stateStore.get(account, ids);
+        }
+        for (Entity<Task> entity : entities) {
+            TaskState state = states.get(entity.id());
+            result.add(state != null ? state.applyTo(entity.value()) : entity.value());
+        }
+        return result;
+    }
 }
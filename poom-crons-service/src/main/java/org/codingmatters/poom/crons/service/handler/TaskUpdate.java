@@ -4,6 +4,7 @@ import org.codingmatters.poom.crons.crontab.api.TaskPutRequest;
 import org.codingmatters.poom.crons.crontab.api.TaskPutResponse;
 import org.codingmatters.poom.crons.crontab.api.types.Error;
 import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.crons.domain.state.TaskStateStore;
 import org.codingmatters.poom.crons.domain.TaskSpecValidator;
 import org.codingmatters.poom.services.domain.exceptions.RepositoryException;
 import org.codingmatters.poom.services.domain.repositories.Repository;
@@ -16,9 +17,15 @@ public class TaskUpdate implements Function<TaskPutRequest, TaskPutResponse> {
     static private final CategorizedLogger log = CategorizedLogger.getLogger(TaskUpdate.class);
 
     private final Function<String, Repository<Task, Void>> repositoryForAccount;
+    private final TaskStateStore stateStore;
 
     public TaskUpdate(Function<String, Repository<Task, Void>> repositoryForAccount) {
+        this(repositoryForAccount, null);
+    }
+
+    public TaskUpdate(Function<String, Repository<Task, Void>> repositoryForAccount, TaskStateStore stateStore) {
         this.repositoryForAccount = repositoryForAccount;
+        this.stateStore = stateStore;
     }
 
     @Override
@@ -42,11 +49,12 @@ public class TaskUpdate implements Function<TaskPutRequest, TaskPutResponse> {
                             .build();
                 }
 
+                Task value = this.stateStore != null ? this.stateStore.merged(request.account(), updated) : updated.value();
                 log.audit().info("updated task {}", updated);
                 return TaskPutResponse.builder()
                         .status200(status -> status
                                 .xEntityId(updated.id())
-                                .payload(updated.value())
+                                .payload(value)
                         )
                         .build();
             } else {
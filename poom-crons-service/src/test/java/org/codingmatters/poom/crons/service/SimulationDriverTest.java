@@ -0,0 +1,101 @@
+package org.codingmatters.poom.crons.service;
+
+import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.crons.crontab.api.types.TaskSpec;
+import org.codingmatters.poom.crons.domain.clock.VirtualClock;
+import org.codingmatters.poom.crons.domain.ownership.TaskOwnership;
+import org.codingmatters.poom.crons.domain.trigger.TaskTrigger;
+import org.codingmatters.poom.crons.domain.trigger.TriggerResult;
+import org.codingmatters.poom.crons.service.handler.TestTaskRepository;
+import org.codingmatters.poom.services.domain.entities.Entity;
+import org.codingmatters.poom.services.domain.repositories.Repository;
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class SimulationDriverTest {
+
+    static private final LocalDateTime START = LocalDateTime.of(2020, Month.OCTOBER, 24, 0, 0);
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private final VirtualClock clock = new VirtualClock(START.toInstant(ZoneOffset.UTC));
+    private final Repository<Task, Void> repository = new TestTaskRepository();
+    private final Map<String, List<LocalDateTime>> triggers = new ConcurrentHashMap<>();
+
+    private final TaskTrigger recordingTrigger = (task, triggedAt, eventId) -> {
+        this.triggers.computeIfAbsent(task.id(), id -> new CopyOnWriteArrayList<>()).add(triggedAt);
+        return new TriggerResult(true);
+    };
+
+    @After
+    public void tearDown() throws Exception {
+        this.pool.shutdownNow();
+    }
+
+    @Test
+    public void givenEveryAndAtTasks__whenSimulatingADay__thenEachOccurrenceIsTriggeredOnceAtVirtualTime() throws Exception {
+        this.repository.create(Task.builder().id("every-minute").spec(TaskSpec.builder().url("url").scheduled(scheduled -> scheduled
+                .every(every -> every.minutes(1L).startingAt(START.minusDays(1)))
+        ).build()).build());
+        this.repository.create(Task.builder().id("at-half-past").spec(TaskSpec.builder().url("url").scheduled(scheduled -> scheduled
+                .at(at -> at.minuteOfHours(30L))
+        ).build()).build());
+
+        for (CrontabService.Engine engine : CrontabService.Engine.values()) {
+            this.triggers.clear();
+            VirtualClock clock = new VirtualClock(START.toInstant(ZoneOffset.UTC));
+            SimulationDriver driver = new SimulationDriver(this.service(engine, clock), clock).start();
+
+            long ticks = driver.advance(Duration.ofDays(1));
+            driver.stop();
+
+            assertThat(engine.name(), ticks, is(24L * 60L));
+            assertThat(engine.name(), this.triggers.get("every-minute"), hasSize(24 * 60));
+            assertThat(engine.name(), this.triggers.get("every-minute").get(0), is(START.plusMinutes(1)));
+            assertThat(engine.name(), this.triggers.get("at-half-past"), hasSize(24));
+            assertThat(engine.name(), this.triggers.get("at-half-past").get(0), is(START.plusMinutes(30)));
+        }
+    }
+
+    @Test
+    public void givenSimulation__whenTasksAreTriggered__thenOutcomesArePersistedWithVirtualTime() throws Exception {
+        this.repository.create(Task.builder().id("hourly").spec(TaskSpec.builder().url("url").scheduled(scheduled -> scheduled
+                .at(at -> at.minuteOfHours(0L))
+        ).build()).build());
+
+        SimulationDriver driver = new SimulationDriver(this.service(CrontabService.Engine.INDEX, this.clock), this.clock).start();
+        driver.runUntil(START.plusDays(30));
+        driver.stop();
+
+        Entity<Task> task = this.repository.all(0, 0).get(0);
+        assertThat(this.triggers.get("hourly"), hasSize(30 * 24));
+        assertThat(task.value().lastTrig(), is(START.plusDays(30)));
+        assertThat(task.value().success(), is(true));
+    }
+
+    private CrontabService service(CrontabService.Engine engine, VirtualClock clock) throws Exception {
+        return new CrontabService(
+                account -> this.repository,
+                new String[] {"account"},
+                this.recordingTrigger,
+                this.pool,
+                CrontabService.Precision.MINUTES,
+                engine,
+                TaskOwnership.ALL,
+                null,
+                clock
+        );
+    }
+}
@@ -3,10 +3,15 @@ package org.codingmatters.poom.crons.service.handler;
 import org.codingmatters.poom.crons.crontab.api.TaskGetRequest;
 import org.codingmatters.poom.crons.crontab.api.TaskGetResponse;
 import org.codingmatters.poom.crons.crontab.api.types.Task;
+import org.codingmatters.poom.crons.domain.state.InMemoryTaskStateStore;
+import org.codingmatters.poom.crons.domain.state.TaskState;
 import org.codingmatters.poom.services.domain.repositories.Repository;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.time.LocalDateTime;
+import java.util.Collections;
+
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.Assert.assertThat;
@@ -43,4 +48,18 @@ public class TaskGetTest {
         assertThat(actual.status200().xEntityId(), is("existing-task"));
         assertThat(actual.status200().payload(), is(notNullValue()));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void givenTaskStateIsStored__whenRequestingExistingId__thenStateIsMergedInTask() throws Exception {
+        InMemoryTaskStateStore stateStore = new InMemoryTaskStateStore();
+        LocalDateTime lastTrig = LocalDateTime.of(2020, 10, 24, 12, 0);
+        stateStore.putAll("account", Collections.singletonMap("existing-task", new TaskState(lastTrig, false, 3L)));
+
+        TaskGetResponse actual = new TaskGet(account -> notEmptyReposiroy, stateStore).apply(TaskGetRequest.builder().account("account").taskId("existing-task").build());
+
+        actual.opt().status200().orElseThrow(() -> new AssertionError("expecting 200 got " + actual));
+        assertThat(actual.status200().payload().lastTrig(), is(lastTrig));
+        assertThat(actual.status200().payload().success(), is(false));
+        assertThat(actual.status200().payload().errorCount(), is(3L));
+    }
+}